@@ -0,0 +1,80 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.AccountRepository;
+import dao.CustomerRepository;
+import dao.Repositories;
+import model.Account;
+import model.Customer;
+
+/** Account and customer reads used by every screen and posting. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountDAOBenchmark {
+
+    /**
+     * On the JDBC backend, AccountDAO with the account cache at the given size (0 = every lookup
+     * reads the database). The size is read when AccountDAO is loaded, so each value needs its
+     * own fork. The in-memory backend has no cache and ignores it.
+     */
+    @State(Scope.Benchmark)
+    public static class CachedLookup {
+        @Param({"0", "10000"})
+        public int accountCacheSize;
+
+        AccountRepository accountDAO;
+
+        @Setup(Level.Trial)
+        public void setUp(BankState bank) {
+            System.setProperty("banking.cache.accounts.maxSize", String.valueOf(accountCacheSize));
+            accountDAO = Repositories.accounts();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Daos {
+        AccountRepository accountDAO;
+        CustomerRepository customerDAO;
+
+        @Setup(Level.Trial)
+        public void setUp(BankState bank) {
+            accountDAO = Repositories.accounts();
+            customerDAO = Repositories.customers();
+        }
+    }
+
+    @Benchmark
+    public Account getAccountByNumber(BankState bank, CachedLookup lookup) {
+        return lookup.accountDAO.getAccountByNumber(bank.randomAccountNumber());
+    }
+
+    @Benchmark
+    public List<Account> getAccountsByCustomerId(BankState bank, Daos daos) {
+        return daos.accountDAO.getAccountsByCustomerId(bank.randomCustomer());
+    }
+
+    // Reads the whole table, so the time grows with the customers parameter
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Customer> getAllCustomers(Daos daos) {
+        return daos.customerDAO.getAllCustomers();
+    }
+}
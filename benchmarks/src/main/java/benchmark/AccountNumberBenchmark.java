@@ -0,0 +1,56 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import service.AccountNumberAllocator;
+import util.AccountNumbers;
+
+/** New account numbers from the block allocator, and the check-digit test run on every lookup. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountNumberBenchmark {
+
+    /**
+     * Numbers reserved per database round trip (1 = a round trip for every account). Read
+     * when the allocator is loaded, so each value needs its own fork.
+     */
+    @State(Scope.Benchmark)
+    public static class Allocator {
+        @Param({"1", "100"})
+        public int numberBlockSize;
+
+        AccountNumberAllocator allocator;
+
+        @Setup(Level.Trial)
+        public void setUp(BankState bank) {
+            System.setProperty("banking.accounts.numberBlockSize", String.valueOf(numberBlockSize));
+            allocator = AccountNumberAllocator.getInstance();
+        }
+    }
+
+    @Benchmark
+    public String nextAccountNumber(Allocator allocator) {
+        return allocator.allocator.next("SAVINGS");
+    }
+
+    @Benchmark
+    public boolean checkAccountNumber(BankState bank) {
+        return AccountNumbers.isPlausible(bank.randomAccountNumber());
+    }
+}
@@ -0,0 +1,39 @@
+package benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Seeded database shared by all benchmark threads; the dataset size is a JMH parameter. */
+@State(Scope.Benchmark)
+public class BankState {
+    /** Number of customers (each with two accounts). */
+    @Param({"1000", "10000"})
+    public int customers;
+
+    // Built once so picking an account costs nothing next to the call being measured
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.configure();
+        BenchmarkDatabase.prepare(customers);
+        accountNumbers = new String[customers * 2];
+        for (int i = 1; i <= customers; i++) {
+            accountNumbers[2 * (i - 1)] = BenchmarkDatabase.savingsNumber(i);
+            accountNumbers[2 * (i - 1) + 1] = BenchmarkDatabase.currentNumber(i);
+        }
+    }
+
+    int randomCustomer() {
+        return 1 + ThreadLocalRandom.current().nextInt(customers);
+    }
+
+    String randomAccountNumber() {
+        return accountNumbers[ThreadLocalRandom.current().nextInt(accountNumbers.length)];
+    }
+}
@@ -0,0 +1,270 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import dao.Repositories;
+import model.Account;
+import model.Customer;
+import model.Money;
+import util.AccountNumbers;
+import util.AppConfig;
+import util.DatabaseConnection;
+import util.SchemaMigrator;
+
+/**
+ * Database for the benchmarks, set up once per forked JVM.
+ *
+ * Unless -Dbanking.db.url is given, this is an in-memory H2 database in MySQL mode built
+ * from database/Database.sql and the migrations, so a run needs no server and every fork
+ * starts from the same state. Pointing banking.db.url at a scratch MySQL schema measures
+ * the real driver and server instead; the seeded rows are deleted and re-inserted there,
+ * so never point it at a database that matters.
+ *
+ * With -Dbanking.storage=memory there is no database: the same data is loaded into the
+ * in-memory repositories, and the benchmarks measure the engine without JDBC.
+ * -Dbanking.storage=writebehind seeds the database as usual and posts through the
+ * write-behind ledger, so postings are measured up to the banking.ledger.maxPendingRows limit,
+ * each one synced to a posting journal in a fresh temporary directory unless
+ * -Dbanking.journal.dir says otherwise (a journal left by an earlier run would be replayed).
+ *
+ * Each customer gets a SAVINGS and a CURRENT account with generated numbers and a
+ * 1000.00 balance.
+ */
+final class BenchmarkDatabase {
+    static final String H2_URL = "jdbc:h2:mem:banking_bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int INSERT_BATCH = 1000;
+
+    private static boolean schemaReady = false;
+    private static int seededCustomers = -1;
+
+    private BenchmarkDatabase() {}
+
+    /**
+     * Points the application at the benchmark database. Must run before any class that reads
+     * its settings at load time (DatabaseConnection, the DAOs) is touched.
+     */
+    static void configure() {
+        if (System.getProperty("banking.db.url") == null) {
+            System.setProperty("banking.db.url", H2_URL);
+            System.setProperty("banking.db.username", "sa");
+            System.setProperty("banking.db.password", "");
+        }
+        if (System.getProperty("banking.journal.dir") == null) {
+            try {
+                System.setProperty("banking.journal.dir", Files.createTempDirectory("banking-bench-journal").toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        // The DAOs log every call to the console, which would dominate the measurements
+        if (AppConfig.getBoolean("banking.bench.quiet", true)) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+    }
+
+    /** Creates the schema if needed and makes sure exactly the requested number of customers exist. */
+    static synchronized void prepare(int customers) throws IOException, SQLException {
+        if (Repositories.isInMemory()) {
+            if (seededCustomers == -1) {
+                seedInMemory(customers);
+                seededCustomers = customers;
+            } else if (seededCustomers != customers) {
+                // The repositories cannot be emptied; JMH forks a fresh JVM per parameter set anyway
+                throw new IllegalStateException("In-memory data is already seeded with " + seededCustomers + " customers");
+            }
+            return;
+        }
+        if (!schemaReady) {
+            if (H2_URL.equals(System.getProperty("banking.db.url"))) {
+                createSchema();
+            }
+            if (!SchemaMigrator.migrate(projectDir().resolve("database/migrations"))) {
+                throw new IllegalStateException("Migrations failed, see the console");
+            }
+            schemaReady = true;
+        }
+        if (seededCustomers != customers) {
+            seed(customers);
+            seededCustomers = customers;
+        }
+    }
+
+    static String savingsNumber(int customer) {
+        return AccountNumbers.format("SAV", customer);
+    }
+
+    static String currentNumber(int customer) {
+        return AccountNumbers.format("CUR", customer);
+    }
+
+    // Run from the project root or from benchmarks/
+    private static Path projectDir() {
+        Path dir = Paths.get(AppConfig.getString("banking.bench.projectDir", ".")).toAbsolutePath().normalize();
+        if (!Files.isDirectory(dir.resolve("database")) && dir.getParent() != null &&
+            Files.isDirectory(dir.getParent().resolve("database"))) {
+            dir = dir.getParent();
+        }
+        return dir;
+    }
+
+    private static void createSchema() throws IOException, SQLException {
+        String script = new String(Files.readAllBytes(projectDir().resolve("database/Database.sql")), StandardCharsets.UTF_8);
+        try (Connection conn = connection();
+             Statement stmt = conn.createStatement()) {
+            for (String sql : splitStatements(script)) {
+                // The script creates and selects its own database; H2 is already connected to one
+                String upper = sql.toUpperCase();
+                if (upper.startsWith("CREATE DATABASE") || upper.startsWith("USE ")) {
+                    continue;
+                }
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static void seedInMemory(int customers) {
+        long start = System.currentTimeMillis();
+        Money balance = Money.parse("1000.00");
+        for (int i = 1; i <= customers; i++) {
+            Customer customer = new Customer("First" + i, "Last" + (i % 997), "customer" + i + "@bench.example",
+                                             String.format("555%07d", i), i + " Benchmark Street");
+            if (!Repositories.customers().addCustomer(customer) || customer.getCustomerId() != i) {
+                throw new IllegalStateException("Could not seed customer " + i);
+            }
+            for (String number : new String[] {savingsNumber(i), currentNumber(i)}) {
+                Account account = new Account(i, number, number.startsWith("SAV") ? "SAVINGS" : "CURRENT");
+                account.setBalance(balance);
+                if (!Repositories.accounts().createAccount(account)) {
+                    throw new IllegalStateException("Could not seed account " + number);
+                }
+            }
+        }
+        // Numbers handed out from now on must not collide with the seeded ones
+        Repositories.accountNumberSequence().reserveBlock("SAV", customers);
+        Repositories.accountNumberSequence().reserveBlock("CUR", customers);
+        System.err.println("Seeded " + customers + " customers / " + (customers * 2) + " accounts in memory in " +
+                           (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static Connection connection() throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("No database connection for " + System.getProperty("banking.db.url"));
+        }
+        return conn;
+    }
+
+    private static void seed(int customers) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection conn = connection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("DELETE FROM account_balance_snapshots");
+                    stmt.executeUpdate("DELETE FROM transactions");
+                    stmt.executeUpdate("DELETE FROM accounts");
+                    stmt.executeUpdate("DELETE FROM customers");
+                    stmt.executeUpdate("DELETE FROM daily_transaction_summary");
+                    stmt.executeUpdate("DELETE FROM account_type_summary");
+                }
+
+                // Explicit ids so accounts can refer to their customer without reading keys back
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO customers (customer_id, first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?, ?)")) {
+                    for (int i = 1; i <= customers; i++) {
+                        pstmt.setInt(1, i);
+                        pstmt.setString(2, "First" + i);
+                        pstmt.setString(3, "Last" + (i % 997));
+                        pstmt.setString(4, "customer" + i + "@bench.example");
+                        pstmt.setString(5, String.format("555%07d", i));
+                        pstmt.setString(6, i + " Benchmark Street");
+                        pstmt.addBatch();
+                        if (i % INSERT_BATCH == 0) pstmt.executeBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO accounts (customer_id, account_number, account_type, balance, status) VALUES (?, ?, ?, ?, 'ACTIVE')")) {
+                    BigDecimal balance = new BigDecimal("1000.00");
+                    for (int i = 1; i <= customers; i++) {
+                        pstmt.setInt(1, i);
+                        pstmt.setString(2, savingsNumber(i));
+                        pstmt.setString(3, "SAVINGS");
+                        pstmt.setBigDecimal(4, balance);
+                        pstmt.addBatch();
+                        pstmt.setInt(1, i);
+                        pstmt.setString(2, currentNumber(i));
+                        pstmt.setString(3, "CURRENT");
+                        pstmt.setBigDecimal(4, balance);
+                        pstmt.addBatch();
+                        if (i % INSERT_BATCH == 0) pstmt.executeBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+
+                // Numbers handed out from now on must not collide with the seeded ones
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE account_number_sequences SET next_value = ? WHERE prefix IN ('SAV', 'CUR')")) {
+                    pstmt.setLong(1, customers + 1L);
+                    pstmt.executeUpdate();
+                }
+
+                // Keep the report summaries consistent with the seeded accounts
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO account_type_summary (account_type, status, slot, account_count, total_balance) VALUES (?, 'ACTIVE', 0, ?, ?)")) {
+                    for (String type : new String[] {"SAVINGS", "CURRENT"}) {
+                        pstmt.setString(1, type);
+                        pstmt.setLong(2, customers);
+                        pstmt.setBigDecimal(3, new BigDecimal("1000.00").multiply(BigDecimal.valueOf(customers)));
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        System.err.println("Seeded " + customers + " customers / " + (customers * 2) + " accounts in " +
+                           (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import util.AppConfig;
+
+/**
+ * Runs the benchmarks once per thread count and writes all results to one JMH JSON file,
+ * so two builds can be compared with any JMH result viewer or a diff of the scores.
+ *
+ *   java [-D...] -jar benchmarks/target/benchmarks.jar [regex ...]
+ *
+ *   -Dbanking.bench.threads=1,4,16        thread counts to run every benchmark with
+ *   -Dbanking.bench.customers=1000,10000  dataset sizes (customers, two accounts each)
+ *   -Dbanking.bench.forks=1  -Dbanking.bench.warmupIterations=3  -Dbanking.bench.iterations=5
+ *   -Dbanking.bench.result=jmh-result.json
+ *
+ * The regexes select benchmarks as with JMH's own launcher, e.g. "PostingBenchmark" or
+ * "getAccount.*". Other -D options (pool size, banking.db.url, ...) are passed to the forks.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String[] threadCounts = AppConfig.getString("banking.bench.threads", "1,4,16").split(",");
+        String[] customers = AppConfig.getString("banking.bench.customers", "1000,10000").split(",");
+        String resultFile = AppConfig.getString("banking.bench.result", "jmh-result.json");
+
+        List<RunResult> results = new ArrayList<>();
+        for (String threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                .threads(Integer.parseInt(threads.trim()))
+                .forks(AppConfig.getInt("banking.bench.forks", 1))
+                .warmupIterations(AppConfig.getInt("banking.bench.warmupIterations", 3))
+                .measurementIterations(AppConfig.getInt("banking.bench.iterations", 5))
+                .param("customers", trim(customers))
+                .shouldFailOnError(true);
+            if (args.length == 0) {
+                options.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+            }
+            for (String include : args) {
+                options.include(include);
+            }
+            System.out.println("Running with " + threads.trim() + " thread(s)");
+            Collection<RunResult> run = new Runner(options.build()).run();
+            results.addAll(run);
+        }
+
+        // One file for every thread count; each entry records its own "threads" and "params"
+        try (PrintStream out = new PrintStream(new FileOutputStream(resultFile), true, "UTF-8")) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("Wrote " + results.size() + " results to " + resultFile);
+    }
+
+    private static String[] trim(String[] values) {
+        String[] trimmed = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            trimmed[i] = values[i].trim();
+        }
+        return trimmed;
+    }
+}
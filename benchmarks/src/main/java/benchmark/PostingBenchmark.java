@@ -0,0 +1,70 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.AccountRepository;
+import dao.Repositories;
+import model.BulkPostingResult;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+
+/**
+ * Deposits to random accounts: one at a time through AccountRepository.post (the teller screen
+ * and the HTTP service) and in batches through postAll (bulk files). Every posting
+ * commits, so the ledger grows for the length of the run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostingBenchmark {
+    private static final Money AMOUNT = Money.parse("1.00");
+
+    @State(Scope.Benchmark)
+    public static class Dao {
+        AccountRepository accountDAO;
+
+        @Setup(Level.Trial)
+        public void setUp(BankState bank) {
+            accountDAO = Repositories.accounts();
+        }
+    }
+
+    /** Postings per postAll call; the reported time is per call, not per posting. */
+    @State(Scope.Benchmark)
+    public static class Batch {
+        @Param({"10", "100"})
+        public int batchSize;
+    }
+
+    @Benchmark
+    public PostingResult postSingle(BankState bank, Dao dao) {
+        return dao.accountDAO.post(new Posting(bank.randomAccountNumber(), "DEPOSIT", AMOUNT, "benchmark"));
+    }
+
+    @Benchmark
+    public BulkPostingResult postBatch(BankState bank, Dao dao, Batch batch) {
+        List<Posting> postings = new ArrayList<>(batch.batchSize);
+        for (int i = 0; i < batch.batchSize; i++) {
+            postings.add(new Posting(bank.randomAccountNumber(), "DEPOSIT", AMOUNT, "benchmark batch"));
+        }
+        return dao.accountDAO.postAll(postings, batch.batchSize, batch.batchSize);
+    }
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.AccountRepository;
+import dao.Repositories;
+import model.Money;
+import model.TransferResult;
+
+/**
+ * Transfers per millisecond, to compare across banking.bench.threads.
+ *
+ * transferDisjoint gives every thread its own customer and moves money back and forth
+ * between that customer's two accounts, so threads never wait on each other's row locks:
+ * throughput should grow with the thread count until the pool or the database saturates.
+ * transferRandom picks both accounts at random, in either direction, so opposite transfers
+ * on the same pair do happen; it shows what the lock ordering and retries cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+    private static final Money AMOUNT = Money.parse("1.00");
+
+    @State(Scope.Benchmark)
+    public static class Dao {
+        AccountRepository accountDAO;
+        final AtomicInteger nextCustomer = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp(BankState bank) {
+            accountDAO = Repositories.accounts();
+        }
+    }
+
+    /** One customer's two accounts per benchmark thread. */
+    @State(Scope.Thread)
+    public static class Pair {
+        String savings;
+        String current;
+        boolean forward;
+
+        @Setup(Level.Trial)
+        public void setUp(BankState bank, Dao dao) {
+            int customer = dao.nextCustomer.incrementAndGet();
+            if (customer > bank.customers) {
+                throw new IllegalStateException("More threads than customers to give them");
+            }
+            savings = BenchmarkDatabase.savingsNumber(customer);
+            current = BenchmarkDatabase.currentNumber(customer);
+        }
+    }
+
+    @Benchmark
+    public TransferResult transferDisjoint(Pair pair, Dao dao) {
+        // Alternating directions keeps both balances where they started
+        pair.forward = !pair.forward;
+        return pair.forward
+            ? dao.accountDAO.transfer(pair.savings, pair.current, AMOUNT, "benchmark")
+            : dao.accountDAO.transfer(pair.current, pair.savings, AMOUNT, "benchmark");
+    }
+
+    @Benchmark
+    public TransferResult transferRandom(BankState bank, Dao dao) {
+        String from = bank.randomAccountNumber();
+        String to = bank.randomAccountNumber();
+        while (to.equals(from)) {
+            to = bank.randomAccountNumber();
+        }
+        return ThreadLocalRandom.current().nextBoolean()
+            ? dao.accountDAO.transfer(from, to, AMOUNT, "benchmark")
+            : dao.accountDAO.transfer(to, from, AMOUNT, "benchmark");
+    }
+}
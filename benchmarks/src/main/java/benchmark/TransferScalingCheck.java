@@ -0,0 +1,224 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import dao.AccountRepository;
+import dao.Repositories;
+import model.Account;
+import model.Money;
+import model.TransferResult;
+import util.AppConfig;
+
+/**
+ * Pass/fail check of AccountDAO.transfer against a real MySQL schema: that transfers between
+ * unrelated accounts scale with the thread count, and that contended transfers neither
+ * deadlock for good nor lose money.
+ *
+ * Scaling: each thread moves money back and forth between its own customer's two accounts,
+ * as in TransferBenchmark.transferDisjoint, for a fixed time per thread count. Throughput has
+ * to rise from one thread count to the next; the threads spend most of their time waiting on
+ * the server, so this is required whatever the client's core count.
+ *
+ * Contention: the same number of threads as the largest count, each moving money back and
+ * forth between its customer's savings account and the next customer's, so every account is
+ * locked from both sides at once. Without the ordered FOR UPDATE locking and the deadlock
+ * retry some of these transfers would fail.
+ *
+ * Any transfer that does not succeed fails the check, and so does any account that does not
+ * end where it was seeded (every thread finishes on a return transfer).
+ *
+ *   java -Dbanking.db.url=jdbc:mysql://.../scratch -Dbanking.db.username=... -Dbanking.db.password=...
+ *        -cp benchmarks/target/benchmarks.jar benchmark.TransferScalingCheck
+ *
+ *   -Dbanking.bench.threads=1,4,16   thread counts, ascending
+ *   -Dbanking.bench.seconds=3        measured time per thread count (after one second of warmup)
+ *
+ * The schema is seeded as by the benchmarks, so never point it at a database that matters.
+ * It refuses to run on the in-memory or write-behind storage, which do not use AccountDAO's
+ * transfer, and on the embedded H2 database, which hands out duplicate AUTO_INCREMENT ids
+ * under many concurrent inserters. Exits with 1 if any check fails.
+ */
+public class TransferScalingCheck {
+    private static final Money AMOUNT = Money.parse("1.00");
+    private static final Money SEEDED = Money.parse("1000.00");
+
+    // The two accounts a thread moves money between
+    private interface Pair {
+        String[] of(int thread, int threads);
+    }
+
+    private static final Pair OWN_ACCOUNTS = (thread, threads) -> new String[] {
+        BenchmarkDatabase.savingsNumber(thread + 1), BenchmarkDatabase.currentNumber(thread + 1)};
+    private static final Pair NEXT_CUSTOMER = (thread, threads) -> new String[] {
+        BenchmarkDatabase.savingsNumber(thread + 1), BenchmarkDatabase.savingsNumber((thread + 1) % threads + 1)};
+
+    public static void main(String[] args) throws Exception {
+        String refused = refusal();
+        if (refused != null) {
+            System.err.println("TransferScalingCheck needs a scratch MySQL schema: " + refused);
+            System.exit(1);
+        }
+        // configure() silences System.out for the DAOs' logging
+        PrintStream out = System.out;
+        BenchmarkDatabase.configure();
+
+        int[] threadCounts = parseThreads(AppConfig.getString("banking.bench.threads", "1,4,16"));
+        long seconds = Math.max(1, AppConfig.getLong("banking.bench.seconds", 3));
+        int customers = threadCounts[threadCounts.length - 1];
+        BenchmarkDatabase.prepare(customers);
+        AccountRepository accounts = Repositories.accounts();
+
+        out.println("Transfer scaling through " + accounts.getClass().getSimpleName() + " on " +
+                    System.getProperty("banking.db.url") + ", " + seconds + " s per thread count");
+        boolean ok = true;
+        double[] throughput = new double[threadCounts.length];
+        for (int i = 0; i < threadCounts.length; i++) {
+            run(accounts, threadCounts[i], TimeUnit.SECONDS.toNanos(1), OWN_ACCOUNTS);
+            Run measured = run(accounts, threadCounts[i], TimeUnit.SECONDS.toNanos(seconds), OWN_ACCOUNTS);
+            if (measured.failure != null) {
+                out.println("FAIL " + threadCounts[i] + " threads: " + measured.failure);
+                ok = false;
+                continue;
+            }
+            throughput[i] = measured.transfers / (seconds * 1000.0);
+            out.printf("     %2d threads: %,.2f transfers/ms%n", threadCounts[i], throughput[i]);
+        }
+
+        for (int i = 1; i < threadCounts.length; i++) {
+            String step = threadCounts[i - 1] + " -> " + threadCounts[i] + " threads";
+            if (throughput[i] > throughput[i - 1]) {
+                out.printf("OK   %s: %.2fx%n", step, throughput[i] / throughput[i - 1]);
+            } else {
+                out.printf("FAIL %s: throughput fell or stayed flat (%.2fx)%n", step,
+                           throughput[i - 1] > 0 ? throughput[i] / throughput[i - 1] : 0.0);
+                ok = false;
+            }
+        }
+
+        if (customers >= 2) {
+            Run contended = run(accounts, customers, TimeUnit.SECONDS.toNanos(seconds), NEXT_CUSTOMER);
+            if (contended.failure != null) {
+                out.println("FAIL contended transfers: " + contended.failure);
+                ok = false;
+            } else {
+                out.println("OK   contended transfers: " + contended.transfers + " on " + customers +
+                            " threads, " + contended.retries + " retried after a deadlock or lock timeout");
+            }
+        }
+
+        // Every thread ends on a return transfer, so each account holds what was seeded
+        long expected = 0;
+        long actual = 0;
+        for (int customer = 1; customer <= customers; customer++) {
+            for (String number : new String[] {BenchmarkDatabase.savingsNumber(customer),
+                                               BenchmarkDatabase.currentNumber(customer)}) {
+                Account account = accounts.getAccountByNumber(number);
+                long balance = account == null ? 0 : account.getBalance().getCents();
+                expected += SEEDED.getCents();
+                actual += balance;
+                if (balance != SEEDED.getCents()) {
+                    out.println("FAIL " + number + " holds " + Money.ofCents(balance) + " instead of " + SEEDED);
+                    ok = false;
+                }
+            }
+        }
+        if (actual == expected) {
+            out.println("OK   balances conserved: " + Money.ofCents(actual) + " across " + (customers * 2) + " accounts");
+        } else {
+            out.println("FAIL balances not conserved: " + Money.ofCents(actual) + " instead of " + Money.ofCents(expected));
+            ok = false;
+        }
+
+        Repositories.shutdown();
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Why this configuration would not exercise AccountDAO.transfer on MySQL, or null
+    private static String refusal() {
+        String url = System.getProperty("banking.db.url");
+        if (url == null) {
+            return "set -Dbanking.db.url (the embedded H2 database cannot take concurrent inserts)";
+        }
+        if (url.startsWith("jdbc:h2:")) {
+            return "H2 hands out duplicate AUTO_INCREMENT ids under concurrent inserts";
+        }
+        String storage = AppConfig.getString("banking.storage", "jdbc").trim().toLowerCase();
+        if (!storage.equals("jdbc")) {
+            return "banking.storage=" + storage + " does not transfer through AccountDAO";
+        }
+        return null;
+    }
+
+    private static class Run {
+        final long transfers;
+        final long retries;
+        final TransferResult failure;
+
+        Run(long transfers, long retries, TransferResult failure) {
+            this.transfers = transfers;
+            this.retries = retries;
+            this.failure = failure;
+        }
+    }
+
+    // Round trips between each thread's pair for the given time; stops at the first transfer that does not succeed
+    private static Run run(AccountRepository accounts, int threads, long nanos, Pair pair) throws InterruptedException {
+        LongAdder transfers = new LongAdder();
+        LongAdder retries = new LongAdder();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<TransferResult> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            String[] numbers = pair.of(t, threads);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // Checked after the return leg only, so both balances end where they started
+                while (!stop.get() && failure.get() == null) {
+                    TransferResult there = accounts.transfer(numbers[0], numbers[1], AMOUNT, "scaling check");
+                    TransferResult back = there.isSuccess()
+                        ? accounts.transfer(numbers[1], numbers[0], AMOUNT, "scaling check")
+                        : there;
+                    if (!back.isSuccess()) {
+                        failure.compareAndSet(null, back);
+                        return;
+                    }
+                    transfers.add(2);
+                    retries.add(there.getAttempts() - 1 + back.getAttempts() - 1);
+                }
+            }, "transfer-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        TimeUnit.NANOSECONDS.sleep(nanos);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new Run(transfers.sum(), retries.sum(), failure.get());
+    }
+
+    private static int[] parseThreads(String value) {
+        String[] parts = value.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+            if (counts[i] < 1 || (i > 0 && counts[i] <= counts[i - 1])) {
+                throw new IllegalArgumentException("banking.bench.threads must be ascending positive counts: " + value);
+            }
+        }
+        return counts;
+    }
+}
@@ -45,6 +45,9 @@ CREATE TABLE users (
     email VARCHAR(100)
 );
 
+-- Later schema changes (indexes etc.) live in database/migrations and are applied at
+-- startup by util.SchemaMigrator, which records them in a schema_version table.
+
 -- Insert sample data
 INSERT INTO users (username, password, role, email) VALUES 
 ('admin', 'admin123', 'ADMIN', 'admin@bank.com'),
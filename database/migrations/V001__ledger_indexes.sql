@@ -0,0 +1,10 @@
+-- Ledger reads always name one account and a time range, and page in
+-- (transaction_date, transaction_id) order: statements (TransactionDAO.getTransactionsPage),
+-- point-in-time balances and the end-of-day snapshot join (BalanceSnapshotDAO).
+-- With this index each of them is a single range read instead of a scan of the
+-- account's whole history. It also serves the account_id foreign key.
+CREATE INDEX idx_transactions_account_date ON transactions (account_id, transaction_date, transaction_id);
+
+-- The ledger by date, for ReportDAO.rebuildDailySummary. It carries every column that
+-- query reads from transactions, so a date range is answered from the index alone.
+CREATE INDEX idx_transactions_date ON transactions (transaction_date, account_id, transaction_type, amount);
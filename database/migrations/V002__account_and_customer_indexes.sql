@@ -0,0 +1,10 @@
+-- Reports tab "Top Accounts by Balance" (ORDER BY balance DESC LIMIT n) and the accounts
+-- table sorted by balance: read the first n index entries instead of sorting every account.
+CREATE INDEX idx_accounts_balance ON accounts (balance);
+
+-- Accounts table filtered by status and/or type (AccountDAO.countAccounts, getAccountsSorted).
+CREATE INDEX idx_accounts_status_type ON accounts (status, account_type);
+
+-- Customers table sorted by last name (CustomerDAO.getCustomersPage); InnoDB appends the
+-- primary key, which matches the customer_id tie-breaker in the ORDER BY.
+CREATE INDEX idx_customers_last_name ON customers (last_name);
@@ -0,0 +1,9 @@
+-- Next unreserved account sequence number per prefix (see service.AccountNumberAllocator).
+-- Each application instance reserves a block of numbers at a time by advancing next_value,
+-- then hands them out from memory; unused numbers of a block are simply skipped.
+CREATE TABLE account_number_sequences (
+    prefix VARCHAR(4) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+INSERT INTO account_number_sequences (prefix, next_value) VALUES ('SAV', 1), ('CUR', 1), ('FD', 1);
@@ -0,0 +1,4 @@
+-- Highest posting journal record applied to each account (see dao.PostingJournal).
+-- The write-behind ledger sets it with every balance it writes, and journal replay after a
+-- crash skips records at or below it, so a record is never applied twice.
+ALTER TABLE accounts ADD COLUMN journal_seq BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,25 @@
+-- Report summaries, kept up to date by every posting (see dao.SummaryUpdater).
+-- Each key is spread over several "slot" rows so concurrent postings do not all wait on
+-- one counter row; reports SUM over the slots.
+--
+-- On a database that already has accounts and transactions these start empty: backfill them
+-- once with java -cp "bin:lib/*" service.SummaryRebuildJob, before the Reports tab is used.
+-- IF NOT EXISTS: databases created from an early Database.sql already have both tables.
+CREATE TABLE IF NOT EXISTS daily_transaction_summary (
+    summary_date DATE NOT NULL,
+    account_type ENUM('SAVINGS', 'CURRENT', 'FIXED_DEPOSIT') NOT NULL,
+    transaction_type ENUM('DEPOSIT', 'WITHDRAWAL', 'TRANSFER') NOT NULL,
+    slot TINYINT NOT NULL DEFAULT 0,
+    transaction_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(18,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (summary_date, account_type, transaction_type, slot)
+);
+
+CREATE TABLE IF NOT EXISTS account_type_summary (
+    account_type ENUM('SAVINGS', 'CURRENT', 'FIXED_DEPOSIT') NOT NULL,
+    status ENUM('ACTIVE', 'INACTIVE', 'SUSPENDED') NOT NULL,
+    slot TINYINT NOT NULL DEFAULT 0,
+    account_count BIGINT NOT NULL DEFAULT 0,
+    total_balance DECIMAL(18,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (account_type, status, slot)
+);
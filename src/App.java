@@ -1,5 +1,10 @@
 public class App {
+    // "server" starts the headless HTTP/JSON service; anything else opens the desktop application
     public static void main(String[] args) throws Exception {
-        System.out.println("Hello, World!");
+        if (args.length > 0 && "server".equals(args[0])) {
+            server.BankingHttpServer.main(args);
+        } else {
+            gui.LoginFrame.main(args);
+        }
     }
 }
@@ -0,0 +1,143 @@
+package dao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.Account;
+
+/**
+ * Bounded read-through cache of accounts by account number, shared by every AccountDAO.
+ *
+ * Entries expire after a TTL so balance changes made outside this process are picked up
+ * eventually; changes made through AccountDAO invalidate the entry immediately.
+ * Account numbers that do not exist are remembered for a shorter time (negative cache),
+ * which is what answers verifyAccountExists without a query.
+ */
+class AccountCache {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    // Bumped on every write to a stripe of account numbers, so a DB read that raced
+    // with a posting cannot put its stale balance back into the cache
+    private final long[] writeVersions = new long[64];
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    AccountCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /** Result of a cache lookup: a hit (possibly "known not to exist") or a miss. */
+    static final class Lookup {
+        static final Lookup MISS = new Lookup(false, null);
+        static final Lookup NOT_FOUND = new Lookup(true, null);
+
+        final boolean hit;
+        final Account account; // a private copy; null on a negative hit
+
+        private Lookup(boolean hit, Account account) {
+            this.hit = hit;
+            this.account = account;
+        }
+    }
+
+    Lookup get(String accountNumber) {
+        if (maxSize <= 0 || accountNumber == null) {
+            misses.incrementAndGet();
+            return Lookup.MISS;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(accountNumber);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return Lookup.MISS;
+            }
+            if (System.currentTimeMillis() > entry.expiresAt) {
+                entries.remove(accountNumber);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return Lookup.MISS;
+            }
+            if (entry.account == null) {
+                negativeHits.incrementAndGet();
+                return Lookup.NOT_FOUND;
+            }
+            hits.incrementAndGet();
+            // Callers may modify what they get back, so never hand out the cached instance
+            return new Lookup(true, new Account(entry.account));
+        }
+    }
+
+    /** Call before reading from the DB; pass the value to put/putNotFound afterwards. */
+    synchronized long loadStamp(String accountNumber) {
+        return writeVersions[stripe(accountNumber)];
+    }
+
+    void put(Account account, long loadStamp) {
+        if (maxSize <= 0 || account == null || account.getAccountNumber() == null) return;
+        store(account.getAccountNumber(), new Account(account), ttlMillis, loadStamp);
+    }
+
+    void putNotFound(String accountNumber, long loadStamp) {
+        if (maxSize <= 0 || accountNumber == null) return;
+        store(accountNumber, null, negativeTtlMillis, loadStamp);
+    }
+
+    // Postings invalidate rather than patch the balance: two commits can reach here in
+    // either order, and only the database knows which balance is the latest
+    synchronized void invalidate(String accountNumber) {
+        writeVersions[stripe(accountNumber)]++;
+        if (entries.remove(accountNumber) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    synchronized void clear() {
+        for (int i = 0; i < writeVersions.length; i++) {
+            writeVersions[i]++;
+        }
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    private synchronized void store(String accountNumber, Account account, long ttl, long loadStamp) {
+        if (writeVersions[stripe(accountNumber)] != loadStamp) {
+            return; // Written while we were reading; the value we read may be stale
+        }
+        Entry entry = new Entry();
+        entry.account = account;
+        entry.expiresAt = System.currentTimeMillis() + ttl;
+        entries.put(accountNumber, entry);
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private int stripe(String accountNumber) {
+        return accountNumber == null ? 0 : (accountNumber.hashCode() & 0x7fffffff) % writeVersions.length;
+    }
+
+    synchronized CacheStats getStats() {
+        return new CacheStats(entries.size(), hits.get(), negativeHits.get(), misses.get(),
+                              evictions.get(), expirations.get(), invalidations.get());
+    }
+
+    private static class Entry {
+        Account account; // null = known not to exist
+        long expiresAt;
+    }
+}
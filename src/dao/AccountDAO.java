@@ -2,12 +2,54 @@
 package dao;
 
 import model.Account;
+import model.BulkPostingResult;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.TransferResult;
+import util.AccountNumbers;
+import util.AppConfig;
 import util.DatabaseConnection;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class AccountDAO {
+public class AccountDAO implements AccountRepository {
+    // Defaults for postAll(); override with -Dbanking.bulk.batchSize / -Dbanking.bulk.commitInterval
+    private static final int BULK_BATCH_SIZE = AppConfig.getInt("banking.bulk.batchSize", 500);
+    private static final int BULK_COMMIT_INTERVAL = AppConfig.getInt("banking.bulk.commitInterval", 5000);
+    
+    // Transfers that deadlock or time out waiting for a lock are retried (-Dbanking.transfer.*)
+    private static final int TRANSFER_MAX_ATTEMPTS = Math.max(1, AppConfig.getInt("banking.transfer.maxAttempts", 5));
+    private static final int POSTING_MAX_ATTEMPTS = Math.max(1, AppConfig.getInt("banking.posting.maxAttempts", 5));
+    private static final long TRANSFER_RETRY_BACKOFF_MS = Math.max(1, AppConfig.getLong("banking.transfer.retryBackoffMs", 5));
+    
+    // Shared by all AccountDAO instances (-Dbanking.cache.accounts.* to tune, maxSize=0 disables)
+    private static final AccountCache ACCOUNT_CACHE = new AccountCache(
+        AppConfig.getInt("banking.cache.accounts.maxSize", 10000),
+        AppConfig.getLong("banking.cache.accounts.ttlMs", 30000),
+        AppConfig.getLong("banking.cache.accounts.negativeTtlMs", 5000));
+    
+    // Sortable columns of the accounts listing, mapped to their SQL expression
+    private static final Map<String, String> ACCOUNT_SORT_COLUMNS = new HashMap<>();
+    static {
+        ACCOUNT_SORT_COLUMNS.put("account_id", "a.account_id");
+        ACCOUNT_SORT_COLUMNS.put("account_number", "a.account_number");
+        ACCOUNT_SORT_COLUMNS.put("customer_id", "a.customer_id");
+        ACCOUNT_SORT_COLUMNS.put("customer_name", "c.first_name");
+        ACCOUNT_SORT_COLUMNS.put("account_type", "a.account_type");
+        ACCOUNT_SORT_COLUMNS.put("balance", "a.balance");
+        ACCOUNT_SORT_COLUMNS.put("status", "a.status");
+        ACCOUNT_SORT_COLUMNS.put("date_created", "a.date_created");
+    }
     
     public boolean createAccount(Account account) {
         Connection conn = null;
@@ -17,12 +59,13 @@ public class AccountDAO {
         
         try {
             conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
             pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             
             pstmt.setInt(1, account.getCustomerId());
             pstmt.setString(2, account.getAccountNumber());
             pstmt.setString(3, account.getAccountType());
-            pstmt.setDouble(4, account.getBalance());
+            pstmt.setBigDecimal(4, account.getBalance().toBigDecimal());
             
             int affectedRows = pstmt.executeUpdate();
             
@@ -33,14 +76,24 @@ public class AccountDAO {
                         account.setAccountId(generatedKeys.getInt(1));
                     }
                 }
+                // New accounts start ACTIVE (column default)
+                SummaryUpdater summary = new SummaryUpdater();
+                summary.addBalance(account.getAccountType(), "ACTIVE", 1, account.getBalance().getCents());
+                summary.flush(conn);
+                conn.commit();
+                
+                // Drops a cached "not found" for this number
+                ACCOUNT_CACHE.invalidate(account.getAccountNumber());
                 System.out.println("Account created successfully: " + account.getAccountNumber());
                 return true;
             }
+            conn.rollback();
             return false;
             
         } catch (SQLException e) {
             System.err.println("Error creating account: " + e.getMessage());
             e.printStackTrace();
+            rollbackQuietly(conn);
             return false;
         } finally {
             try {
@@ -53,15 +106,23 @@ public class AccountDAO {
     }
     
     public Account getAccountByNumber(String accountNumber) {
+        // A mistyped allocated number fails its check digit; no need to ask the database
+        if (!AccountNumbers.isPlausible(accountNumber)) {
+            System.out.println("Account number fails its check digit: " + accountNumber);
+            return null;
+        }
+        AccountCache.Lookup cached = ACCOUNT_CACHE.get(accountNumber);
+        if (cached.hit) {
+            return cached.account;
+        }
+        
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         Account account = null;
+        long loadStamp = ACCOUNT_CACHE.loadStamp(accountNumber);
         
-        String sql = "SELECT a.*, c.first_name, c.last_name " +
-                    "FROM accounts a " +
-                    "LEFT JOIN customers c ON a.customer_id = c.customer_id " +
-                    "WHERE a.account_number = ?";
+        String sql = "SELECT * FROM accounts WHERE account_number = ?";
         
         try {
             conn = DatabaseConnection.getConnection();
@@ -70,20 +131,14 @@ public class AccountDAO {
             rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                account = new Account();
-                account.setAccountId(rs.getInt("account_id"));
-                account.setCustomerId(rs.getInt("customer_id"));
-                account.setAccountNumber(rs.getString("account_number"));
-                account.setAccountType(rs.getString("account_type"));
-                account.setBalance(rs.getDouble("balance"));
-                account.setDateCreated(rs.getTimestamp("date_created"));
-                account.setStatus(rs.getString("status"));
+                account = mapAccount(rs);
+                ACCOUNT_CACHE.put(account, loadStamp);
                 
                 // Debug output
                 System.out.println("Found account: " + account.getAccountNumber() + 
-                                 " Balance: " + account.getBalance() + 
-                                 " Customer: " + rs.getString("first_name") + " " + rs.getString("last_name"));
+                                 " Balance: " + account.getBalance());
             } else {
+                ACCOUNT_CACHE.putNotFound(accountNumber, loadStamp);
                 System.out.println("No account found with number: " + accountNumber);
             }
             
@@ -103,19 +158,57 @@ public class AccountDAO {
         return account;
     }
     
-    public boolean updateBalance(String accountNumber, double newBalance) {
+    // Straight from the table, bypassing the account cache; for callers that keep the balance from then on
+    Account loadAccount(String accountNumber) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM accounts WHERE account_number = ?")) {
+            pstmt.setString(1, accountNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapAccount(rs) : null;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading account " + accountNumber + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    public boolean updateBalance(String accountNumber, Money newBalance) {
         Connection conn = null;
         PreparedStatement pstmt = null;
+        ResultSet rs = null;
         
         String sql = "UPDATE accounts SET balance = ? WHERE account_number = ?";
         
         try {
             conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            // The account type summary needs the old balance, so lock the row first
+            pstmt = conn.prepareStatement(
+                "SELECT balance, account_type, status FROM accounts WHERE account_number = ? FOR UPDATE");
+            pstmt.setString(1, accountNumber);
+            rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                conn.rollback();
+                System.out.println("Balance not updated, no account with number: " + accountNumber);
+                return false;
+            }
+            Money oldBalance = Money.of(rs.getBigDecimal("balance"));
+            SummaryUpdater summary = new SummaryUpdater();
+            summary.addBalance(rs.getString("account_type"), rs.getString("status"), 0,
+                               newBalance.getCents() - oldBalance.getCents());
+            rs.close();
+            pstmt.close();
+            
             pstmt = conn.prepareStatement(sql);
-            pstmt.setDouble(1, newBalance);
+            pstmt.setBigDecimal(1, newBalance.toBigDecimal());
             pstmt.setString(2, accountNumber);
             
             int affectedRows = pstmt.executeUpdate();
+            summary.flush(conn);
+            conn.commit();
+            ACCOUNT_CACHE.invalidate(accountNumber);
             System.out.println("Balance updated for account " + accountNumber + 
                              " to " + newBalance + ". Rows affected: " + affectedRows);
             return affectedRows > 0;
@@ -123,9 +216,11 @@ public class AccountDAO {
         } catch (SQLException e) {
             System.err.println("Error updating balance: " + e.getMessage());
             e.printStackTrace();
+            rollbackQuietly(conn);
             return false;
         } finally {
             try {
+                if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
@@ -134,6 +229,620 @@ public class AccountDAO {
         }
     }
     
+    /**
+     * Applies a deposit or withdrawal and writes its ledger row in one DB transaction.
+     * The balance check and the update are a single conditional UPDATE, so concurrent
+     * postings to the same account serialize on the row lock instead of overwriting each other.
+     * The account row is locked before the summary rows, as in every other write path; a
+     * deadlock or lock wait timeout is still possible under load and is retried like a transfer.
+     */
+    public PostingResult post(Posting posting) {
+        if (!isValidPosting(posting)) {
+            return PostingResult.failure(PostingResult.Status.INVALID_REQUEST,
+                posting == null ? null : posting.getAccountNumber(), "Invalid posting request");
+        }
+        
+        for (int attempt = 1; ; attempt++) {
+            Connection conn = null;
+            try {
+                conn = DatabaseConnection.getConnection();
+                conn.setAutoCommit(false);
+                PostingResult result = applyPosting(conn, posting);
+                if (result.isSuccess()) {
+                    conn.commit();
+                    ACCOUNT_CACHE.invalidate(posting.getAccountNumber());
+                    System.out.println("Posted " + posting.getTransactionType() + " of " + posting.getAmount() +
+                                     " to " + posting.getAccountNumber() + ". New balance: " + result.getNewBalance() +
+                                     (attempt > 1 ? " after " + attempt + " attempts" : ""));
+                } else {
+                    conn.rollback();
+                }
+                return result;
+                
+            } catch (SQLException e) {
+                rollbackQuietly(conn);
+                if (isRetryable(e) && attempt < POSTING_MAX_ATTEMPTS) {
+                    System.err.println("Posting to " + posting.getAccountNumber() + " hit " + e.getMessage() +
+                                       ", retrying (attempt " + attempt + ")");
+                    if (backOff(attempt)) {
+                        continue;
+                    }
+                }
+                System.err.println("Error posting transaction: " + e.getMessage());
+                e.printStackTrace();
+                return PostingResult.failure(PostingResult.Status.FAILED, posting.getAccountNumber(), e.getMessage());
+            } finally {
+                try {
+                    if (conn != null) conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    // Runs inside the caller's transaction; commit/rollback is left to the caller
+    PostingResult applyPosting(Connection conn, Posting posting) throws SQLException {
+        String accountNumber = posting.getAccountNumber();
+        BigDecimal amount = posting.getAmount().toBigDecimal();
+        
+        int updated;
+        if (posting.isDeposit()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE accounts SET balance = balance + ? WHERE account_number = ?")) {
+                pstmt.setBigDecimal(1, amount);
+                pstmt.setString(2, accountNumber);
+                updated = pstmt.executeUpdate();
+            }
+        } else {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE accounts SET balance = balance - ? WHERE account_number = ? AND balance >= ?")) {
+                pstmt.setBigDecimal(1, amount);
+                pstmt.setString(2, accountNumber);
+                pstmt.setBigDecimal(3, amount);
+                updated = pstmt.executeUpdate();
+            }
+        }
+        
+        // Either way the row (if any) is now locked by this transaction, so this read is stable
+        int accountId = 0;
+        Money balance = Money.ZERO;
+        String accountType = null;
+        String status = null;
+        boolean found = false;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT account_id, balance, account_type, status FROM accounts WHERE account_number = ?")) {
+            pstmt.setString(1, accountNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    found = true;
+                    accountId = rs.getInt("account_id");
+                    balance = Money.of(rs.getBigDecimal("balance"));
+                    accountType = rs.getString("account_type");
+                    status = rs.getString("status");
+                }
+            }
+        }
+        
+        if (!found) {
+            return PostingResult.failure(PostingResult.Status.ACCOUNT_NOT_FOUND, accountNumber,
+                                         "Account not found: " + accountNumber);
+        }
+        if (updated == 0) {
+            return PostingResult.insufficientFunds(accountNumber, balance);
+        }
+        
+        int transactionId = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO transactions (account_id, transaction_type, amount, description) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, accountId);
+            pstmt.setString(2, posting.getTransactionType());
+            pstmt.setBigDecimal(3, amount);
+            pstmt.setString(4, posting.getDescription());
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    transactionId = keys.getInt(1);
+                }
+            }
+        }
+        
+        // Report summaries move in the same transaction as the balance and the ledger row
+        SummaryUpdater summary = new SummaryUpdater();
+        summary.addTransaction(accountType, posting.getTransactionType(), posting.getAmount().getCents());
+        summary.addBalance(accountType, status, 0, signedCents(posting));
+        summary.flush(conn);
+        
+        Money previousBalance = Money.ofCents(balance.getCents() - signedCents(posting));
+        return PostingResult.success(accountNumber, previousBalance, balance, transactionId);
+    }
+    
+    /**
+     * Moves money between two accounts in one DB transaction: both balance updates and both
+     * TRANSFER ledger legs (the debit leg stored negative, the credit leg positive) commit or
+     * roll back together.
+     *
+     * Both rows are locked with SELECT ... FOR UPDATE in ascending account_id order before
+     * anything is written, so two transfers between the same accounts in opposite directions
+     * queue on the lower id instead of each holding one row and waiting for the other. The
+     * summary rows are written in sorted order for the same reason. Deadlocks and lock wait
+     * timeouts can still come from elsewhere (gap locks, a lock wait under heavy load); the
+     * whole transaction is then rolled back and retried after a short random backoff.
+     */
+    public TransferResult transfer(String fromAccountNumber, String toAccountNumber, Money amount, String description) {
+        if (!AccountNumbers.isPlausible(fromAccountNumber) || !AccountNumbers.isPlausible(toAccountNumber) ||
+            fromAccountNumber.equals(toAccountNumber) || amount == null || !amount.isPositive()) {
+            return TransferResult.failure(PostingResult.Status.INVALID_REQUEST, fromAccountNumber, toAccountNumber,
+                                          amount, "Invalid transfer request", 0);
+        }
+        
+        for (int attempt = 1; ; attempt++) {
+            Connection conn = null;
+            try {
+                conn = DatabaseConnection.getConnection();
+                conn.setAutoCommit(false);
+                TransferResult result = applyTransfer(conn, fromAccountNumber, toAccountNumber, amount, description, attempt);
+                if (result.isSuccess()) {
+                    conn.commit();
+                    ACCOUNT_CACHE.invalidate(fromAccountNumber);
+                    ACCOUNT_CACHE.invalidate(toAccountNumber);
+                    System.out.println("Transferred " + amount + " from " + fromAccountNumber + " to " + toAccountNumber +
+                                     (attempt > 1 ? " after " + attempt + " attempts" : ""));
+                } else {
+                    conn.rollback();
+                }
+                return result;
+                
+            } catch (SQLException e) {
+                rollbackQuietly(conn);
+                if (isRetryable(e) && attempt < TRANSFER_MAX_ATTEMPTS) {
+                    System.err.println("Transfer " + fromAccountNumber + " -> " + toAccountNumber + " hit " +
+                                       e.getMessage() + ", retrying (attempt " + attempt + ")");
+                    if (backOff(attempt)) {
+                        continue;
+                    }
+                }
+                System.err.println("Error transferring funds: " + e.getMessage());
+                e.printStackTrace();
+                return TransferResult.failure(PostingResult.Status.FAILED, fromAccountNumber, toAccountNumber,
+                                              amount, e.getMessage(), attempt);
+            } finally {
+                try {
+                    if (conn != null) conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    // Runs inside the caller's transaction; commit/rollback is left to the caller
+    private TransferResult applyTransfer(Connection conn, String fromAccountNumber, String toAccountNumber,
+                                         Money amount, String description, int attempt) throws SQLException {
+        // Plain read for the ids: a row's account_id never changes, so it is safe to lock by id afterwards
+        int fromId = 0;
+        int toId = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT account_id, account_number FROM accounts WHERE account_number IN (?, ?)")) {
+            pstmt.setString(1, fromAccountNumber);
+            pstmt.setString(2, toAccountNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (fromAccountNumber.equals(rs.getString("account_number"))) {
+                        fromId = rs.getInt("account_id");
+                    } else {
+                        toId = rs.getInt("account_id");
+                    }
+                }
+            }
+        }
+        if (fromId == 0 || toId == 0) {
+            String missing = fromId == 0 ? fromAccountNumber : toAccountNumber;
+            return TransferResult.failure(PostingResult.Status.ACCOUNT_NOT_FOUND, fromAccountNumber, toAccountNumber,
+                                          amount, "Account not found: " + missing, attempt);
+        }
+        
+        // Canonical lock order: lower account_id first, whichever way the money moves
+        AccountState from;
+        AccountState to;
+        if (fromId < toId) {
+            from = lockAccount(conn, fromId);
+            to = lockAccount(conn, toId);
+        } else {
+            to = lockAccount(conn, toId);
+            from = lockAccount(conn, fromId);
+        }
+        
+        long cents = amount.getCents();
+        if (from.runningCents < cents) {
+            return TransferResult.insufficientFunds(fromAccountNumber, toAccountNumber, amount,
+                                                    Money.ofCents(from.runningCents), attempt);
+        }
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE accounts SET balance = balance + ? WHERE account_id = ?")) {
+            pstmt.setBigDecimal(1, amount.negate().toBigDecimal());
+            pstmt.setInt(2, fromId);
+            pstmt.addBatch();
+            pstmt.setBigDecimal(1, amount.toBigDecimal());
+            pstmt.setInt(2, toId);
+            pstmt.addBatch();
+            pstmt.executeBatch();
+        }
+        
+        String details = description == null || description.trim().isEmpty() ? "" : ": " + description.trim();
+        int debitId = insertTransferLeg(conn, fromId, amount.negate(), "Transfer to " + toAccountNumber + details);
+        int creditId = insertTransferLeg(conn, toId, amount, "Transfer from " + fromAccountNumber + details);
+        
+        // Legs are summarized signed, as the summary rebuild sums the stored amounts
+        SummaryUpdater summary = new SummaryUpdater();
+        summary.addTransaction(from.accountType, "TRANSFER", -cents);
+        summary.addTransaction(to.accountType, "TRANSFER", cents);
+        summary.addBalance(from.accountType, from.status, 0, -cents);
+        summary.addBalance(to.accountType, to.status, 0, cents);
+        summary.flush(conn);
+        
+        return TransferResult.success(fromAccountNumber, toAccountNumber, amount,
+                                      Money.ofCents(from.runningCents - cents), Money.ofCents(to.runningCents + cents),
+                                      debitId, creditId, attempt);
+    }
+    
+    private AccountState lockAccount(Connection conn, int accountId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT balance, account_type, status FROM accounts WHERE account_id = ? FOR UPDATE")) {
+            pstmt.setInt(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    // Only possible if the account was deleted between the two reads
+                    throw new SQLException("Account " + accountId + " disappeared during transfer");
+                }
+                AccountState state = new AccountState();
+                state.accountId = accountId;
+                state.runningCents = Money.of(rs.getBigDecimal("balance")).getCents();
+                state.accountType = rs.getString("account_type");
+                state.status = rs.getString("status");
+                return state;
+            }
+        }
+    }
+    
+    private int insertTransferLeg(Connection conn, int accountId, Money signedAmount, String description) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO transactions (account_id, transaction_type, amount, description) VALUES (?, 'TRANSFER', ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, accountId);
+            pstmt.setBigDecimal(2, signedAmount.toBigDecimal());
+            pstmt.setString(3, description);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : 0;
+            }
+        }
+    }
+    
+    // MySQL deadlock (1213) and lock wait timeout (1205), SQLSTATE 40001 from any driver, H2's lock timeout (50200)
+    static boolean isRetryable(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (current instanceof SQLTransactionRollbackException || "40001".equals(current.getSQLState())) {
+                return true;
+            }
+            int code = current.getErrorCode();
+            if (code == 1213 || code == 1205 || code == 50200) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Randomized so two transfers that collided do not collide again; false if interrupted
+    private static boolean backOff(int attempt) {
+        long ceiling = TRANSFER_RETRY_BACKOFF_MS << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    static void rollbackQuietly(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Rollback failed: " + e.getMessage());
+        }
+    }
+    
+    /** Bulk postings with the default batch size and commit interval (see banking.bulk.*). */
+    public BulkPostingResult postAll(Collection<Posting> postings) {
+        return postAll(postings, BULK_BATCH_SIZE, BULK_COMMIT_INTERVAL);
+    }
+    
+    /**
+     * Posts a large set of deposits/withdrawals (payroll, settlement files) using JDBC batches.
+     * Each batch is one batched conditional UPDATE, one balance read-back and one batched ledger
+     * INSERT; the driver's rewriteBatchedStatements turns those into a few network round trips.
+     * Work is committed every commitInterval postings. An item that cannot be applied is reported
+     * in its own result without affecting the others; an SQL error only fails the uncommitted window.
+     *
+     * The window's summary changes are collected and written just before its commit, so the
+     * summary rows are locked last and only briefly, after the account rows as in post() and
+     * transfer(). Writing them per batch held them across the whole window while later batches
+     * locked account rows, the opposite order to a concurrent post(), and the two deadlocked.
+     */
+    public BulkPostingResult postAll(Collection<Posting> postings, int batchSize, int commitInterval) {
+        long start = System.currentTimeMillis();
+        List<Posting> items = new ArrayList<>(postings);
+        PostingResult[] results = new PostingResult[items.size()];
+        batchSize = Math.max(1, batchSize);
+        commitInterval = Math.max(batchSize, commitInterval);
+        
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            failRange(items, results, 0, items.size(), "No database connection");
+            return new BulkPostingResult(Arrays.asList(results), System.currentTimeMillis() - start);
+        }
+        
+        try {
+            conn.setAutoCommit(false);
+            int windowStart = 0; // first posting not yet committed
+            SummaryUpdater summary = new SummaryUpdater();
+            for (int from = 0; from < items.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, items.size());
+                try {
+                    postBatch(conn, items, from, to, results, summary);
+                } catch (SQLException e) {
+                    System.err.println("Bulk posting batch failed, rolling back " + (to - windowStart) +
+                                       " postings: " + e.getMessage());
+                    rollbackQuietly(conn);
+                    failRange(items, results, windowStart, to, e.getMessage());
+                    summary = new SummaryUpdater();
+                    windowStart = to;
+                    continue;
+                }
+                if (to - windowStart >= commitInterval || to == items.size()) {
+                    try {
+                        summary.flush(conn);
+                        conn.commit();
+                        invalidateRange(items, windowStart, to);
+                    } catch (SQLException e) {
+                        System.err.println("Bulk posting commit failed: " + e.getMessage());
+                        rollbackQuietly(conn);
+                        failRange(items, results, windowStart, to, e.getMessage());
+                    }
+                    summary = new SummaryUpdater();
+                    windowStart = to;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error in bulk posting: " + e.getMessage());
+            e.printStackTrace();
+            rollbackQuietly(conn);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    results[i] = PostingResult.failure(PostingResult.Status.FAILED,
+                        items.get(i) == null ? null : items.get(i).getAccountNumber(), e.getMessage());
+                }
+            }
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        BulkPostingResult bulkResult = new BulkPostingResult(Arrays.asList(results), System.currentTimeMillis() - start);
+        System.out.println("Bulk posting finished: " + bulkResult);
+        return bulkResult;
+    }
+    
+    /**
+     * Posts a group of independent postings (see GroupCommitAccountRepository) as one batch in
+     * one DB transaction with one commit. Results are per posting, as with postAll; an SQL
+     * error rolls back the whole group and is thrown, so the caller can retry the postings.
+     */
+    PostingResult[] postGroup(List<Posting> items) throws SQLException {
+        PostingResult[] results = new PostingResult[items.size()];
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("No database connection");
+        }
+        try {
+            conn.setAutoCommit(false);
+            SummaryUpdater summary = new SummaryUpdater();
+            postBatch(conn, items, 0, items.size(), results, summary);
+            summary.flush(conn);
+            conn.commit();
+            invalidateRange(items, 0, items.size());
+            return results;
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            throw e;
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    // Adds the applied postings to summary; the caller writes it just before committing
+    private void postBatch(Connection conn, List<Posting> items, int from, int to, PostingResult[] results,
+                           SummaryUpdater summary) throws SQLException {
+        // One statement shape for both directions: delta is negative for withdrawals,
+        // and only withdrawals are held to the available balance.
+        String updateSql = "UPDATE accounts SET balance = balance + ? " +
+                           "WHERE account_number = ? AND (? >= 0 OR balance >= ?)";
+        int[] batchItems = new int[to - from];
+        int batched = 0;
+        int[] counts;
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
+            for (int i = from; i < to; i++) {
+                Posting posting = items.get(i);
+                if (!isValidPosting(posting)) {
+                    results[i] = PostingResult.failure(PostingResult.Status.INVALID_REQUEST,
+                        posting == null ? null : posting.getAccountNumber(), "Invalid posting request");
+                    continue;
+                }
+                BigDecimal delta = BigDecimal.valueOf(signedCents(posting), 2);
+                pstmt.setBigDecimal(1, delta);
+                pstmt.setString(2, posting.getAccountNumber());
+                pstmt.setBigDecimal(3, delta);
+                pstmt.setBigDecimal(4, delta.negate());
+                pstmt.addBatch();
+                batchItems[batched++] = i;
+            }
+            if (batched == 0) return;
+            
+            try {
+                counts = pstmt.executeBatch();
+            } catch (BatchUpdateException e) {
+                // The driver keeps going after a failed statement; failed slots are EXECUTE_FAILED
+                counts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+            }
+        }
+        
+        Set<String> accountNumbers = new HashSet<>();
+        for (int k = 0; k < batched; k++) {
+            accountNumbers.add(items.get(batchItems[k]).getAccountNumber());
+        }
+        Map<String, AccountState> states = loadAccountStates(conn, accountNumbers);
+        
+        // Balances read back are after the whole batch; walk backwards (in cents) to get each item's balances
+        boolean[] applied = new boolean[batched];
+        long[] balanceAfter = new long[batched];
+        for (int k = batched - 1; k >= 0; k--) {
+            int i = batchItems[k];
+            Posting posting = items.get(i);
+            AccountState state = states.get(posting.getAccountNumber());
+            int count = k < counts.length ? counts[k] : Statement.EXECUTE_FAILED;
+            
+            if (state == null) {
+                results[i] = PostingResult.failure(PostingResult.Status.ACCOUNT_NOT_FOUND,
+                    posting.getAccountNumber(), "Account not found: " + posting.getAccountNumber());
+            } else if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                applied[k] = true;
+                balanceAfter[k] = state.runningCents;
+                state.runningCents -= signedCents(posting);
+            } else if (count == 0) {
+                results[i] = PostingResult.insufficientFunds(posting.getAccountNumber(), Money.ofCents(state.runningCents));
+            } else {
+                results[i] = PostingResult.failure(PostingResult.Status.FAILED,
+                    posting.getAccountNumber(), "Statement failed in batch");
+            }
+        }
+        
+        // Ledger rows for the applied postings go out as one (rewritten multi-row) INSERT
+        String ledgerSql = "INSERT INTO transactions (account_id, transaction_type, amount, description) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(ledgerSql, Statement.RETURN_GENERATED_KEYS)) {
+            int rows = 0;
+            for (int k = 0; k < batched; k++) {
+                if (!applied[k]) continue;
+                Posting posting = items.get(batchItems[k]);
+                pstmt.setInt(1, states.get(posting.getAccountNumber()).accountId);
+                pstmt.setString(2, posting.getTransactionType());
+                pstmt.setBigDecimal(3, posting.getAmount().toBigDecimal());
+                pstmt.setString(4, posting.getDescription());
+                pstmt.addBatch();
+                rows++;
+            }
+            if (rows > 0) {
+                // Any failure here must roll the window back, otherwise balances move without a ledger row
+                pstmt.executeBatch();
+            }
+            try (ResultSet keys = rows > 0 ? pstmt.getGeneratedKeys() : null) {
+                for (int k = 0; k < batched; k++) {
+                    if (!applied[k]) continue;
+                    Posting posting = items.get(batchItems[k]);
+                    int transactionId = (keys != null && keys.next()) ? keys.getInt(1) : 0;
+                    results[batchItems[k]] = PostingResult.success(posting.getAccountNumber(),
+                        Money.ofCents(balanceAfter[k] - signedCents(posting)), Money.ofCents(balanceAfter[k]), transactionId);
+                }
+            }
+        }
+        
+        // One summary upsert per (type, status) / (type, transaction type) per commit
+        for (int k = 0; k < batched; k++) {
+            if (!applied[k]) continue;
+            Posting posting = items.get(batchItems[k]);
+            AccountState state = states.get(posting.getAccountNumber());
+            summary.addTransaction(state.accountType, posting.getTransactionType(), posting.getAmount().getCents());
+            summary.addBalance(state.accountType, state.status, 0, signedCents(posting));
+        }
+    }
+    
+    private Map<String, AccountState> loadAccountStates(Connection conn, Set<String> accountNumbers) throws SQLException {
+        Map<String, AccountState> states = new HashMap<>();
+        StringBuilder sql = new StringBuilder(
+            "SELECT account_number, account_id, balance, account_type, status FROM accounts WHERE account_number IN (");
+        for (int i = 0; i < accountNumbers.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        
+        // The IN list length varies per batch, so keep this one out of the statement cache
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            int index = 1;
+            for (String accountNumber : accountNumbers) {
+                pstmt.setString(index++, accountNumber);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    AccountState state = new AccountState();
+                    state.accountId = rs.getInt("account_id");
+                    state.runningCents = Money.of(rs.getBigDecimal("balance")).getCents();
+                    state.accountType = rs.getString("account_type");
+                    state.status = rs.getString("status");
+                    states.put(rs.getString("account_number"), state);
+                }
+            }
+        }
+        return states;
+    }
+    
+    private static void invalidateRange(List<Posting> items, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (items.get(i) != null) {
+                ACCOUNT_CACHE.invalidate(items.get(i).getAccountNumber());
+            }
+        }
+    }
+    
+    private static void failRange(List<Posting> items, PostingResult[] results, int from, int to, String message) {
+        for (int i = from; i < to; i++) {
+            Posting posting = items.get(i);
+            // Invalid items were never sent, so their result stands
+            if (results[i] != null && results[i].getStatus() == PostingResult.Status.INVALID_REQUEST) continue;
+            results[i] = PostingResult.failure(PostingResult.Status.FAILED,
+                posting == null ? null : posting.getAccountNumber(), message);
+        }
+    }
+    
+    static boolean isValidPosting(Posting posting) {
+        return posting != null && AccountNumbers.isPlausible(posting.getAccountNumber()) &&
+               (posting.isDeposit() || posting.isWithdrawal()) &&
+               posting.getAmount() != null && posting.getAmount().isPositive();
+    }
+    
+    // Balance change in cents; plain long arithmetic keeps the batch loops allocation-free
+    static long signedCents(Posting posting) {
+        return posting.isDeposit() ? posting.getAmount().getCents() : -posting.getAmount().getCents();
+    }
+    
+    private static class AccountState {
+        int accountId;
+        long runningCents; // balance after the batch, walked back posting by posting
+        String accountType;
+        String status;
+    }
+    
     public List<Account> getAccountsByCustomerId(int customerId) {
         List<Account> accounts = new ArrayList<>();
         Connection conn = null;
@@ -149,16 +858,7 @@ public class AccountDAO {
             rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                Account account = new Account();
-                account.setAccountId(rs.getInt("account_id"));
-                account.setCustomerId(rs.getInt("customer_id"));
-                account.setAccountNumber(rs.getString("account_number"));
-                account.setAccountType(rs.getString("account_type"));
-                account.setBalance(rs.getDouble("balance"));
-                account.setDateCreated(rs.getTimestamp("date_created"));
-                account.setStatus(rs.getString("status"));
-                
-                accounts.add(account);
+                accounts.add(mapAccount(rs));
             }
             
             System.out.println("Found " + accounts.size() + " accounts for customer ID: " + customerId);
@@ -179,28 +879,53 @@ public class AccountDAO {
         return accounts;
     }
     
-    // New method: Verify account exists immediately after creation
-    public boolean verifyAccountExists(String accountNumber) {
+    /**
+     * One page of accounts joined with their customer's name, ordered by account_id.
+     * Keyset pagination: pass 0 for the first page, then the last account_id you received.
+     * status and accountType are optional filters (null = any). Returns null if the page
+     * could not be read.
+     */
+    public List<Account> getAccountsPage(int afterAccountId, int pageSize, String status, String accountType) {
+        List<Account> accounts = new ArrayList<>();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
-        String sql = "SELECT 1 FROM accounts WHERE account_number = ?";
+        StringBuilder sql = new StringBuilder(
+            "SELECT a.*, c.first_name, c.last_name " +
+            "FROM accounts a " +
+            "LEFT JOIN customers c ON a.customer_id = c.customer_id " +
+            "WHERE a.account_id > ?");
+        if (status != null) sql.append(" AND a.status = ?");
+        if (accountType != null) sql.append(" AND a.account_type = ?");
+        sql.append(" ORDER BY a.account_id LIMIT ?");
         
         try {
             conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, accountNumber);
+            if (conn == null) {
+                return null;
+            }
+            pstmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            pstmt.setInt(index++, afterAccountId);
+            if (status != null) pstmt.setString(index++, status);
+            if (accountType != null) pstmt.setString(index++, accountType);
+            pstmt.setInt(index, pageSize);
             rs = pstmt.executeQuery();
             
-            boolean exists = rs.next();
-            System.out.println("Account verification for " + accountNumber + ": " + (exists ? "EXISTS" : "NOT FOUND"));
-            return exists;
+            while (rs.next()) {
+                Account account = mapAccount(rs);
+                String firstName = rs.getString("first_name");
+                if (firstName != null) {
+                    account.setCustomerName(firstName + " " + rs.getString("last_name"));
+                }
+                accounts.add(account);
+            }
             
         } catch (SQLException e) {
-            System.err.println("Error verifying account: " + e.getMessage());
+            System.err.println("Error getting accounts page: " + e.getMessage());
             e.printStackTrace();
-            return false;
+            return null; // lets callers tell a failed read from the last page
         } finally {
             try {
                 if (rs != null) rs.close();
@@ -210,5 +935,109 @@ public class AccountDAO {
                 e.printStackTrace();
             }
         }
+        
+        return accounts;
+    }
+    
+    // -1 if the accounts could not be counted, so a failed query does not read as an empty table
+    public int countAccounts(String status, String accountType) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM accounts a WHERE 1 = 1");
+        if (status != null) sql.append(" AND a.status = ?");
+        if (accountType != null) sql.append(" AND a.account_type = ?");
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return -1;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                if (status != null) pstmt.setString(index++, status);
+                if (accountType != null) pstmt.setString(index, accountType);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting accounts: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * A window of accounts (with customer names) for the paged accounts table, sorted on the
+     * server. sortColumn is one of the keys of ACCOUNT_SORT_COLUMNS; anything else sorts by id.
+     * Returns null if the page could not be read.
+     */
+    public List<Account> getAccountsSorted(int offset, int limit, String status, String accountType,
+                                           String sortColumn, boolean ascending) {
+        List<Account> accounts = new ArrayList<>();
+        String orderBy = ACCOUNT_SORT_COLUMNS.getOrDefault(sortColumn, "a.account_id");
+        String direction = ascending ? " ASC" : " DESC";
+        
+        StringBuilder sql = new StringBuilder(
+            "SELECT a.*, c.first_name, c.last_name " +
+            "FROM accounts a " +
+            "LEFT JOIN customers c ON a.customer_id = c.customer_id " +
+            "WHERE 1 = 1");
+        if (status != null) sql.append(" AND a.status = ?");
+        if (accountType != null) sql.append(" AND a.account_type = ?");
+        sql.append(" ORDER BY ").append(orderBy).append(direction)
+           .append(", a.account_id").append(direction).append(" LIMIT ? OFFSET ?");
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return null;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                if (status != null) pstmt.setString(index++, status);
+                if (accountType != null) pstmt.setString(index++, accountType);
+                pstmt.setInt(index++, limit);
+                pstmt.setInt(index, offset);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Account account = mapAccount(rs);
+                        String firstName = rs.getString("first_name");
+                        if (firstName != null) {
+                            account.setCustomerName(firstName + " " + rs.getString("last_name"));
+                        }
+                        accounts.add(account);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting sorted accounts: " + e.getMessage());
+            e.printStackTrace();
+            return null; // not an empty page: the table must not cache it
+        }
+        
+        return accounts;
+    }
+    
+    private static Account mapAccount(ResultSet rs) throws SQLException {
+        Account account = new Account();
+        account.setAccountId(rs.getInt("account_id"));
+        account.setCustomerId(rs.getInt("customer_id"));
+        account.setAccountNumber(rs.getString("account_number"));
+        account.setAccountType(rs.getString("account_type"));
+        account.setBalance(Money.of(rs.getBigDecimal("balance")));
+        account.setDateCreated(rs.getTimestamp("date_created"));
+        account.setStatus(rs.getString("status"));
+        return account;
+    }
+    
+    // New method: Verify account exists immediately after creation.
+    // Answered from the account cache (including its negative entries) when possible.
+    public boolean verifyAccountExists(String accountNumber) {
+        AccountCache.Lookup cached = ACCOUNT_CACHE.get(accountNumber);
+        boolean exists = cached.hit ? cached.account != null : getAccountByNumber(accountNumber) != null;
+        System.out.println("Account verification for " + accountNumber + ": " + (exists ? "EXISTS" : "NOT FOUND"));
+        return exists;
+    }
+    
+    public static CacheStats getCacheStats() {
+        return ACCOUNT_CACHE.getStats();
     }
 }
\ No newline at end of file
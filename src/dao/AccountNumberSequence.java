@@ -0,0 +1,8 @@
+package dao;
+
+/** Source of account number sequence blocks for service.AccountNumberAllocator. */
+public interface AccountNumberSequence {
+
+    /** Reserves size consecutive sequence numbers for the prefix; returns the first, or -1 on failure. */
+    long reserveBlock(String prefix, int size);
+}
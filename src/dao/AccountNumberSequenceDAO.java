@@ -0,0 +1,64 @@
+package dao;
+
+import util.DatabaseConnection;
+import java.sql.*;
+
+// Block reservations on account_number_sequences for service.AccountNumberAllocator
+public class AccountNumberSequenceDAO implements AccountNumberSequence {
+
+    /**
+     * Reserves size consecutive sequence numbers for the prefix and returns the first, or -1
+     * on error. Runs in its own short transaction: the row lock is held only for the update,
+     * and a block stays reserved even if the account it was taken for is never created.
+     */
+    public long reserveBlock(String prefix, int size) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int updated;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE account_number_sequences SET next_value = next_value + ? WHERE prefix = ?")) {
+                pstmt.setInt(1, size);
+                pstmt.setString(2, prefix);
+                updated = pstmt.executeUpdate();
+            }
+            if (updated == 0) {
+                // First block of a new prefix; a concurrent first insert makes this fail and the caller retry
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO account_number_sequences (prefix, next_value) VALUES (?, ?)")) {
+                    pstmt.setString(1, prefix);
+                    pstmt.setLong(2, 1L + size);
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+                return 1;
+            }
+
+            long next;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT next_value FROM account_number_sequences WHERE prefix = ?")) {
+                pstmt.setString(1, prefix);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    next = rs.getLong(1);
+                }
+            }
+            conn.commit();
+            return next - size;
+
+        } catch (SQLException e) {
+            System.err.println("Error reserving account numbers for " + prefix + ": " + e.getMessage());
+            e.printStackTrace();
+            AccountDAO.rollbackQuietly(conn);
+            return -1;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import model.Account;
+import model.BulkPostingResult;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.TransferResult;
+
+/**
+ * Account storage as the application uses it. AccountDAO keeps accounts in MySQL;
+ * InMemoryAccountRepository keeps them in the JVM. Get the configured one from
+ * Repositories.accounts().
+ */
+public interface AccountRepository {
+
+    /** Stores a new ACTIVE account and sets its generated id; false if it could not be stored. */
+    boolean createAccount(Account account);
+
+    /** The account, or null if there is none (or the number fails its check digit). */
+    Account getAccountByNumber(String accountNumber);
+
+    boolean updateBalance(String accountNumber, Money newBalance);
+
+    /** Applies one deposit or withdrawal atomically; never overdraws. */
+    PostingResult post(Posting posting);
+
+    /**
+     * Moves money between two accounts atomically: both balances change and both TRANSFER
+     * ledger legs are written, or nothing is. Never overdraws the source account.
+     */
+    TransferResult transfer(String fromAccountNumber, String toAccountNumber, Money amount, String description);
+
+    BulkPostingResult postAll(Collection<Posting> postings);
+
+    BulkPostingResult postAll(Collection<Posting> postings, int batchSize, int commitInterval);
+
+    List<Account> getAccountsByCustomerId(int customerId);
+
+    /**
+     * Keyset page of accounts (with customer names) after the given account id; filters may be
+     * null. Returns null if the page could not be read.
+     */
+    List<Account> getAccountsPage(int afterAccountId, int pageSize, String status, String accountType);
+
+    /** Accounts matching the filters (null = any); -1 if they could not be counted. */
+    int countAccounts(String status, String accountType);
+
+    /** Offset page of accounts (with customer names) sorted by an accounts table column; null if it could not be read. */
+    List<Account> getAccountsSorted(int offset, int limit, String status, String accountType,
+                                    String sortColumn, boolean ascending);
+
+    boolean verifyAccountExists(String accountNumber);
+}
@@ -0,0 +1,207 @@
+package dao;
+
+import model.Money;
+import util.AppConfig;
+import util.DatabaseConnection;
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Daily closing balances per account (account_balance_snapshots) and point-in-time balances
+ * computed from them.
+ *
+ * A balance at time T is the closing balance of the last snapshot day before T plus the
+ * ledger rows between the end of that day and T, so the work is bounded by the activity
+ * since the last snapshot rather than by the account's whole history. WITHDRAWAL rows are
+ * stored positive and count as negative; every other type counts as stored (the debit leg
+ * of a TRANSFER is stored negative).
+ */
+public class BalanceSnapshotDAO {
+    // Accounts per snapshot transaction, so the end-of-day job never locks the whole table at once
+    private static final int SNAPSHOT_CHUNK_SIZE = AppConfig.getInt("banking.snapshots.chunkSize", 1000);
+
+    static final String SIGNED_AMOUNT = "CASE WHEN t.transaction_type = 'WITHDRAWAL' THEN -t.amount ELSE t.amount END";
+
+    /**
+     * Writes (or rewrites) every account's closing balance for the given day. The closing
+     * balance is today's balance minus everything posted after that day, so the job may run
+     * any time after midnight, and re-running it for a day is harmless.
+     * Returns the number of accounts snapshotted, or -1 on error.
+     */
+    public int takeSnapshots(LocalDate day) {
+        Timestamp dayEnd = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        String sql =
+            "INSERT INTO account_balance_snapshots (account_id, snapshot_date, closing_balance) " +
+            "SELECT a.account_id, ?, a.balance - COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) " +
+            "FROM accounts a " +
+            "LEFT JOIN transactions t ON t.account_id = a.account_id AND t.transaction_date >= ? " +
+            "WHERE a.account_id > ? AND a.account_id <= ? AND a.date_created < ? " +
+            "GROUP BY a.account_id, a.balance " +
+            "ON DUPLICATE KEY UPDATE closing_balance = VALUES(closing_balance)";
+        long start = System.currentTimeMillis();
+        int accounts = 0;
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            int maxAccountId;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(account_id), 0) FROM accounts")) {
+                maxAccountId = rs.next() ? rs.getInt(1) : 0;
+            }
+
+            // Balance and later ledger rows of a chunk are read in one transaction so they agree
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int from = 0; from < maxAccountId; from += SNAPSHOT_CHUNK_SIZE) {
+                    pstmt.setDate(1, Date.valueOf(day));
+                    pstmt.setTimestamp(2, dayEnd);
+                    pstmt.setInt(3, from);
+                    pstmt.setInt(4, from + SNAPSHOT_CHUNK_SIZE);
+                    pstmt.setTimestamp(5, dayEnd);
+                    pstmt.executeUpdate();
+                    conn.commit();
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT COUNT(*) FROM account_balance_snapshots WHERE snapshot_date = ?")) {
+                pstmt.setDate(1, Date.valueOf(day));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    accounts = rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+            conn.commit();
+
+            System.out.println("Balance snapshots for " + day + ": " + accounts + " accounts in " +
+                               (System.currentTimeMillis() - start) + " ms");
+            return accounts;
+
+        } catch (SQLException e) {
+            System.err.println("Error taking balance snapshots: " + e.getMessage());
+            e.printStackTrace();
+            AccountDAO.rollbackQuietly(conn);
+            return -1;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Closing balance of the account at the end of the given day, or null if unknown. */
+    public Money getClosingBalance(int accountId, LocalDate day) {
+        return getBalanceAt(accountId, Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Balance of the account just before the given moment, or null if the account does not
+     * exist or did not exist yet. Uses the nearest earlier snapshot plus the ledger since;
+     * without one, falls back to the current balance minus the ledger after the moment.
+     */
+    public Money getBalanceAt(int accountId, Timestamp at) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            // Snapshot and ledger must be read from the same point in time
+            conn.setAutoCommit(false);
+            Money balance = balanceFromSnapshot(conn, accountId, at);
+            if (balance == null) {
+                balance = balanceFromCurrent(conn, accountId, at);
+            }
+            conn.commit();
+            return balance;
+
+        } catch (SQLException e) {
+            System.err.println("Error getting point-in-time balance: " + e.getMessage());
+            e.printStackTrace();
+            AccountDAO.rollbackQuietly(conn);
+            return null;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Balance the account was opened with (the initial deposit is not a ledger row):
+     * the current balance minus the whole ledger. Null if the account does not exist.
+     */
+    public Money getOpeningDeposit(int accountId) {
+        String sql = "SELECT a.balance - COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ") FROM transactions t " +
+                     "WHERE t.account_id = a.account_id), 0) FROM accounts a WHERE a.account_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Money.of(rs.getBigDecimal(1)) : null;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting opening deposit: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private Money balanceFromSnapshot(Connection conn, int accountId, Timestamp at) throws SQLException {
+        Date snapshotDate;
+        Money closingBalance;
+        // Last day that ended at or before the requested moment; a primary key range read
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT snapshot_date, closing_balance FROM account_balance_snapshots " +
+                "WHERE account_id = ? AND snapshot_date < ? ORDER BY snapshot_date DESC LIMIT 1")) {
+            pstmt.setInt(1, accountId);
+            pstmt.setDate(2, Date.valueOf(at.toLocalDateTime().toLocalDate()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                snapshotDate = rs.getDate("snapshot_date");
+                closingBalance = Money.of(rs.getBigDecimal("closing_balance"));
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM transactions t " +
+                "WHERE t.account_id = ? AND t.transaction_date >= ? AND t.transaction_date < ?")) {
+            pstmt.setInt(1, accountId);
+            pstmt.setTimestamp(2, Timestamp.valueOf(snapshotDate.toLocalDate().plusDays(1).atStartOfDay()));
+            pstmt.setTimestamp(3, at);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? closingBalance.add(Money.of(rs.getBigDecimal(1))) : closingBalance;
+            }
+        }
+    }
+
+    private Money balanceFromCurrent(Connection conn, int accountId, Timestamp at) throws SQLException {
+        Money balance;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT balance, date_created FROM accounts WHERE account_id = ?")) {
+            pstmt.setInt(1, accountId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || !rs.getTimestamp("date_created").before(at)) {
+                    return null;
+                }
+                balance = Money.of(rs.getBigDecimal("balance"));
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM transactions t " +
+                "WHERE t.account_id = ? AND t.transaction_date >= ?")) {
+            pstmt.setInt(1, accountId);
+            pstmt.setTimestamp(2, at);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? balance.subtract(Money.of(rs.getBigDecimal(1))) : balance;
+            }
+        }
+    }
+}
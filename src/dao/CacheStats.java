@@ -0,0 +1,43 @@
+package dao;
+
+// Point-in-time counters of the account cache
+public class CacheStats {
+    private final int size;
+    private final long hits;
+    private final long negativeHits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+
+    public CacheStats(int size, long hits, long negativeHits, long misses,
+                      long evictions, long expirations, long invalidations) {
+        this.size = size;
+        this.hits = hits;
+        this.negativeHits = negativeHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+    }
+
+    public int getSize() { return size; }
+    public long getHits() { return hits; }
+    public long getNegativeHits() { return negativeHits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getExpirations() { return expirations; }
+    public long getInvalidations() { return invalidations; }
+
+    public double getHitRate() {
+        long lookups = hits + negativeHits + misses;
+        return lookups == 0 ? 0.0 : (double) (hits + negativeHits) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size + ", hits=" + hits + ", negativeHits=" + negativeHits + ", misses=" + misses +
+               ", hitRate=" + Math.round(getHitRate() * 1000) / 10.0 + "%" +
+               ", evictions=" + evictions + ", expirations=" + expirations + ", invalidations=" + invalidations;
+    }
+}
@@ -4,15 +4,23 @@ import model.Customer;
 import util.DatabaseConnection;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class CustomerDAO {
+public class CustomerDAO implements CustomerRepository {
     
     public boolean addCustomer(Customer customer) {
         String sql = "INSERT INTO customers (first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             pstmt.setString(1, customer.getFirstName());
             pstmt.setString(2, customer.getLastName());
@@ -21,6 +29,13 @@ public class CustomerDAO {
             pstmt.setString(5, customer.getAddress());
             
             int affectedRows = pstmt.executeUpdate();
+            
+            // Hand the new id back so callers can use the customer without re-reading it
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    customer.setCustomerId(keys.getInt(1));
+                }
+            }
             return affectedRows > 0;
             
         } catch (SQLException e) {
@@ -38,25 +53,154 @@ public class CustomerDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                Customer customer = new Customer();
-                customer.setCustomerId(rs.getInt("customer_id"));
-                customer.setFirstName(rs.getString("first_name"));
-                customer.setLastName(rs.getString("last_name"));
-                customer.setEmail(rs.getString("email"));
-                customer.setPhone(rs.getString("phone"));
-                customer.setAddress(rs.getString("address"));
-                customer.setDateCreated(rs.getTimestamp("date_created"));
-                
-                customers.add(customer);
+                customers.add(mapCustomer(rs));
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return customers;
+    }
+    
+    public Stream<Customer> streamAllCustomers() {
+        return streamAllCustomers(0);
+    }
+    
+    /**
+     * Walks every customer in id order without holding the table in memory.
+     *
+     * Rows come from a forward-only, read-only result set with a streaming fetch size
+     * (see DatabaseConnection.getStreamingFetchSize; 0 uses the configured default), so
+     * only about one fetch worth of rows is on the heap at a time. The stream holds a
+     * pooled connection until it is closed: always use try-with-resources. On MySQL the
+     * connection cannot run other statements while the stream is open. Throws
+     * IllegalStateException if the customers cannot be read, whether before the first row
+     * or part way through.
+     */
+    public Stream<Customer> streamAllCustomers(int fetchSize) {
+        String sql = "SELECT * FROM customers ORDER BY customer_id";
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            // Not an empty stream: a reload or export would finish "successfully" with no customers
+            throw new IllegalStateException("Error streaming customers: no database connection");
+        }
+        
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            // The scroll/concurrency arguments also keep this statement out of the statement cache
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(DatabaseConnection.getStreamingFetchSize(fetchSize));
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, pstmt, conn);
+            throw new IllegalStateException("Error streaming customers: " + e.getMessage(), e);
+        }
+        
+        final ResultSet rows = rs;
+        final PreparedStatement statement = pstmt;
+        Spliterator<Customer> spliterator = new Spliterators.AbstractSpliterator<Customer>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Customer> action) {
+                try {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                    action.accept(mapCustomer(rows));
+                    return true;
+                } catch (SQLException e) {
+                    // Failing loudly beats an export that silently stops half way
+                    throw new IllegalStateException("Error streaming customers: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                            .onClose(() -> closeQuietly(rows, statement, conn));
+    }
+    
+    // Each close on its own so a failing result set cannot leak the pooled connection
+    private static void closeQuietly(ResultSet rs, Statement stmt, Connection conn) {
+        for (AutoCloseable resource : new AutoCloseable[] {rs, stmt, conn}) {
+            try {
+                if (resource != null) resource.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    // Columns the customer table may be sorted by (keeps ORDER BY free of user input)
+    private static final Set<String> SORT_COLUMNS = new HashSet<>(Arrays.asList(
+        "customer_id", "first_name", "last_name", "email", "phone", "address", "date_created"));
+    
+    // -1 if the customers could not be counted, so a failed query does not read as an empty table
+    public int countCustomers() {
+        String sql = "SELECT COUNT(*) FROM customers";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return -1;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
             }
             
         } catch (SQLException e) {
+            System.err.println("Error counting customers: " + e.getMessage());
             e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    // One window of customers for the paged customer table, sorted on the server; null if it
+    // could not be read
+    public List<Customer> getCustomersPage(int offset, int limit, String sortColumn, boolean ascending) {
+        List<Customer> customers = new ArrayList<>();
+        if (!SORT_COLUMNS.contains(sortColumn)) {
+            sortColumn = "customer_id";
+        }
+        String direction = ascending ? "ASC" : "DESC";
+        String sql = "SELECT * FROM customers ORDER BY " + sortColumn + " " + direction +
+                     ", customer_id " + direction + " LIMIT ? OFFSET ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return null;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, limit);
+                pstmt.setInt(2, offset);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        customers.add(mapCustomer(rs));
+                    }
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting customers page: " + e.getMessage());
+            e.printStackTrace();
+            return null; // not an empty page: the table must not cache it
         }
         
         return customers;
     }
     
+    private static Customer mapCustomer(ResultSet rs) throws SQLException {
+        Customer customer = new Customer();
+        customer.setCustomerId(rs.getInt("customer_id"));
+        customer.setFirstName(rs.getString("first_name"));
+        customer.setLastName(rs.getString("last_name"));
+        customer.setEmail(rs.getString("email"));
+        customer.setPhone(rs.getString("phone"));
+        customer.setAddress(rs.getString("address"));
+        customer.setDateCreated(rs.getTimestamp("date_created"));
+        return customer;
+    }
+    
     public Customer getCustomerById(int customerId) {
         String sql = "SELECT * FROM customers WHERE customer_id = ?";
         Customer customer = null;
@@ -68,14 +212,29 @@ public class CustomerDAO {
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                customer = new Customer();
-                customer.setCustomerId(rs.getInt("customer_id"));
-                customer.setFirstName(rs.getString("first_name"));
-                customer.setLastName(rs.getString("last_name"));
-                customer.setEmail(rs.getString("email"));
-                customer.setPhone(rs.getString("phone"));
-                customer.setAddress(rs.getString("address"));
-                customer.setDateCreated(rs.getTimestamp("date_created"));
+                customer = mapCustomer(rs);
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return customer;
+    }
+    
+    // Served by the UNIQUE index on email (case-insensitive under MySQL's default collation)
+    public Customer getCustomerByEmail(String email) {
+        String sql = "SELECT * FROM customers WHERE email = ?";
+        Customer customer = null;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, email);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    customer = mapCustomer(rs);
+                }
             }
             
         } catch (SQLException e) {
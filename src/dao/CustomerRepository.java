@@ -0,0 +1,40 @@
+package dao;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import model.Customer;
+
+/**
+ * Customer storage as the application uses it. CustomerDAO keeps customers in MySQL;
+ * InMemoryCustomerRepository keeps them in the JVM. Get the configured one from
+ * Repositories.customers().
+ */
+public interface CustomerRepository {
+
+    /** Stores a new customer and sets its generated id; false if it could not be stored (e.g. duplicate email). */
+    boolean addCustomer(Customer customer);
+
+    List<Customer> getAllCustomers();
+
+    Stream<Customer> streamAllCustomers();
+
+    /**
+     * Every customer in id order; close the stream when done (try-with-resources). Throws
+     * IllegalStateException if they cannot be read.
+     */
+    Stream<Customer> streamAllCustomers(int fetchSize);
+
+    /** -1 if the customers could not be counted. */
+    int countCustomers();
+
+    /** Offset page sorted by a customers table column (anything else sorts by id); null if it could not be read. */
+    List<Customer> getCustomersPage(int offset, int limit, String sortColumn, boolean ascending);
+
+    Customer getCustomerById(int customerId);
+
+    /** The customer with this email (case-insensitive), or null. */
+    Customer getCustomerByEmail(String email);
+
+    boolean updateCustomer(Customer customer);
+}
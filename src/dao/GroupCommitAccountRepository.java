@@ -0,0 +1,252 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.Account;
+import model.BulkPostingResult;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.TransferResult;
+import util.AppConfig;
+import util.Histogram;
+
+/**
+ * Group commit for single postings in front of AccountDAO (banking.groupCommit.enabled=true),
+ * for when many tellers or API clients post at once and every posting paying for its own
+ * commit keeps the database busy flushing its log.
+ *
+ * post() and submit() queue the posting for one committer thread. It takes the first queued
+ * posting, gathers whatever else arrives within banking.groupCommit.windowMicros of it, up to
+ * banking.groupCommit.maxBatch postings, and posts the group through AccountDAO's batched
+ * path in one DB transaction with one commit. Each caller gets its own result: an overdraft
+ * or an unknown account fails only that posting. If the group's transaction fails, its
+ * postings are retried one by one in their own transactions, so one bad posting cannot take
+ * the others down. While a group is being committed the next one gathers, so the window
+ * only adds latency when postings are sparse.
+ *
+ * Everything else, transfers and bulk postings included, goes straight to AccountDAO.
+ */
+public class GroupCommitAccountRepository implements AccountRepository {
+    private static final long WINDOW_MICROS = Math.max(0, AppConfig.getLong("banking.groupCommit.windowMicros", 1000));
+    private static final int MAX_BATCH = Math.max(1, AppConfig.getInt("banking.groupCommit.maxBatch", 64));
+    private static final long IDLE_POLL_MS = 100;
+
+    private final AccountDAO accountDAO;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean closed = false;
+
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram addedLatencyMicros = new Histogram();
+    private final LongAdder fallbacks = new LongAdder();
+
+    // A queued posting and the future its caller waits on
+    private static class Pending {
+        final Posting posting;
+        final CompletableFuture<PostingResult> result = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+
+        Pending(Posting posting) {
+            this.posting = posting;
+        }
+    }
+
+    public GroupCommitAccountRepository(AccountDAO accountDAO) {
+        this.accountDAO = accountDAO;
+        committer = new Thread(this::run, "posting-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+        System.out.println("Group commit started (window " + WINDOW_MICROS + " us, at most " + MAX_BATCH +
+                           " postings per commit)");
+    }
+
+    /** Queues one posting; the future completes once its group has committed (or failed). */
+    public CompletableFuture<PostingResult> submit(Posting posting) {
+        if (!AccountDAO.isValidPosting(posting)) {
+            return CompletableFuture.completedFuture(PostingResult.failure(PostingResult.Status.INVALID_REQUEST,
+                posting == null ? null : posting.getAccountNumber(), "Invalid posting request"));
+        }
+        Pending pending = new Pending(posting);
+        queue.add(pending);
+        // close() drains the queue after setting closed; whatever lands after that is failed here
+        if (closed && queue.remove(pending)) {
+            pending.result.complete(PostingResult.failure(PostingResult.Status.FAILED,
+                posting.getAccountNumber(), "Group commit is shut down"));
+        }
+        return pending.result;
+    }
+
+    @Override
+    public PostingResult post(Posting posting) {
+        return submit(posting).join();
+    }
+
+    @Override
+    public boolean createAccount(Account account) {
+        return accountDAO.createAccount(account);
+    }
+
+    @Override
+    public Account getAccountByNumber(String accountNumber) {
+        return accountDAO.getAccountByNumber(accountNumber);
+    }
+
+    @Override
+    public boolean updateBalance(String accountNumber, Money newBalance) {
+        return accountDAO.updateBalance(accountNumber, newBalance);
+    }
+
+    @Override
+    public TransferResult transfer(String fromAccountNumber, String toAccountNumber, Money amount, String description) {
+        return accountDAO.transfer(fromAccountNumber, toAccountNumber, amount, description);
+    }
+
+    @Override
+    public BulkPostingResult postAll(Collection<Posting> postings) {
+        return accountDAO.postAll(postings);
+    }
+
+    @Override
+    public BulkPostingResult postAll(Collection<Posting> postings, int batchSize, int commitInterval) {
+        return accountDAO.postAll(postings, batchSize, commitInterval);
+    }
+
+    @Override
+    public List<Account> getAccountsByCustomerId(int customerId) {
+        return accountDAO.getAccountsByCustomerId(customerId);
+    }
+
+    @Override
+    public List<Account> getAccountsPage(int afterAccountId, int pageSize, String status, String accountType) {
+        return accountDAO.getAccountsPage(afterAccountId, pageSize, status, accountType);
+    }
+
+    @Override
+    public int countAccounts(String status, String accountType) {
+        return accountDAO.countAccounts(status, accountType);
+    }
+
+    @Override
+    public List<Account> getAccountsSorted(int offset, int limit, String status, String accountType,
+                                           String sortColumn, boolean ascending) {
+        return accountDAO.getAccountsSorted(offset, limit, status, accountType, sortColumn, ascending);
+    }
+
+    @Override
+    public boolean verifyAccountExists(String accountNumber) {
+        return accountDAO.verifyAccountExists(accountNumber);
+    }
+
+    /** Stops taking postings, commits what is already queued and stops the committer. */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        // Not interrupted: that could break the JDBC call of a commit in progress
+        closed = true;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Group commit stopped (" + batchSizes.getCount() + " commits for " +
+                           batchSizes.getTotal() + " postings)");
+    }
+
+    /** Postings per commit. */
+    public Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    /** Microseconds each posting spent queued before its group's transaction started. */
+    public Histogram getAddedLatencyMicros() {
+        return addedLatencyMicros;
+    }
+
+    /** Groups whose transaction failed and whose postings were retried one by one. */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    // Runs until close() and an empty queue
+    private void run() {
+        List<Pending> group = new ArrayList<>(MAX_BATCH);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                gather(group);
+            } catch (InterruptedException e) {
+                // Commit whatever was gathered; the loop decides whether to go on
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    // Waits for a first posting, then gathers more until the window closes or the group is full
+    private void gather(List<Pending> group) throws InterruptedException {
+        Pending first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+        // A posting that already waited out the window (the last commit was slow) takes whatever is queued
+        long deadline = first.queuedAt + TimeUnit.MICROSECONDS.toNanos(WINDOW_MICROS);
+        while (group.size() < MAX_BATCH) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || closed) {
+                queue.drainTo(group, MAX_BATCH - group.size());
+                break;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        long started = System.nanoTime();
+        List<Posting> postings = new ArrayList<>(group.size());
+        for (Pending pending : group) {
+            postings.add(pending.posting);
+            addedLatencyMicros.record((started - pending.queuedAt) / 1000);
+        }
+        batchSizes.record(group.size());
+
+        PostingResult[] results;
+        try {
+            results = accountDAO.postGroup(postings);
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Group commit of " + group.size() + " postings failed, posting them one by one: " +
+                               e.getMessage());
+            fallbacks.increment();
+            for (Pending pending : group) {
+                complete(pending, accountDAO.post(pending.posting));
+            }
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), results[i]);
+        }
+    }
+
+    private static void complete(Pending pending, PostingResult result) {
+        pending.result.complete(result != null ? result : PostingResult.failure(PostingResult.Status.FAILED,
+            pending.posting.getAccountNumber(), "No result for posting"));
+    }
+}
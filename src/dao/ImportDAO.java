@@ -0,0 +1,165 @@
+package dao;
+
+import model.Account;
+import model.Customer;
+import model.ImportRow;
+import util.DatabaseConnection;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Database side of the CSV import: uniqueness lookups and batched inserts
+public class ImportDAO {
+
+    // Which of the given (lower-case) emails are already taken
+    public Set<String> findExistingEmails(Collection<String> emails) throws SQLException {
+        return findExisting("SELECT LOWER(email) FROM customers WHERE email IN (", emails);
+    }
+
+    public Set<String> findExistingAccountNumbers(Collection<String> accountNumbers) throws SQLException {
+        return findExisting("SELECT account_number FROM accounts WHERE account_number IN (", accountNumbers);
+    }
+
+    private Set<String> findExisting(String sqlPrefix, Collection<String> values) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        if (values.isEmpty()) {
+            return existing;
+        }
+        StringBuilder sql = new StringBuilder(sqlPrefix);
+        for (int i = 0; i < values.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("No database connection");
+        }
+        // The IN list length varies, so keep this one out of the statement cache
+        try (Connection c = conn;
+             PreparedStatement pstmt = c.prepareStatement(sql.toString(),
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            int index = 1;
+            for (String value : values) {
+                pstmt.setString(index++, value);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Inserts the accepted rows of one chunk in a single transaction: one batched INSERT for
+     * the customers (rewritten into multi-row statements by the driver), then one for their
+     * accounts using the generated customer ids, then the report summaries.
+     * If the batch fails (e.g. an email taken since validation), the chunk is retried row by
+     * row and only the offending rows are rejected. Returns {customers, accounts} inserted.
+     */
+    public int[] insertBatch(List<ImportRow> rows) {
+        List<ImportRow> accepted = new ArrayList<>();
+        for (ImportRow row : rows) {
+            if (!row.isRejected()) accepted.add(row);
+        }
+        if (accepted.isEmpty()) {
+            return new int[2];
+        }
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            for (ImportRow row : accepted) row.reject("No database connection");
+            return new int[2];
+        }
+        try {
+            conn.setAutoCommit(false);
+            try {
+                int[] counts = insertRows(conn, accepted);
+                conn.commit();
+                return counts;
+            } catch (SQLException e) {
+                AccountDAO.rollbackQuietly(conn);
+                System.err.println("Import batch failed, retrying " + accepted.size() + " rows one by one: " + e.getMessage());
+            }
+
+            int[] counts = new int[2];
+            for (ImportRow row : accepted) {
+                try {
+                    int[] single = insertRows(conn, Collections.singletonList(row));
+                    conn.commit();
+                    counts[0] += single[0];
+                    counts[1] += single[1];
+                } catch (SQLException e) {
+                    AccountDAO.rollbackQuietly(conn);
+                    row.reject("Database error: " + e.getMessage());
+                }
+            }
+            return counts;
+
+        } catch (SQLException e) {
+            System.err.println("Error importing batch: " + e.getMessage());
+            e.printStackTrace();
+            for (ImportRow row : accepted) row.reject("Database error: " + e.getMessage());
+            return new int[2];
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private int[] insertRows(Connection conn, List<ImportRow> rows) throws SQLException {
+        String customerSql = "INSERT INTO customers (first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(customerSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (ImportRow row : rows) {
+                Customer customer = row.getCustomer();
+                pstmt.setString(1, customer.getFirstName());
+                pstmt.setString(2, customer.getLastName());
+                pstmt.setString(3, customer.getEmail());
+                pstmt.setString(4, customer.getPhone());
+                pstmt.setString(5, customer.getAddress());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                for (ImportRow row : rows) {
+                    if (!keys.next()) {
+                        throw new SQLException("Driver returned fewer generated keys than rows");
+                    }
+                    row.getCustomer().setCustomerId(keys.getInt(1));
+                }
+            }
+        }
+
+        int accounts = 0;
+        SummaryUpdater summary = new SummaryUpdater();
+        String accountSql = "INSERT INTO accounts (customer_id, account_number, account_type, balance) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(accountSql)) {
+            for (ImportRow row : rows) {
+                Account account = row.getAccount();
+                if (account == null) continue;
+                account.setCustomerId(row.getCustomer().getCustomerId());
+                pstmt.setInt(1, account.getCustomerId());
+                pstmt.setString(2, account.getAccountNumber());
+                pstmt.setString(3, account.getAccountType());
+                pstmt.setBigDecimal(4, account.getBalance().toBigDecimal());
+                pstmt.addBatch();
+                summary.addBalance(account.getAccountType(), "ACTIVE", 1, account.getBalance().getCents());
+                accounts++;
+            }
+            if (accounts > 0) {
+                pstmt.executeBatch();
+            }
+        }
+        summary.flush(conn);
+        return new int[] {rows.size(), accounts};
+    }
+}
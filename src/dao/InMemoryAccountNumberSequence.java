@@ -0,0 +1,14 @@
+package dao;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Account number sequences for banking.storage=memory; every prefix starts at 1
+public class InMemoryAccountNumberSequence implements AccountNumberSequence {
+    private final ConcurrentHashMap<String, AtomicLong> nextValues = new ConcurrentHashMap<>();
+
+    @Override
+    public long reserveBlock(String prefix, int size) {
+        return nextValues.computeIfAbsent(prefix, p -> new AtomicLong(1)).getAndAdd(size);
+    }
+}
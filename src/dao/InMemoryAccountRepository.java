@@ -0,0 +1,273 @@
+package dao;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Account;
+import model.BulkPostingResult;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.TransferResult;
+import util.AccountNumbers;
+
+/**
+ * Accounts held in the JVM (banking.storage=memory), for simulations and tests without MySQL.
+ *
+ * Three indexes over the same account records: a ConcurrentHashMap by account number (every
+ * lookup and posting), a ConcurrentHashMap from customer id to that customer's accounts, and
+ * a ConcurrentSkipListMap by account id for the id-ordered listings. A posting locks only its
+ * own account record, so postings to different accounts never wait for each other, and the
+ * balance check and update happen under that lock so an account is never overdrawn. A transfer
+ * locks both records, lower account id first, so opposite transfers cannot deadlock.
+ *
+ * Postings get transaction ids but no ledger rows are kept (memory would grow with every
+ * posting); transaction history, statements and reports still need the database.
+ */
+public class InMemoryAccountRepository implements AccountRepository {
+    private final InMemoryCustomerRepository customers;
+
+    private final ConcurrentHashMap<String, Account> byNumber = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, List<Account>> byCustomer = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Account> byId = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextAccountId = new AtomicInteger();
+    private final AtomicInteger nextTransactionId = new AtomicInteger();
+
+    // Same sortable columns as AccountDAO
+    private final Map<String, Comparator<Account>> sortColumns = new HashMap<>();
+
+    public InMemoryAccountRepository(InMemoryCustomerRepository customers) {
+        this.customers = customers;
+        sortColumns.put("account_id", Comparator.comparingInt(Account::getAccountId));
+        sortColumns.put("account_number", Comparator.comparing(Account::getAccountNumber));
+        sortColumns.put("customer_id", Comparator.comparingInt(Account::getCustomerId));
+        sortColumns.put("customer_name", Comparator.comparing(
+            (Account a) -> customers.getFirstName(a.getCustomerId()), Comparator.nullsFirst(Comparator.naturalOrder())));
+        sortColumns.put("account_type", Comparator.comparing(Account::getAccountType));
+        sortColumns.put("balance", Comparator.comparing(Account::getBalance));
+        sortColumns.put("status", Comparator.comparing(Account::getStatus));
+        sortColumns.put("date_created", Comparator.comparing(Account::getDateCreated));
+    }
+
+    @Override
+    public boolean createAccount(Account account) {
+        if (account.getAccountNumber() == null || account.getAccountType() == null ||
+            !customers.exists(account.getCustomerId())) {
+            System.out.println("Account not created, missing number/type or unknown customer: " + account.getAccountNumber());
+            return false;
+        }
+        Account stored = new Account(account);
+        stored.setAccountId(nextAccountId.incrementAndGet());
+        stored.setStatus("ACTIVE"); // as the column default does for AccountDAO
+        stored.setDateCreated(new Timestamp(System.currentTimeMillis()));
+        stored.setCustomerName(null);
+        if (stored.getBalance() == null) {
+            stored.setBalance(Money.ZERO);
+        }
+        if (byNumber.putIfAbsent(stored.getAccountNumber(), stored) != null) {
+            System.out.println("Account not created, number already in use: " + account.getAccountNumber());
+            return false;
+        }
+        byId.put(stored.getAccountId(), stored);
+        byCustomer.computeIfAbsent(stored.getCustomerId(), id -> new CopyOnWriteArrayList<>()).add(stored);
+        account.setAccountId(stored.getAccountId());
+        return true;
+    }
+
+    @Override
+    public Account getAccountByNumber(String accountNumber) {
+        if (!AccountNumbers.isPlausible(accountNumber)) {
+            return null;
+        }
+        Account stored = byNumber.get(accountNumber);
+        return stored == null ? null : copy(stored);
+    }
+
+    @Override
+    public boolean updateBalance(String accountNumber, Money newBalance) {
+        Account stored = accountNumber == null ? null : byNumber.get(accountNumber);
+        if (stored == null || newBalance == null) {
+            return false;
+        }
+        synchronized (stored) {
+            stored.setBalance(newBalance);
+        }
+        return true;
+    }
+
+    @Override
+    public PostingResult post(Posting posting) {
+        if (!AccountDAO.isValidPosting(posting)) {
+            return PostingResult.failure(PostingResult.Status.INVALID_REQUEST,
+                posting == null ? null : posting.getAccountNumber(), "Invalid posting request");
+        }
+        Account stored = byNumber.get(posting.getAccountNumber());
+        if (stored == null) {
+            return PostingResult.failure(PostingResult.Status.ACCOUNT_NOT_FOUND, posting.getAccountNumber(),
+                                         "Account not found: " + posting.getAccountNumber());
+        }
+        Money previous;
+        Money balance;
+        synchronized (stored) {
+            previous = stored.getBalance();
+            long cents;
+            try {
+                cents = Math.addExact(previous.getCents(), AccountDAO.signedCents(posting));
+            } catch (ArithmeticException e) {
+                return PostingResult.failure(PostingResult.Status.INVALID_REQUEST, posting.getAccountNumber(),
+                                             "Balance out of range");
+            }
+            if (cents < 0) {
+                return PostingResult.insufficientFunds(posting.getAccountNumber(), previous);
+            }
+            balance = Money.ofCents(cents);
+            stored.setBalance(balance);
+        }
+        return PostingResult.success(posting.getAccountNumber(), previous, balance, nextTransactionId.incrementAndGet());
+    }
+
+    // Both records are locked in account id order, as AccountDAO locks the rows
+    @Override
+    public TransferResult transfer(String fromAccountNumber, String toAccountNumber, Money amount, String description) {
+        if (!AccountNumbers.isPlausible(fromAccountNumber) || !AccountNumbers.isPlausible(toAccountNumber) ||
+            fromAccountNumber.equals(toAccountNumber) || amount == null || !amount.isPositive()) {
+            return TransferResult.failure(PostingResult.Status.INVALID_REQUEST, fromAccountNumber, toAccountNumber,
+                                          amount, "Invalid transfer request", 0);
+        }
+        Account from = byNumber.get(fromAccountNumber);
+        Account to = byNumber.get(toAccountNumber);
+        if (from == null || to == null) {
+            return TransferResult.failure(PostingResult.Status.ACCOUNT_NOT_FOUND, fromAccountNumber, toAccountNumber,
+                                          amount, "Account not found: " + (from == null ? fromAccountNumber : toAccountNumber), 1);
+        }
+        Account first = from.getAccountId() < to.getAccountId() ? from : to;
+        Account second = first == from ? to : from;
+        Money fromBalance;
+        Money toBalance;
+        synchronized (first) {
+            synchronized (second) {
+                long fromCents = from.getBalance().getCents() - amount.getCents();
+                if (fromCents < 0) {
+                    return TransferResult.insufficientFunds(fromAccountNumber, toAccountNumber, amount, from.getBalance(), 1);
+                }
+                long toCents;
+                try {
+                    toCents = Math.addExact(to.getBalance().getCents(), amount.getCents());
+                } catch (ArithmeticException e) {
+                    return TransferResult.failure(PostingResult.Status.INVALID_REQUEST, fromAccountNumber, toAccountNumber,
+                                                  amount, "Balance out of range", 1);
+                }
+                fromBalance = Money.ofCents(fromCents);
+                toBalance = Money.ofCents(toCents);
+                from.setBalance(fromBalance);
+                to.setBalance(toBalance);
+            }
+        }
+        int debitId = nextTransactionId.incrementAndGet();
+        int creditId = nextTransactionId.incrementAndGet();
+        return TransferResult.success(fromAccountNumber, toAccountNumber, amount, fromBalance, toBalance, debitId, creditId, 1);
+    }
+
+    @Override
+    public BulkPostingResult postAll(Collection<Posting> postings) {
+        return postAll(postings, 0, 0);
+    }
+
+    // Batching only saves database round trips, so the sizes do not matter here
+    @Override
+    public BulkPostingResult postAll(Collection<Posting> postings, int batchSize, int commitInterval) {
+        long start = System.currentTimeMillis();
+        List<PostingResult> results = new ArrayList<>(postings.size());
+        for (Posting posting : postings) {
+            results.add(post(posting));
+        }
+        return new BulkPostingResult(results, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<Account> getAccountsByCustomerId(int customerId) {
+        List<Account> stored = byCustomer.get(customerId);
+        List<Account> accounts = new ArrayList<>();
+        if (stored != null) {
+            for (Account account : stored) {
+                accounts.add(copy(account));
+            }
+        }
+        return accounts;
+    }
+
+    @Override
+    public List<Account> getAccountsPage(int afterAccountId, int pageSize, String status, String accountType) {
+        List<Account> accounts = new ArrayList<>();
+        for (Account stored : byId.tailMap(afterAccountId, false).values()) {
+            if (accounts.size() >= pageSize) break;
+            Account account = copy(stored);
+            if (matches(account, status, accountType)) {
+                account.setCustomerName(customers.getCustomerName(account.getCustomerId()));
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+
+    @Override
+    public int countAccounts(String status, String accountType) {
+        if (status == null && accountType == null) {
+            return byId.size();
+        }
+        int count = 0;
+        for (Account stored : byId.values()) {
+            if (matches(copy(stored), status, accountType)) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public List<Account> getAccountsSorted(int offset, int limit, String status, String accountType,
+                                           String sortColumn, boolean ascending) {
+        List<Account> matching = new ArrayList<>();
+        for (Account stored : byId.values()) {
+            Account account = copy(stored);
+            if (matches(account, status, accountType)) {
+                matching.add(account);
+            }
+        }
+        Comparator<Account> order = sortColumns.getOrDefault(sortColumn, sortColumns.get("account_id"))
+            .thenComparingInt(Account::getAccountId);
+        matching.sort(ascending ? order : order.reversed());
+
+        List<Account> page = new ArrayList<>();
+        for (int i = Math.max(0, offset); i < matching.size() && page.size() < limit; i++) {
+            Account account = matching.get(i);
+            account.setCustomerName(customers.getCustomerName(account.getCustomerId()));
+            page.add(account);
+        }
+        return page;
+    }
+
+    @Override
+    public boolean verifyAccountExists(String accountNumber) {
+        return accountNumber != null && byNumber.containsKey(accountNumber);
+    }
+
+    private static boolean matches(Account account, String status, String accountType) {
+        return (status == null || status.equals(account.getStatus())) &&
+               (accountType == null || accountType.equals(account.getAccountType()));
+    }
+
+    // Taken under the record's lock so the copy never mixes two postings
+    private static Account copy(Account stored) {
+        synchronized (stored) {
+            return new Account(stored);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package dao;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import model.Customer;
+
+/**
+ * Customers held in the JVM (banking.storage=memory), for simulations and tests without MySQL.
+ *
+ * Customers are indexed by id in a ConcurrentSkipListMap (id-ordered scans for listing and
+ * paging) and by lower-cased email in a ConcurrentHashMap, which also enforces the unique
+ * email the database would. Stored objects are never handed out: callers get copies, and
+ * an update replaces the stored copy, so readers never see a half-updated customer.
+ * Everything is lost when the JVM exits.
+ */
+public class InMemoryCustomerRepository implements CustomerRepository {
+    private final ConcurrentSkipListMap<Integer, Customer> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Integer> idByEmail = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    // Same sortable columns as CustomerDAO
+    private static final Map<String, Comparator<Customer>> SORT_COLUMNS = new HashMap<>();
+    static {
+        SORT_COLUMNS.put("customer_id", Comparator.comparingInt(Customer::getCustomerId));
+        SORT_COLUMNS.put("first_name", Comparator.comparing(Customer::getFirstName, Comparator.nullsFirst(Comparator.naturalOrder())));
+        SORT_COLUMNS.put("last_name", Comparator.comparing(Customer::getLastName, Comparator.nullsFirst(Comparator.naturalOrder())));
+        SORT_COLUMNS.put("email", Comparator.comparing(Customer::getEmail, Comparator.nullsFirst(Comparator.naturalOrder())));
+        SORT_COLUMNS.put("phone", Comparator.comparing(Customer::getPhone, Comparator.nullsFirst(Comparator.naturalOrder())));
+        SORT_COLUMNS.put("address", Comparator.comparing(Customer::getAddress, Comparator.nullsFirst(Comparator.naturalOrder())));
+        SORT_COLUMNS.put("date_created", Comparator.comparing(Customer::getDateCreated, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    @Override
+    public boolean addCustomer(Customer customer) {
+        if (customer.getFirstName() == null || customer.getLastName() == null || customer.getEmail() == null) {
+            return false;
+        }
+        int id = nextId.incrementAndGet();
+        if (idByEmail.putIfAbsent(emailKey(customer.getEmail()), id) != null) {
+            System.out.println("Customer not added, email already in use: " + customer.getEmail());
+            return false;
+        }
+        Customer stored = new Customer(customer);
+        stored.setCustomerId(id);
+        stored.setDateCreated(new Timestamp(System.currentTimeMillis()));
+        byId.put(id, stored);
+        customer.setCustomerId(id);
+        return true;
+    }
+
+    @Override
+    public List<Customer> getAllCustomers() {
+        List<Customer> customers = new ArrayList<>(byId.size());
+        for (Customer customer : byId.values()) {
+            customers.add(new Customer(customer));
+        }
+        return customers;
+    }
+
+    @Override
+    public Stream<Customer> streamAllCustomers() {
+        return streamAllCustomers(0);
+    }
+
+    // Nothing to fetch or release here; the stream walks the id index directly
+    @Override
+    public Stream<Customer> streamAllCustomers(int fetchSize) {
+        return byId.values().stream().map(Customer::new);
+    }
+
+    @Override
+    public int countCustomers() {
+        return byId.size();
+    }
+
+    @Override
+    public List<Customer> getCustomersPage(int offset, int limit, String sortColumn, boolean ascending) {
+        Comparator<Customer> order = SORT_COLUMNS.getOrDefault(sortColumn, SORT_COLUMNS.get("customer_id"))
+            .thenComparingInt(Customer::getCustomerId);
+        if (!ascending) {
+            order = order.reversed();
+        }
+        return byId.values().stream()
+                   .sorted(order)
+                   .skip(Math.max(0, offset))
+                   .limit(Math.max(0, limit))
+                   .map(Customer::new)
+                   .collect(Collectors.toList());
+    }
+
+    @Override
+    public Customer getCustomerById(int customerId) {
+        Customer customer = byId.get(customerId);
+        return customer == null ? null : new Customer(customer);
+    }
+
+    @Override
+    public Customer getCustomerByEmail(String email) {
+        if (email == null) return null;
+        Integer id = idByEmail.get(emailKey(email));
+        return id == null ? null : getCustomerById(id);
+    }
+
+    // Updates are rare; one at a time keeps the email index consistent with the customers
+    @Override
+    public synchronized boolean updateCustomer(Customer customer) {
+        if (customer.getEmail() == null) {
+            return false;
+        }
+        Customer current = byId.get(customer.getCustomerId());
+        if (current == null) {
+            return false;
+        }
+        String oldKey = emailKey(current.getEmail());
+        String newKey = emailKey(customer.getEmail());
+        if (!newKey.equals(oldKey) && idByEmail.putIfAbsent(newKey, customer.getCustomerId()) != null) {
+            System.out.println("Customer not updated, email already in use: " + customer.getEmail());
+            return false;
+        }
+        Customer stored = new Customer(customer);
+        stored.setDateCreated(current.getDateCreated());
+        byId.put(customer.getCustomerId(), stored);
+        if (!newKey.equals(oldKey)) {
+            idByEmail.remove(oldKey, customer.getCustomerId());
+        }
+        return true;
+    }
+
+    boolean exists(int customerId) {
+        return byId.containsKey(customerId);
+    }
+
+    // "First Last" as the JDBC account listings join it, or null for an unknown customer
+    String getCustomerName(int customerId) {
+        Customer customer = byId.get(customerId);
+        return customer == null ? null : customer.getFirstName() + " " + customer.getLastName();
+    }
+
+    String getFirstName(int customerId) {
+        Customer customer = byId.get(customerId);
+        return customer == null ? null : customer.getFirstName();
+    }
+
+    // MySQL's default collation compares emails case-insensitively; so does this index
+    private static String emailKey(String email) {
+        return email == null ? "" : email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,419 @@
+package dao;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only posting journal of the write-behind ledger: every balance change is on disk
+ * here before the posting is acknowledged, and replayed into MySQL after a crash.
+ *
+ * The journal is a directory of memory-mapped segment files (journal-&lt;index&gt;.log) made of
+ * fixed 256-byte records. Record n lives at a fixed slot, so appenders only claim a sequence
+ * number and write their slot; nobody waits on a journal-wide lock. Layout, big-endian:
+ *
+ *     0  long  sequence            24  long  amount in cents (as stored; BALANCE: the new balance)
+ *     8  long  time (epoch ms)     32  byte[220] description, UTF-8, truncated
+ *    16  int   account id         252  int   CRC32 of bytes 0-251
+ *    20  byte  type, 21 unused, 22 short description length
+ *
+ * awaitDurable() is a group commit: the first waiter forces the mapped segments for everyone
+ * that had written its record by then, and the rest wait for it. checkpoint() records that
+ * everything up to a sequence is in MySQL and deletes the segments wholly before it. A slot
+ * that was claimed but never written (its writer crashed before being acknowledged) fails its
+ * CRC and is skipped on replay. The two legs of a transfer take consecutive sequence numbers,
+ * debit first, and are replayed together or not at all.
+ */
+final class PostingJournal {
+    static final int RECORD_SIZE = 256;
+    static final int MAX_DESCRIPTION_BYTES = 220;
+
+    static final byte DEPOSIT = 1;
+    static final byte WITHDRAWAL = 2;
+    static final byte TRANSFER = 3;
+    static final byte BALANCE = 4;
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path dir;
+    private final long recordsPerSegment;
+    private final AtomicLong lastSequence;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile long checkpoint;
+
+    // Group commit state, guarded by syncLock
+    private final Object syncLock = new Object();
+    private long requestGeneration = 1;
+    private long syncedGeneration = 0;
+    private boolean syncing = false;
+
+    /** One journal record as read back for replay. */
+    static final class Record {
+        final long sequence;
+        final long time;
+        final int accountId;
+        final byte type;
+        final long amountCents;
+        final String description;
+
+        Record(long sequence, long time, int accountId, byte type, long amountCents, String description) {
+            this.sequence = sequence;
+            this.time = time;
+            this.accountId = accountId;
+            this.type = type;
+            this.amountCents = amountCents;
+            this.description = description;
+        }
+    }
+
+    private static final class Segment {
+        final long index;
+        final Path path;
+        final MappedByteBuffer buffer;
+
+        Segment(long index, Path path, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    private PostingJournal(Path dir, long recordsPerSegment, long lastSequence, long checkpoint) {
+        this.dir = dir;
+        this.recordsPerSegment = recordsPerSegment;
+        this.lastSequence = new AtomicLong(lastSequence);
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Opens (or creates) the journal in dir. Sequence numbers continue after both the last
+     * record on disk and minLastSequence, the highest sequence MySQL has seen, so a journal
+     * directory that was lost or deleted never reuses numbers.
+     */
+    static PostingJournal open(Path dir, int segmentSizeMb, long minLastSequence) throws IOException {
+        Files.createDirectories(dir);
+        long recordsPerSegment = Math.max(1, (long) segmentSizeMb * 1024 * 1024 / RECORD_SIZE);
+        long checkpoint = readCheckpoint(dir);
+        long last = Math.max(checkpoint, minLastSequence);
+        for (Record record : scan(dir, recordsPerSegment, 0)) {
+            last = Math.max(last, record.sequence);
+        }
+        return new PostingJournal(dir, recordsPerSegment, last, checkpoint);
+    }
+
+    /**
+     * Records after the checkpoint, in sequence order: what MySQL may not have yet. A transfer
+     * leg whose other leg was never written is left out, as the transfer was never acknowledged.
+     */
+    List<Record> readAfterCheckpoint() throws IOException {
+        List<Record> records = scan(dir, recordsPerSegment, checkpoint);
+        Map<Long, Record> bySequence = new HashMap<>();
+        for (Record record : records) {
+            bySequence.put(record.sequence, record);
+        }
+        List<Record> complete = new ArrayList<>(records.size());
+        for (Record record : records) {
+            if (record.type == TRANSFER) {
+                // Debits are stored negative and followed by their credit
+                long partner = record.amountCents < 0 ? record.sequence + 1 : record.sequence - 1;
+                Record other = bySequence.get(partner);
+                boolean before = partner <= checkpoint; // already applied with the checkpoint
+                if (!before && (other == null || other.type != TRANSFER || other.amountCents != -record.amountCents)) {
+                    continue;
+                }
+            }
+            complete.add(record);
+        }
+        return complete;
+    }
+
+    /** Name of a record type as stored in transactions.transaction_type. */
+    static String typeName(byte type) {
+        switch (type) {
+            case DEPOSIT: return "DEPOSIT";
+            case WITHDRAWAL: return "WITHDRAWAL";
+            case TRANSFER: return "TRANSFER";
+            default: return "BALANCE";
+        }
+    }
+
+    /**
+     * Writes one record and returns its sequence number. Not durable until awaitDurable()
+     * returns for it. Records of one account must be appended in order, under its lock.
+     */
+    long append(int accountId, byte type, long amountCents, String description, long time) throws IOException {
+        long sequence = lastSequence.incrementAndGet();
+        write(segmentFor(sequence), sequence, accountId, type, amountCents, description, time);
+        return sequence;
+    }
+
+    /**
+     * Writes both legs of a transfer under consecutive sequence numbers and returns the
+     * debit's; the credit's is the next one. Either both are written or, on IOException, neither.
+     */
+    long appendTransfer(int fromAccountId, int toAccountId, long cents, String debitDescription,
+                        String creditDescription, long time) throws IOException {
+        long debit = lastSequence.addAndGet(2) - 1;
+        // Both slots are mapped before either is written, so a segment that cannot be created fails the pair
+        Segment debitSegment = segmentFor(debit);
+        Segment creditSegment = segmentFor(debit + 1);
+        write(debitSegment, debit, fromAccountId, TRANSFER, -cents, debitDescription, time);
+        write(creditSegment, debit + 1, toAccountId, TRANSFER, cents, creditDescription, time);
+        return debit;
+    }
+
+    private void write(Segment segment, long sequence, int accountId, byte type, long amountCents,
+                       String description, long time) {
+        int offset = (int) (((sequence - 1) % recordsPerSegment) * RECORD_SIZE);
+
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer buf = ByteBuffer.wrap(record);
+        byte[] text = truncate(description);
+        buf.putLong(sequence).putLong(time).putInt(accountId).put(type).put((byte) 0)
+           .putShort((short) text.length).putLong(amountCents).put(text);
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, RECORD_SIZE - 4);
+        buf.putInt(RECORD_SIZE - 4, (int) crc.getValue());
+
+        // A duplicate has its own position, so concurrent appenders never share buffer state
+        ByteBuffer slot = segment.buffer.duplicate();
+        slot.position(offset);
+        slot.put(record);
+    }
+
+    /** Returns once every record this thread has appended is on disk. */
+    void awaitDurable() throws IOException {
+        long generation;
+        synchronized (syncLock) {
+            // Our records are written, so the next force to start covers them
+            generation = requestGeneration;
+        }
+        while (true) {
+            long covering;
+            synchronized (syncLock) {
+                while (syncing && syncedGeneration < generation) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for the journal");
+                    }
+                }
+                if (syncedGeneration >= generation) {
+                    return;
+                }
+                syncing = true;
+                covering = requestGeneration++;
+            }
+
+            // Forced without the lock, so the next group can gather behind this one
+            IOException failure = null;
+            try {
+                forceUnlocked();
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException("Journal force failed", e);
+            }
+            synchronized (syncLock) {
+                syncing = false;
+                if (failure == null) {
+                    syncedGeneration = Math.max(syncedGeneration, covering);
+                }
+                syncLock.notifyAll();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    long getCheckpoint() {
+        return checkpoint;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /** Everything up to sequence is in MySQL: remember that and drop the segments it covers. */
+    synchronized void checkpoint(long sequence) throws IOException {
+        if (sequence <= checkpoint) {
+            return;
+        }
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = sequence;
+
+        // Keep the segment the next record goes to, even when everything before it is checkpointed
+        long keepFrom = Math.min(sequence, lastSequence.get()) / recordsPerSegment;
+        for (Map.Entry<Long, Segment> entry : new ArrayList<>(segments.headMap(keepFrom).entrySet())) {
+            segments.remove(entry.getKey());
+            Files.deleteIfExists(entry.getValue().path);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path file : files) {
+                long index = segmentIndex(file);
+                if (index >= 0 && index < keepFrom && !segments.containsKey(index)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    void close() throws IOException {
+        forceUnlocked();
+        segments.clear();
+    }
+
+    private void forceUnlocked() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    private Segment segmentFor(long sequence) throws IOException {
+        long index = (sequence - 1) / recordsPerSegment;
+        Segment segment = segments.get(index);
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (segments) {
+            segment = segments.get(index);
+            if (segment == null) {
+                Path path = segmentPath(dir, index);
+                boolean created = !Files.exists(path);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                            StandardOpenOption.WRITE)) {
+                    // The mapping stays valid after the channel is closed
+                    segment = new Segment(index, path, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                                   recordsPerSegment * RECORD_SIZE));
+                }
+                if (created) {
+                    forceDirectory(dir);
+                }
+                segments.put(index, segment);
+            }
+            return segment;
+        }
+    }
+
+    private static List<Record> scan(Path dir, long recordsPerSegment, long afterSequence) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path file : stream) {
+                long index = segmentIndex(file);
+                if (index >= 0) files.put(index, file);
+            }
+        }
+        List<Record> records = new ArrayList<>();
+        byte[] record = new byte[RECORD_SIZE];
+        CRC32 crc = new CRC32();
+        for (Map.Entry<Long, Path> entry : files.entrySet()) {
+            long firstSequence = entry.getKey() * recordsPerSegment + 1;
+            if (firstSequence + recordsPerSegment - 1 <= afterSequence) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.READ)) {
+                long slots = Math.min(recordsPerSegment, channel.size() / RECORD_SIZE);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, slots * RECORD_SIZE);
+                for (long slot = 0; slot < slots; slot++) {
+                    buffer.get(record);
+                    crc.reset();
+                    crc.update(record, 0, RECORD_SIZE - 4);
+                    ByteBuffer buf = ByteBuffer.wrap(record);
+                    long sequence = buf.getLong(0);
+                    // Unwritten or torn slots fail here; so would a record found in the wrong slot
+                    if ((int) crc.getValue() != buf.getInt(RECORD_SIZE - 4) || sequence != firstSequence + slot) {
+                        continue;
+                    }
+                    if (sequence <= afterSequence) {
+                        continue;
+                    }
+                    int length = Math.min(buf.getShort(22), MAX_DESCRIPTION_BYTES);
+                    String description = length <= 0 ? null : new String(record, 32, length, StandardCharsets.UTF_8);
+                    records.add(new Record(sequence, buf.getLong(8), buf.getInt(16), buf.get(20), buf.getLong(24), description));
+                }
+            }
+        }
+        return records;
+    }
+
+    // UTF-8, cut at a character boundary so the stored text still decodes
+    private static byte[] truncate(String description) {
+        if (description == null) {
+            return new byte[0];
+        }
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_DESCRIPTION_BYTES) {
+            return bytes;
+        }
+        int length = MAX_DESCRIPTION_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] cut = new byte[length];
+        System.arraycopy(bytes, 0, cut, 0, length);
+        return cut;
+    }
+
+    private static long readCheckpoint(Path dir) throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        String text = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+        try {
+            return text.isEmpty() ? 0 : Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Unreadable journal checkpoint in " + file + ": " + text);
+        }
+    }
+
+    private static Path segmentPath(Path dir, long index) {
+        return dir.resolve(String.format("journal-%012d.log", index));
+    }
+
+    private static long segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    // So a crash right after creating a segment does not lose the file itself (Linux; elsewhere a no-op)
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on this platform
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package dao;
+
+import model.Account;
+import model.AccountTypeSummary;
+import model.DailyVolume;
+import model.Money;
+import util.DatabaseConnection;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management reports. Totals come from the summary tables that every posting keeps up to
+ * date (see SummaryUpdater), never from a GROUP BY over transactions.
+ */
+public class ReportDAO {
+
+    // Account count and balance per account type and status
+    public List<AccountTypeSummary> getAccountTypeSummary() {
+        List<AccountTypeSummary> summaries = new ArrayList<>();
+        String sql = "SELECT account_type, status, SUM(account_count) AS account_count, " +
+                     "SUM(total_balance) AS total_balance " +
+                     "FROM account_type_summary GROUP BY account_type, status " +
+                     "HAVING SUM(account_count) <> 0 OR SUM(total_balance) <> 0 " +
+                     "ORDER BY account_type, status";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                summaries.add(new AccountTypeSummary(
+                    rs.getString("account_type"),
+                    rs.getString("status"),
+                    rs.getLong("account_count"),
+                    Money.of(rs.getBigDecimal("total_balance"))));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error loading account type summary: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return summaries;
+    }
+
+    // Deposit and withdrawal volume per day, newest first, for the inclusive date range
+    public List<DailyVolume> getDailyVolume(LocalDate from, LocalDate to) {
+        Map<Date, DailyVolume> days = new LinkedHashMap<>();
+        String sql = "SELECT summary_date, transaction_type, SUM(transaction_count) AS transaction_count, " +
+                     "SUM(total_amount) AS total_amount " +
+                     "FROM daily_transaction_summary WHERE summary_date BETWEEN ? AND ? " +
+                     "GROUP BY summary_date, transaction_type ORDER BY summary_date DESC";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Date date = rs.getDate("summary_date");
+                    DailyVolume volume = days.computeIfAbsent(date, DailyVolume::new);
+                    String type = rs.getString("transaction_type");
+                    if ("DEPOSIT".equals(type)) {
+                        volume.setDepositCount(volume.getDepositCount() + rs.getLong("transaction_count"));
+                        volume.setDepositTotal(volume.getDepositTotal().add(Money.of(rs.getBigDecimal("total_amount"))));
+                    } else if ("WITHDRAWAL".equals(type)) {
+                        volume.setWithdrawalCount(volume.getWithdrawalCount() + rs.getLong("transaction_count"));
+                        volume.setWithdrawalTotal(volume.getWithdrawalTotal().add(Money.of(rs.getBigDecimal("total_amount"))));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error loading daily volume: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>(days.values());
+    }
+
+    // The limit accounts with the highest balance, with their customer's name
+    public List<Account> getTopAccountsByBalance(int limit) {
+        List<Account> accounts = new ArrayList<>();
+        // Reads limit rows off an index on accounts(balance) rather than sorting the table
+        String sql = "SELECT a.account_id, a.account_number, a.customer_id, a.account_type, a.balance, a.status, " +
+                     "a.date_created, c.first_name, c.last_name " +
+                     "FROM accounts a LEFT JOIN customers c ON a.customer_id = c.customer_id " +
+                     "ORDER BY a.balance DESC LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Account account = new Account();
+                    account.setAccountId(rs.getInt("account_id"));
+                    account.setAccountNumber(rs.getString("account_number"));
+                    account.setCustomerId(rs.getInt("customer_id"));
+                    account.setAccountType(rs.getString("account_type"));
+                    account.setBalance(Money.of(rs.getBigDecimal("balance")));
+                    account.setStatus(rs.getString("status"));
+                    account.setDateCreated(rs.getTimestamp("date_created"));
+                    if (rs.getString("first_name") != null) {
+                        account.setCustomerName(rs.getString("first_name") + " " + rs.getString("last_name"));
+                    }
+                    accounts.add(account);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error loading top accounts: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return accounts;
+    }
+
+    /**
+     * Rebuilds both summary tables from accounts and the full transaction history.
+     * Use it once after creating the tables and whenever the summaries are suspected to be
+     * off (e.g. rows changed by hand in SQL). Runs as one transaction; the summary rows it
+     * deletes stay locked until it commits, so postings made meanwhile wait and then add
+     * their change on top of the rebuilt totals.
+     */
+    public boolean rebuildSummaries() {
+        return rebuild(null, null);
+    }
+
+    // Backfills daily_transaction_summary for the inclusive date range only
+    public boolean rebuildDailySummary(LocalDate from, LocalDate to) {
+        return rebuild(from, to);
+    }
+
+    private boolean rebuild(LocalDate from, LocalDate to) {
+        boolean fullRebuild = from == null;
+        long start = System.currentTimeMillis();
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+                if (fullRebuild) {
+                    stmt.executeUpdate("DELETE FROM account_type_summary");
+                    stmt.executeUpdate(
+                        "INSERT INTO account_type_summary (account_type, status, slot, account_count, total_balance) " +
+                        "SELECT account_type, status, 0, COUNT(*), COALESCE(SUM(balance), 0) " +
+                        "FROM accounts GROUP BY account_type, status");
+                    stmt.executeUpdate("DELETE FROM daily_transaction_summary");
+                }
+            }
+
+            String where = fullRebuild ? "" : " WHERE t.transaction_date >= ? AND t.transaction_date < ?";
+            if (!fullRebuild) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "DELETE FROM daily_transaction_summary WHERE summary_date BETWEEN ? AND ?")) {
+                    pstmt.setDate(1, Date.valueOf(from));
+                    pstmt.setDate(2, Date.valueOf(to));
+                    pstmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO daily_transaction_summary " +
+                    "(summary_date, account_type, transaction_type, slot, transaction_count, total_amount) " +
+                    "SELECT CAST(t.transaction_date AS DATE), a.account_type, t.transaction_type, 0, COUNT(*), SUM(t.amount) " +
+                    "FROM transactions t JOIN accounts a ON t.account_id = a.account_id" + where +
+                    " GROUP BY CAST(t.transaction_date AS DATE), a.account_type, t.transaction_type")) {
+                if (!fullRebuild) {
+                    pstmt.setDate(1, Date.valueOf(from));
+                    pstmt.setDate(2, Date.valueOf(to.plusDays(1)));
+                }
+                pstmt.executeUpdate();
+            }
+
+            conn.commit();
+            System.out.println("Report summaries rebuilt" + (fullRebuild ? "" : " for " + from + " to " + to) +
+                               " in " + (System.currentTimeMillis() - start) + " ms");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding report summaries: " + e.getMessage());
+            e.printStackTrace();
+            AccountDAO.rollbackQuietly(conn);
+            return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
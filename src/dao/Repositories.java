@@ -0,0 +1,82 @@
+package dao;
+
+import util.AppConfig;
+
+/**
+ * The storage backend the application runs on, chosen with -Dbanking.storage:
+ *
+ *   jdbc    (default) MySQL through DatabaseConnection: AccountDAO, CustomerDAO, ...
+ *   memory  InMemoryAccountRepository / InMemoryCustomerRepository, nothing survives a restart
+ *   writebehind  MySQL, but balances are kept and posted in memory and written behind by
+ *           WriteBehindAccountRepository; customers and everything else as with jdbc
+ *
+ * With jdbc, -Dbanking.groupCommit.enabled=true puts GroupCommitAccountRepository in front
+ * of AccountDAO, so concurrent single postings share DB transactions and commits.
+ *
+ * Callers get their repositories here instead of constructing DAOs, so the same code runs
+ * on either backend. The in-memory backend covers customers, accounts, postings and account
+ * numbers; transaction history, statements, reports and imports are JDBC only.
+ */
+public final class Repositories {
+    private static final String STORAGE = AppConfig.getString("banking.storage", "jdbc").trim().toLowerCase();
+    private static final boolean GROUP_COMMIT = AppConfig.getBoolean("banking.groupCommit.enabled", false);
+
+    private static AccountRepository accounts;
+    private static CustomerRepository customers;
+    private static AccountNumberSequence accountNumberSequence;
+
+    static {
+        if (!STORAGE.equals("jdbc") && !STORAGE.equals("memory") && !STORAGE.equals("writebehind")) {
+            System.err.println("Unknown banking.storage '" + STORAGE + "', using jdbc");
+        }
+        System.out.println("Storage backend: " + (isInMemory() ? "in-memory" : isWriteBehind() ? "jdbc, write-behind balances" : "jdbc"));
+    }
+
+    private Repositories() {}
+
+    public static boolean isInMemory() {
+        return STORAGE.equals("memory");
+    }
+
+    public static boolean isWriteBehind() {
+        return STORAGE.equals("writebehind");
+    }
+
+    public static synchronized AccountRepository accounts() {
+        if (accounts == null) {
+            if (isInMemory()) {
+                accounts = new InMemoryAccountRepository((InMemoryCustomerRepository) customers());
+            } else if (isWriteBehind()) {
+                accounts = new WriteBehindAccountRepository(new AccountDAO());
+            } else if (GROUP_COMMIT) {
+                accounts = new GroupCommitAccountRepository(new AccountDAO());
+            } else {
+                accounts = new AccountDAO();
+            }
+        }
+        return accounts;
+    }
+
+    /** Writes out anything the account repository still holds; call before closing the connection pool. */
+    public static synchronized void shutdown() {
+        if (accounts instanceof WriteBehindAccountRepository) {
+            ((WriteBehindAccountRepository) accounts).close();
+        } else if (accounts instanceof GroupCommitAccountRepository) {
+            ((GroupCommitAccountRepository) accounts).close();
+        }
+    }
+
+    public static synchronized CustomerRepository customers() {
+        if (customers == null) {
+            customers = isInMemory() ? new InMemoryCustomerRepository() : new CustomerDAO();
+        }
+        return customers;
+    }
+
+    public static synchronized AccountNumberSequence accountNumberSequence() {
+        if (accountNumberSequence == null) {
+            accountNumberSequence = isInMemory() ? new InMemoryAccountNumberSequence() : new AccountNumberSequenceDAO();
+        }
+        return accountNumberSequence;
+    }
+}
@@ -0,0 +1,98 @@
+package dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import util.AppConfig;
+
+/**
+ * Collects the report summary changes of one DB transaction and writes them with it.
+ *
+ * Postings add to daily_transaction_summary (per day, account type and transaction type)
+ * and account_type_summary (per account type and status), so reports never scan the
+ * transactions or accounts tables. Each summary key is spread over SUMMARY_SLOTS rows and a
+ * transaction picks one slot at random: otherwise every posting in the bank would queue on
+ * the same handful of counter rows. Readers SUM over the slots. Keys are written in sorted
+ * order so two transactions never take the summary row locks in opposite orders.
+ */
+class SummaryUpdater {
+    static final int SUMMARY_SLOTS = Math.max(1, AppConfig.getInt("banking.reports.summarySlots", 8));
+
+    private static final String DAILY_SQL =
+        "INSERT INTO daily_transaction_summary " +
+        "(summary_date, account_type, transaction_type, slot, transaction_count, total_amount) " +
+        "VALUES (CURRENT_DATE, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE transaction_count = transaction_count + VALUES(transaction_count), " +
+        "total_amount = total_amount + VALUES(total_amount)";
+
+    private static final String ACCOUNT_TYPE_SQL =
+        "INSERT INTO account_type_summary (account_type, status, slot, account_count, total_balance) " +
+        "VALUES (?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE account_count = account_count + VALUES(account_count), " +
+        "total_balance = total_balance + VALUES(total_balance)";
+
+    // key "accountType|transactionType" -> {count, amount in cents}
+    private final Map<String, long[]> daily = new TreeMap<>();
+    // key "accountType|status" -> {accounts, balance in cents}
+    private final Map<String, long[]> accountTypes = new TreeMap<>();
+
+    void addTransaction(String accountType, String transactionType, long amountCents) {
+        long[] totals = daily.computeIfAbsent(accountType + "|" + transactionType, k -> new long[2]);
+        totals[0]++;
+        totals[1] += amountCents;
+    }
+
+    void addBalance(String accountType, String status, int accountDelta, long balanceDeltaCents) {
+        long[] totals = accountTypes.computeIfAbsent(accountType + "|" + status, k -> new long[2]);
+        totals[0] += accountDelta;
+        totals[1] += balanceDeltaCents;
+    }
+
+    boolean isEmpty() {
+        return daily.isEmpty() && accountTypes.isEmpty();
+    }
+
+    /** Writes everything collected so far on the caller's connection and starts over. */
+    void flush(Connection conn) throws SQLException {
+        if (isEmpty()) return;
+        int slot = ThreadLocalRandom.current().nextInt(SUMMARY_SLOTS);
+
+        if (!daily.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(DAILY_SQL)) {
+                for (Map.Entry<String, long[]> entry : daily.entrySet()) {
+                    String[] key = entry.getKey().split("\\|");
+                    pstmt.setString(1, key[0]);
+                    pstmt.setString(2, key[1]);
+                    pstmt.setInt(3, slot);
+                    pstmt.setLong(4, entry.getValue()[0]);
+                    pstmt.setBigDecimal(5, BigDecimal.valueOf(entry.getValue()[1], 2));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+
+        if (!accountTypes.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(ACCOUNT_TYPE_SQL)) {
+                for (Map.Entry<String, long[]> entry : accountTypes.entrySet()) {
+                    String[] key = entry.getKey().split("\\|");
+                    pstmt.setString(1, key[0]);
+                    pstmt.setString(2, key[1]);
+                    pstmt.setInt(3, slot);
+                    pstmt.setLong(4, entry.getValue()[0]);
+                    pstmt.setBigDecimal(5, BigDecimal.valueOf(entry.getValue()[1], 2));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+
+        daily.clear();
+        accountTypes.clear();
+    }
+}
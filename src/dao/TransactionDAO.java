@@ -0,0 +1,67 @@
+package dao;
+
+import model.Money;
+import model.Transaction;
+import util.DatabaseConnection;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionDAO {
+
+    /**
+     * One page of an account's ledger in [from, to), ordered by (transaction_date, transaction_id).
+     * Keyset pagination: pass null/0 for the first page, then the date and id of the last row
+     * you received, so every page is an index range read no matter how deep into the history.
+     */
+    public List<Transaction> getTransactionsPage(int accountId, Timestamp from, Timestamp to,
+                                                 Timestamp afterDate, int afterId, int limit) {
+        List<Transaction> transactions = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+            "SELECT transaction_id, account_id, transaction_type, amount, description, transaction_date " +
+            "FROM transactions WHERE account_id = ? AND transaction_date >= ? AND transaction_date < ?");
+        if (afterDate != null) {
+            sql.append(" AND (transaction_date > ? OR (transaction_date = ? AND transaction_id > ?))");
+        }
+        sql.append(" ORDER BY transaction_date, transaction_id LIMIT ?");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            pstmt.setInt(index++, accountId);
+            pstmt.setTimestamp(index++, from);
+            pstmt.setTimestamp(index++, to);
+            if (afterDate != null) {
+                pstmt.setTimestamp(index++, afterDate);
+                pstmt.setTimestamp(index++, afterDate);
+                pstmt.setInt(index++, afterId);
+            }
+            pstmt.setInt(index, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapTransaction(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting transactions page: " + e.getMessage());
+            e.printStackTrace();
+            return null; // lets callers tell a failed read from the end of the ledger
+        }
+
+        return transactions;
+    }
+
+    private static Transaction mapTransaction(ResultSet rs) throws SQLException {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(rs.getInt("transaction_id"));
+        transaction.setAccountId(rs.getInt("account_id"));
+        transaction.setTransactionType(rs.getString("transaction_type"));
+        transaction.setAmount(Money.of(rs.getBigDecimal("amount")));
+        transaction.setDescription(rs.getString("description"));
+        transaction.setTransactionDate(rs.getTimestamp("transaction_date"));
+        return transaction;
+    }
+}
@@ -0,0 +1,1086 @@
+package dao;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import model.Account;
+import model.BulkPostingResult;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.TransferResult;
+import util.AccountNumbers;
+import util.AppConfig;
+import util.DatabaseConnection;
+
+/**
+ * Balances held in memory in front of AccountDAO (banking.storage=writebehind), for channels
+ * whose volume one synchronous JDBC round trip per posting cannot keep up with.
+ *
+ * An account is read from MySQL the first time it is touched; from then on its balance lives
+ * here. A posting or transfer locks the account's stripe (account id modulo
+ * banking.ledger.lockStripes) instead of a row, checks and changes the balance in memory and
+ * queues the ledger row, so postings to different accounts rarely share a lock and none waits
+ * on the database. Transfers lock both stripes, lower stripe first.
+ *
+ * A flusher thread writes the queue every banking.ledger.flushIntervalMs: every ledger row,
+ * but a single balance UPDATE per account however many postings it had, plus the report
+ * summaries, in one DB transaction per banking.ledger.flushBatchSize accounts. A transaction
+ * that fails on a lost connection or a lock conflict leaves its changes queued for the next
+ * round. Any other failure, most likely a constraint or data error in one account's rows, has
+ * the batch written again one account per transaction; an account whose rows still fail is set
+ * aside, so it cannot hold back the others. Postings to it are refused and its rows retried
+ * every banking.ledger.setAsideRetryMs until they go in. Once
+ * banking.ledger.maxPendingRows rows are waiting, posting threads wait for the flusher, which
+ * bounds how far MySQL falls behind; a posting that has waited banking.ledger.maxWaitMs fails
+ * (FAILED, nothing applied), so a database outage fails postings instead of hanging every
+ * teller and request thread. close(), also run by a shutdown hook, flushes whatever is still
+ * queued.
+ *
+ * Unless banking.journal.enabled=false, every change is also appended to a PostingJournal
+ * (banking.journal.dir) and the posting is only acknowledged once its record is on disk, so
+ * a crash loses nothing that was acknowledged: on the next start the records MySQL does not
+ * have yet (accounts.journal_seq is below them) are replayed before anything else runs.
+ * After each flush the journal is checkpointed up to the oldest change still queued or set
+ * aside, and segments before that are deleted. Without the journal a crash, as opposed to a normal
+ * exit, loses whatever was not flushed yet.
+ *
+ * If a journal sync fails, the postings waiting on it are already applied and queued, so they
+ * are reported as NOT_DURABLE rather than failed: they reach MySQL with the next flush, and
+ * retrying them would post them twice. From then on new postings are refused (FAILED, nothing
+ * applied) until the application is restarted, as the journal can no longer be trusted.
+ *
+ * This process must be the only writer of these balances: postings made directly against
+ * MySQL (a teller GUI, a second instance) would be overwritten. Ledger rows get their ids
+ * when they are written, so results report transaction id 0; the rows keep the time of the
+ * posting.
+ */
+public class WriteBehindAccountRepository implements AccountRepository {
+    private static final int LOCK_STRIPES = AppConfig.getInt("banking.ledger.lockStripes", 4096);
+    private static final long FLUSH_INTERVAL_MS = Math.max(1, AppConfig.getLong("banking.ledger.flushIntervalMs", 100));
+    private static final int FLUSH_BATCH_SIZE = Math.max(1, AppConfig.getInt("banking.ledger.flushBatchSize", 1000));
+    private static final long MAX_PENDING_ROWS = Math.max(1, AppConfig.getLong("banking.ledger.maxPendingRows", 100000));
+    private static final long MAX_WAIT_MS = Math.max(1, AppConfig.getLong("banking.ledger.maxWaitMs", 10000));
+    private static final long SET_ASIDE_RETRY_MS = Math.max(1, AppConfig.getLong("banking.ledger.setAsideRetryMs", 60000));
+    private static final int CLOSE_FLUSH_ATTEMPTS = 3;
+    private static final int REPLAY_CHUNK_SIZE = 1000;
+
+    private static final boolean JOURNAL_ENABLED = AppConfig.getBoolean("banking.journal.enabled", true);
+    private static final String JOURNAL_DIR = AppConfig.getString("banking.journal.dir", "journal");
+    private static final int JOURNAL_SEGMENT_MB = Math.max(1, AppConfig.getInt("banking.journal.segmentSizeMb", 64));
+
+    private static final String JOURNAL_FAILED_MESSAGE = "The posting journal cannot be synced; postings are refused until restart";
+    private static final String SET_ASIDE_MESSAGE = "The account's ledger rows cannot be written to the database; postings to it are refused until they are";
+
+    private static final String INSERT_LEDGER_SQL =
+        "INSERT INTO transactions (account_id, transaction_type, amount, description, transaction_date) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_BALANCE_SQL = "UPDATE accounts SET balance = ?, journal_seq = ? WHERE account_id = ?";
+
+    private final AccountDAO accountDAO;
+    private final PostingJournal journal; // null when disabled
+    private final ReentrantLock[] stripes;
+    private final ConcurrentHashMap<String, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<LedgerAccount> dirty = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+    // Accounts whose rows failed on their own; not in dirty, retried by retrySetAside()
+    private final Set<LedgerAccount> setAside = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile long lastSetAsideRetry = 0;
+    private final AtomicLong pendingRows = new AtomicLong();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile long lastFlushAt = System.currentTimeMillis();
+
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final Object capacity = new Object();
+    private final Thread shutdownHook;
+    private volatile boolean closed = false;
+    // Set by the first failed journal sync; postings are refused from then on
+    private volatile boolean journalFailed = false;
+
+    // One account as this process sees it; all but the final fields are guarded by its stripe lock
+    private static class LedgerAccount {
+        final Account account;      // as loaded; only the balance changes here
+        long balanceCents;
+        long persistedCents;        // what MySQL holds, for the summary delta; guarded by flushLock
+        List<LedgerRow> pending = new ArrayList<>();
+        boolean queued;
+        boolean setAside;           // its rows could not be written; no postings until they are
+        long lastSequence;          // journal record of the latest change (0 without a journal)
+        volatile long firstPendingSequence; // journal record of the oldest unflushed change, or 0
+
+        LedgerAccount(Account account, long journalSequence) {
+            this.account = account;
+            this.balanceCents = account.getBalance().getCents();
+            this.persistedCents = balanceCents;
+            this.lastSequence = journalSequence;
+        }
+    }
+
+    // A ledger row waiting to be written; amountCents is the amount as stored (transfer legs signed)
+    private static class LedgerRow {
+        final String transactionType;
+        final long amountCents;
+        final String description;
+        final Timestamp date;
+
+        LedgerRow(String transactionType, long amountCents, String description) {
+            this.transactionType = transactionType;
+            this.amountCents = amountCents;
+            this.description = description;
+            this.date = new Timestamp(System.currentTimeMillis());
+        }
+    }
+
+    // What one flush takes from an account
+    private static class Snapshot {
+        final LedgerAccount ledgerAccount;
+        final long balanceCents;
+        final List<LedgerRow> rows;
+        final long firstSequence;
+        final long lastSequence;
+
+        Snapshot(LedgerAccount ledgerAccount) {
+            this.ledgerAccount = ledgerAccount;
+            this.balanceCents = ledgerAccount.balanceCents;
+            this.rows = ledgerAccount.pending;
+            this.firstSequence = ledgerAccount.firstPendingSequence;
+            this.lastSequence = ledgerAccount.lastSequence;
+        }
+    }
+
+    /**
+     * Opens the journal and replays what MySQL is missing from it before taking any posting.
+     * Throws IllegalStateException if either fails: running on without them could lose
+     * acknowledged postings.
+     */
+    public WriteBehindAccountRepository(AccountDAO accountDAO) {
+        this.accountDAO = accountDAO;
+        if (JOURNAL_ENABLED) {
+            try {
+                journal = PostingJournal.open(Paths.get(JOURNAL_DIR), JOURNAL_SEGMENT_MB, highestAppliedSequence());
+                List<PostingJournal.Record> records = journal.readAfterCheckpoint();
+                if (!records.isEmpty()) {
+                    replay(records);
+                }
+                journal.checkpoint(journal.getLastSequence());
+            } catch (IOException | SQLException e) {
+                throw new IllegalStateException("Posting journal in " + JOURNAL_DIR + " could not be opened or replayed", e);
+            }
+        } else {
+            journal = null;
+        }
+        // A power of two, so picking the stripe is a mask
+        int count = 1;
+        while (count < LOCK_STRIPES && count < (1 << 20)) {
+            count <<= 1;
+        }
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ledger-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(this::close, "ledger-flush-on-exit");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        System.out.println("Write-behind ledger started (" + count + " lock stripes, flush every " +
+                           FLUSH_INTERVAL_MS + " ms, at most " + MAX_PENDING_ROWS + " rows pending, " +
+                           (journal != null ? "journal in " + JOURNAL_DIR : "no journal") + ")");
+    }
+
+    @Override
+    public boolean createAccount(Account account) {
+        return accountDAO.createAccount(account);
+    }
+
+    @Override
+    public Account getAccountByNumber(String accountNumber) {
+        LedgerAccount ledgerAccount = load(accountNumber);
+        return ledgerAccount == null ? null : snapshot(ledgerAccount);
+    }
+
+    // No ledger row, as with AccountDAO; the summary picks up the change at the next flush
+    @Override
+    public boolean updateBalance(String accountNumber, Money newBalance) {
+        LedgerAccount ledgerAccount = load(accountNumber);
+        if (ledgerAccount == null || newBalance == null) {
+            return false;
+        }
+        ReentrantLock lock = stripe(ledgerAccount);
+        lock.lock();
+        try {
+            if (closed || journalFailed || ledgerAccount.setAside) {
+                return false;
+            }
+            journal(ledgerAccount, PostingJournal.BALANCE, newBalance.getCents(), null);
+            ledgerAccount.balanceCents = newBalance.getCents();
+            markDirty(ledgerAccount);
+        } catch (IOException e) {
+            System.err.println("Balance not updated, journal write failed: " + e.getMessage());
+            return false;
+        } finally {
+            lock.unlock();
+        }
+        // Set either way: reporting false for a balance that did change would be wrong
+        awaitJournal();
+        return true;
+    }
+
+    @Override
+    public PostingResult post(Posting posting) {
+        PostingResult result = apply(posting, capacityDeadline());
+        if (result.isSuccess()) {
+            String failure = awaitJournal();
+            if (failure != null) {
+                return PostingResult.notDurable(result, failure);
+            }
+        }
+        return result;
+    }
+
+    // Checks and changes the balance and queues the ledger row; durable once awaitJournal() returns
+    private PostingResult apply(Posting posting, long capacityDeadline) {
+        if (!AccountDAO.isValidPosting(posting)) {
+            return PostingResult.failure(PostingResult.Status.INVALID_REQUEST,
+                posting == null ? null : posting.getAccountNumber(), "Invalid posting request");
+        }
+        String accountNumber = posting.getAccountNumber();
+        LedgerAccount ledgerAccount = load(accountNumber);
+        if (ledgerAccount == null) {
+            return PostingResult.failure(PostingResult.Status.ACCOUNT_NOT_FOUND, accountNumber,
+                                         "Account not found: " + accountNumber);
+        }
+        String full = awaitCapacity(capacityDeadline);
+        if (full != null) {
+            return PostingResult.failure(PostingResult.Status.FAILED, accountNumber, full);
+        }
+
+        long previous;
+        long balance;
+        ReentrantLock lock = stripe(ledgerAccount);
+        lock.lock();
+        try {
+            if (closed) {
+                return PostingResult.failure(PostingResult.Status.FAILED, accountNumber, "Ledger is shut down");
+            }
+            if (journalFailed) {
+                return PostingResult.failure(PostingResult.Status.FAILED, accountNumber, JOURNAL_FAILED_MESSAGE);
+            }
+            if (ledgerAccount.setAside) {
+                return PostingResult.failure(PostingResult.Status.FAILED, accountNumber, SET_ASIDE_MESSAGE);
+            }
+            previous = ledgerAccount.balanceCents;
+            try {
+                balance = Math.addExact(previous, AccountDAO.signedCents(posting));
+            } catch (ArithmeticException e) {
+                return PostingResult.failure(PostingResult.Status.INVALID_REQUEST, accountNumber, "Balance out of range");
+            }
+            if (balance < 0) {
+                return PostingResult.insufficientFunds(accountNumber, Money.ofCents(previous));
+            }
+            LedgerRow row = new LedgerRow(posting.getTransactionType(), posting.getAmount().getCents(),
+                                          posting.getDescription());
+            journal(ledgerAccount, posting.isDeposit() ? PostingJournal.DEPOSIT : PostingJournal.WITHDRAWAL, row);
+            ledgerAccount.balanceCents = balance;
+            append(ledgerAccount, row);
+        } catch (IOException e) {
+            return PostingResult.failure(PostingResult.Status.FAILED, accountNumber, "Journal write failed: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+        return PostingResult.success(accountNumber, Money.ofCents(previous), Money.ofCents(balance), 0);
+    }
+
+    @Override
+    public TransferResult transfer(String fromAccountNumber, String toAccountNumber, Money amount, String description) {
+        if (!AccountNumbers.isPlausible(fromAccountNumber) || !AccountNumbers.isPlausible(toAccountNumber) ||
+            fromAccountNumber.equals(toAccountNumber) || amount == null || !amount.isPositive()) {
+            return TransferResult.failure(PostingResult.Status.INVALID_REQUEST, fromAccountNumber, toAccountNumber,
+                                          amount, "Invalid transfer request", 0);
+        }
+        LedgerAccount from = load(fromAccountNumber);
+        LedgerAccount to = load(toAccountNumber);
+        if (from == null || to == null) {
+            return TransferResult.failure(PostingResult.Status.ACCOUNT_NOT_FOUND, fromAccountNumber, toAccountNumber,
+                                          amount, "Account not found: " + (from == null ? fromAccountNumber : toAccountNumber), 1);
+        }
+        String full = awaitCapacity(capacityDeadline());
+        if (full != null) {
+            return TransferResult.failure(PostingResult.Status.FAILED, fromAccountNumber, toAccountNumber,
+                                          amount, full, 1);
+        }
+
+        // Lower stripe first; two accounts on the same stripe take it once
+        int fromStripe = stripeIndex(from);
+        int toStripe = stripeIndex(to);
+        ReentrantLock first = stripes[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = stripes[Math.max(fromStripe, toStripe)];
+        long cents = amount.getCents();
+        long fromBalance;
+        long toBalance;
+        first.lock();
+        try {
+            second.lock();
+            try {
+                if (closed || journalFailed) {
+                    return TransferResult.failure(PostingResult.Status.FAILED, fromAccountNumber, toAccountNumber,
+                                                  amount, closed ? "Ledger is shut down" : JOURNAL_FAILED_MESSAGE, 1);
+                }
+                if (from.setAside || to.setAside) {
+                    return TransferResult.failure(PostingResult.Status.FAILED, fromAccountNumber, toAccountNumber,
+                                                  amount, SET_ASIDE_MESSAGE + ": " +
+                                                  (from.setAside ? fromAccountNumber : toAccountNumber), 1);
+                }
+                if (from.balanceCents < cents) {
+                    return TransferResult.insufficientFunds(fromAccountNumber, toAccountNumber, amount,
+                                                            Money.ofCents(from.balanceCents), 1);
+                }
+                try {
+                    toBalance = Math.addExact(to.balanceCents, cents);
+                } catch (ArithmeticException e) {
+                    return TransferResult.failure(PostingResult.Status.INVALID_REQUEST, fromAccountNumber, toAccountNumber,
+                                                  amount, "Balance out of range", 1);
+                }
+                fromBalance = from.balanceCents - cents;
+                String details = description == null || description.trim().isEmpty() ? "" : ": " + description.trim();
+                LedgerRow debit = new LedgerRow("TRANSFER", -cents, "Transfer to " + toAccountNumber + details);
+                LedgerRow credit = new LedgerRow("TRANSFER", cents, "Transfer from " + fromAccountNumber + details);
+                if (journal != null) {
+                    long sequence = journal.appendTransfer(from.account.getAccountId(), to.account.getAccountId(), cents,
+                                                           debit.description, credit.description, debit.date.getTime());
+                    journaled(from, sequence);
+                    journaled(to, sequence + 1);
+                }
+                from.balanceCents = fromBalance;
+                to.balanceCents = toBalance;
+                append(from, debit);
+                append(to, credit);
+            } catch (IOException e) {
+                return TransferResult.failure(PostingResult.Status.FAILED, fromAccountNumber, toAccountNumber,
+                                              amount, "Journal write failed: " + e.getMessage(), 1);
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+        TransferResult result = TransferResult.success(fromAccountNumber, toAccountNumber, amount,
+                                                       Money.ofCents(fromBalance), Money.ofCents(toBalance), 0, 0, 1);
+        String failure = awaitJournal();
+        return failure == null ? result : TransferResult.notDurable(result, failure);
+    }
+
+    @Override
+    public BulkPostingResult postAll(Collection<Posting> postings) {
+        return postAll(postings, 0, 0);
+    }
+
+    // Postings only touch memory here and the flusher does the batching; one journal sync covers them
+    // all, and one capacity deadline too, so a database outage cannot make each of them wait in turn
+    @Override
+    public BulkPostingResult postAll(Collection<Posting> postings, int batchSize, int commitInterval) {
+        long start = System.currentTimeMillis();
+        long deadline = capacityDeadline();
+        List<PostingResult> results = new ArrayList<>(postings.size());
+        for (Posting posting : postings) {
+            results.add(apply(posting, deadline));
+        }
+        String failure = awaitJournal();
+        if (failure != null) {
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).isSuccess()) {
+                    results.set(i, PostingResult.notDurable(results.get(i), failure));
+                }
+            }
+        }
+        return new BulkPostingResult(results, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<Account> getAccountsByCustomerId(int customerId) {
+        return withCurrentBalances(accountDAO.getAccountsByCustomerId(customerId));
+    }
+
+    @Override
+    public List<Account> getAccountsPage(int afterAccountId, int pageSize, String status, String accountType) {
+        return withCurrentBalances(accountDAO.getAccountsPage(afterAccountId, pageSize, status, accountType));
+    }
+
+    @Override
+    public int countAccounts(String status, String accountType) {
+        return accountDAO.countAccounts(status, accountType);
+    }
+
+    // Sorted by MySQL, so a balance sort can be off by whatever is not flushed yet
+    @Override
+    public List<Account> getAccountsSorted(int offset, int limit, String status, String accountType,
+                                           String sortColumn, boolean ascending) {
+        return withCurrentBalances(accountDAO.getAccountsSorted(offset, limit, status, accountType, sortColumn, ascending));
+    }
+
+    @Override
+    public boolean verifyAccountExists(String accountNumber) {
+        return (accountNumber != null && accounts.containsKey(accountNumber)) || accountDAO.verifyAccountExists(accountNumber);
+    }
+
+    /**
+     * Writes everything queued so far; false if a DB transaction failed (its changes stay queued)
+     * or an account is set aside.
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            // Only what was queued when the flush started, so a steady stream of postings cannot keep it going
+            int budget = dirtyCount.get();
+            boolean ok = true;
+            while (ok && budget > 0) {
+                int taken = flushBatch(Math.min(budget, FLUSH_BATCH_SIZE));
+                if (taken < 0) {
+                    ok = false;
+                } else if (taken == 0) {
+                    break;
+                } else {
+                    budget -= taken;
+                }
+            }
+            if (ok && !setAside.isEmpty() &&
+                (closed || System.currentTimeMillis() - lastSetAsideRetry >= SET_ASIDE_RETRY_MS)) {
+                retrySetAside();
+            }
+            if (ok && journal != null) {
+                advanceCheckpoint();
+            }
+            synchronized (capacity) {
+                capacity.notifyAll();
+            }
+            return ok && setAside.isEmpty();
+        }
+    }
+
+    /**
+     * Stops taking postings and writes everything still queued. Runs from a shutdown hook too,
+     * so it is safe to call more than once.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // Postings that checked closed before it was set still hold their stripe; wait them out
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+            stripe.unlock();
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (int attempt = 1; attempt <= CLOSE_FLUSH_ATTEMPTS && pendingRows.get() + dirtyCount.get() + setAside.size() > 0; attempt++) {
+            if (!flush() && attempt < CLOSE_FLUSH_ATTEMPTS) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Posting journal close failed: " + e.getMessage());
+            }
+        }
+        if (pendingRows.get() + dirtyCount.get() + setAside.size() > 0) {
+            System.err.println("Write-behind ledger closed with " + pendingRows.get() + " ledger rows and " +
+                               (dirtyCount.get() + setAside.size()) + " balances NOT written to the database" +
+                               (journal != null ? "; they will be replayed from the journal on the next start" : ""));
+        } else {
+            System.out.println("Write-behind ledger flushed and closed (" + flushedRows.sum() + " ledger rows written)");
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; this is the hook running
+        }
+    }
+
+    public long getPendingRows() {
+        return pendingRows.get();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.sum();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.sum();
+    }
+
+    /** Accounts whose ledger rows failed on their own and are refusing postings. */
+    public int getSetAsideAccounts() {
+        return setAside.size();
+    }
+
+    public int getLoadedAccounts() {
+        return accounts.size();
+    }
+
+    /** Last journal record written, or -1 without a journal. */
+    public long getJournalSequence() {
+        return journal == null ? -1 : journal.getLastSequence();
+    }
+
+    /** Journal records up to here are in MySQL; -1 without a journal. */
+    public long getJournalCheckpoint() {
+        return journal == null ? -1 : journal.getCheckpoint();
+    }
+
+    // How far MySQL is behind: time since the last successful flush while anything is queued
+    public long getLagMillis() {
+        return dirtyCount.get() == 0 ? 0 : System.currentTimeMillis() - lastFlushAt;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // A scheduled task that throws is never run again
+            System.err.println("Ledger flush failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Takes up to max accounts off the queue and writes them in one DB transaction; returns how
+    // many were taken, or -1 if writing failed and what was not written was queued again
+    private int flushBatch(int max) {
+        List<Snapshot> batch = new ArrayList<>(max);
+        LedgerAccount next;
+        while (batch.size() < max && (next = dirty.poll()) != null) {
+            dirtyCount.decrementAndGet();
+            ReentrantLock lock = stripe(next);
+            lock.lock();
+            try {
+                next.queued = false;
+                if (!next.setAside) { // else queued just before it was set aside; retrySetAside() writes it
+                    batch.add(take(next));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Connection conn = null;
+        List<Snapshot> unwritten = batch;
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) {
+                throw new SQLException("No database connection", "08001");
+            }
+            conn.setAutoCommit(false);
+            SQLException failure;
+            try {
+                write(conn, batch);
+                return batch.size();
+            } catch (SQLException e) {
+                AccountDAO.rollbackQuietly(conn);
+                if (isTransient(e)) {
+                    throw e;
+                }
+                failure = e;
+            }
+            failedFlushes.increment();
+            if (batch.size() == 1) {
+                setAside(batch.get(0), failure);
+                return 1;
+            }
+
+            // Not a lost connection or a lock conflict, so most likely one account's rows: write the
+            // accounts one by one, so only those that fail on their own are held back
+            System.err.println("Ledger flush of " + batch.size() + " accounts failed, writing them one by one: " +
+                               failure.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    write(conn, Collections.singletonList(batch.get(i)));
+                } catch (SQLException e) {
+                    AccountDAO.rollbackQuietly(conn);
+                    if (isTransient(e)) {
+                        unwritten = batch.subList(i, batch.size());
+                        throw e;
+                    }
+                    setAside(batch.get(i), e);
+                }
+            }
+            return batch.size();
+
+        } catch (SQLException e) {
+            System.err.println("Ledger flush failed, " + unwritten.size() + " accounts stay queued: " + e.getMessage());
+            e.printStackTrace();
+            AccountDAO.rollbackQuietly(conn);
+            requeue(unwritten);
+            failedFlushes.increment();
+            return -1;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Writes the accounts' ledger rows, balances and summaries and commits them
+    private void write(Connection conn, List<Snapshot> snapshots) throws SQLException {
+        int rows = 0;
+        SummaryUpdater summary = new SummaryUpdater();
+        try (PreparedStatement ledger = conn.prepareStatement(INSERT_LEDGER_SQL);
+             PreparedStatement balances = conn.prepareStatement(UPDATE_BALANCE_SQL)) {
+            for (Snapshot snapshot : snapshots) {
+                Account account = snapshot.ledgerAccount.account;
+                for (LedgerRow row : snapshot.rows) {
+                    ledger.setInt(1, account.getAccountId());
+                    ledger.setString(2, row.transactionType);
+                    ledger.setBigDecimal(3, BigDecimal.valueOf(row.amountCents, 2));
+                    ledger.setString(4, row.description);
+                    ledger.setTimestamp(5, row.date);
+                    ledger.addBatch();
+                    summary.addTransaction(account.getAccountType(), row.transactionType, row.amountCents);
+                    rows++;
+                }
+                // However many postings the account had, one UPDATE with where it ended up
+                balances.setBigDecimal(1, BigDecimal.valueOf(snapshot.balanceCents, 2));
+                balances.setLong(2, snapshot.lastSequence);
+                balances.setInt(3, account.getAccountId());
+                balances.addBatch();
+                summary.addBalance(account.getAccountType(), account.getStatus(), 0,
+                                   snapshot.balanceCents - snapshot.ledgerAccount.persistedCents);
+            }
+            if (rows > 0) {
+                ledger.executeBatch();
+            }
+            balances.executeBatch();
+        }
+        summary.flush(conn);
+        conn.commit();
+
+        for (Snapshot snapshot : snapshots) {
+            snapshot.ledgerAccount.persistedCents = snapshot.balanceCents;
+        }
+        pendingRows.addAndGet(-rows);
+        flushedRows.add(rows);
+        lastFlushAt = System.currentTimeMillis();
+    }
+
+    // A lost connection or a lock conflict, which the next round may well get past; anything else
+    // (a constraint or data error) fails the same way every time
+    private static boolean isTransient(SQLException e) {
+        if (AccountDAO.isRetryable(e)) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Caller holds the account's stripe; the account's changes so far, which it no longer holds
+    private static Snapshot take(LedgerAccount ledgerAccount) {
+        Snapshot snapshot = new Snapshot(ledgerAccount);
+        ledgerAccount.pending = new ArrayList<>();
+        ledgerAccount.firstPendingSequence = 0;
+        return snapshot;
+    }
+
+    // Caller holds the account's stripe; puts taken changes back in front of anything posted since,
+    // so rows keep their order
+    private static void restore(Snapshot snapshot) {
+        LedgerAccount ledgerAccount = snapshot.ledgerAccount;
+        ledgerAccount.pending.addAll(0, snapshot.rows);
+        if (snapshot.firstSequence > 0) {
+            ledgerAccount.firstPendingSequence = snapshot.firstSequence;
+        }
+    }
+
+    // Queues a batch that could not be written again
+    private void requeue(List<Snapshot> batch) {
+        for (Snapshot snapshot : batch) {
+            ReentrantLock lock = stripe(snapshot.ledgerAccount);
+            lock.lock();
+            try {
+                restore(snapshot);
+                markDirty(snapshot.ledgerAccount);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Keeps an account whose rows failed on their own out of the queue, so the accounts behind it
+    // are written. Its rows stay pending, and its journal records before the checkpoint.
+    private void setAside(Snapshot snapshot, SQLException e) {
+        LedgerAccount ledgerAccount = snapshot.ledgerAccount;
+        ReentrantLock lock = stripe(ledgerAccount);
+        lock.lock();
+        try {
+            restore(snapshot);
+            ledgerAccount.setAside = true;
+        } finally {
+            lock.unlock();
+        }
+        setAside.add(ledgerAccount);
+        lastSetAsideRetry = System.currentTimeMillis(); // it just failed; the next retry is an interval away
+        System.err.println("Ledger rows of " + ledgerAccount.account.getAccountNumber() + " could not be written (" +
+                           e.getMessage() + "); account set aside, postings to it are refused until they are");
+        e.printStackTrace();
+    }
+
+    // Tries each set-aside account again in its own transaction; caller holds flushLock
+    private void retrySetAside() {
+        lastSetAsideRetry = System.currentTimeMillis();
+        for (LedgerAccount ledgerAccount : setAside) {
+            Snapshot snapshot;
+            ReentrantLock lock = stripe(ledgerAccount);
+            lock.lock();
+            try {
+                snapshot = take(ledgerAccount);
+            } finally {
+                lock.unlock();
+            }
+
+            Connection conn = null;
+            boolean written = false;
+            try {
+                conn = DatabaseConnection.getConnection();
+                if (conn == null) {
+                    throw new SQLException("No database connection", "08001");
+                }
+                conn.setAutoCommit(false);
+                write(conn, Collections.singletonList(snapshot));
+                written = true;
+            } catch (SQLException e) {
+                System.err.println("Ledger rows of " + ledgerAccount.account.getAccountNumber() +
+                                   " still cannot be written: " + e.getMessage());
+                AccountDAO.rollbackQuietly(conn);
+            } finally {
+                try {
+                    if (conn != null) conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            lock.lock();
+            try {
+                if (written) {
+                    ledgerAccount.setAside = false;
+                } else {
+                    restore(snapshot);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (written) {
+                setAside.remove(ledgerAccount);
+                System.out.println("Ledger rows of " + ledgerAccount.account.getAccountNumber() +
+                                   " written; the account takes postings again");
+            }
+        }
+    }
+
+    // Caller holds the account's stripe; must come before the change itself, so a failed write changes nothing
+    private void journal(LedgerAccount ledgerAccount, byte type, LedgerRow row) throws IOException {
+        // Deposits and withdrawals only; transfers use appendTransfer
+        journal(ledgerAccount, type, row.amountCents, row.description, row.date.getTime());
+    }
+
+    private void journal(LedgerAccount ledgerAccount, byte type, long amountCents, String description) throws IOException {
+        journal(ledgerAccount, type, amountCents, description, System.currentTimeMillis());
+    }
+
+    private void journal(LedgerAccount ledgerAccount, byte type, long amountCents, String description, long time)
+            throws IOException {
+        if (journal == null) {
+            return;
+        }
+        journaled(ledgerAccount, journal.append(ledgerAccount.account.getAccountId(), type, amountCents, description, time));
+    }
+
+    // Caller holds the account's stripe
+    private void journaled(LedgerAccount ledgerAccount, long sequence) {
+        ledgerAccount.lastSequence = sequence;
+        if (ledgerAccount.firstPendingSequence == 0) {
+            ledgerAccount.firstPendingSequence = sequence;
+        }
+    }
+
+    // Waits for this thread's journal records to reach the disk; null when they did, else why not.
+    // A posting whose sync failed is still applied in memory and will be flushed, but would not
+    // survive a crash before that; callers report it as NOT_DURABLE.
+    private String awaitJournal() {
+        if (journal == null) {
+            return null;
+        }
+        try {
+            journal.awaitDurable();
+            return null;
+        } catch (IOException e) {
+            if (!journalFailed) {
+                journalFailed = true;
+                System.err.println("Posting journal sync failed, refusing postings until restart: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return "Applied, but the journal could not be synced (do not repeat it): " + e.getMessage();
+        }
+    }
+
+    // The oldest change not yet in MySQL bounds the checkpoint. Records are appended under a stripe
+    // lock before the account is queued, so once every stripe has been free, every record up to
+    // the sequence read first belongs to a queued account or is already flushed.
+    private void advanceCheckpoint() {
+        long safe = journal.getLastSequence();
+        if (safe <= journal.getCheckpoint()) {
+            return;
+        }
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+            stripe.unlock();
+        }
+        for (LedgerAccount queued : dirty) {
+            long first = queued.firstPendingSequence;
+            if (first > 0 && first - 1 < safe) {
+                safe = first - 1;
+            }
+        }
+        // A set-aside account's rows are not in MySQL either; the journal keeps them for a replay
+        for (LedgerAccount held : setAside) {
+            long first = held.firstPendingSequence;
+            if (first > 0 && first - 1 < safe) {
+                safe = first - 1;
+            }
+        }
+        try {
+            journal.checkpoint(safe);
+        } catch (IOException e) {
+            System.err.println("Posting journal checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    private long highestAppliedSequence() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT MAX(journal_seq) FROM accounts");
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Applies the journal records MySQL does not have (journal_seq below them), oldest first,
+    // with their ledger rows and summaries, as the flusher would have
+    private void replay(List<PostingJournal.Record> records) throws SQLException {
+        long start = System.currentTimeMillis();
+        int applied = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement lock = conn.prepareStatement(
+                     "SELECT balance, account_type, status, journal_seq FROM accounts WHERE account_id = ? FOR UPDATE");
+                 PreparedStatement update = conn.prepareStatement(UPDATE_BALANCE_SQL);
+                 PreparedStatement ledger = conn.prepareStatement(INSERT_LEDGER_SQL)) {
+                for (int from = 0; from < records.size(); from += REPLAY_CHUNK_SIZE) {
+                    SummaryUpdater summary = new SummaryUpdater();
+                    for (PostingJournal.Record record : records.subList(from, Math.min(records.size(), from + REPLAY_CHUNK_SIZE))) {
+                        long balance;
+                        String accountType;
+                        String status;
+                        lock.setInt(1, record.accountId);
+                        try (ResultSet rs = lock.executeQuery()) {
+                            if (!rs.next() || rs.getLong("journal_seq") >= record.sequence) {
+                                continue; // Already flushed before the crash (or the account is gone)
+                            }
+                            balance = Money.of(rs.getBigDecimal("balance")).getCents();
+                            accountType = rs.getString("account_type");
+                            status = rs.getString("status");
+                        }
+
+                        long newBalance;
+                        if (record.type == PostingJournal.BALANCE) {
+                            newBalance = record.amountCents;
+                        } else {
+                            String transactionType = PostingJournal.typeName(record.type);
+                            newBalance = balance + (record.type == PostingJournal.WITHDRAWAL ? -record.amountCents : record.amountCents);
+                            ledger.setInt(1, record.accountId);
+                            ledger.setString(2, transactionType);
+                            ledger.setBigDecimal(3, BigDecimal.valueOf(record.amountCents, 2));
+                            ledger.setString(4, record.description);
+                            ledger.setTimestamp(5, new Timestamp(record.time));
+                            ledger.executeUpdate();
+                            summary.addTransaction(accountType, transactionType, record.amountCents);
+                        }
+                        update.setBigDecimal(1, BigDecimal.valueOf(newBalance, 2));
+                        update.setLong(2, record.sequence);
+                        update.setInt(3, record.accountId);
+                        update.executeUpdate();
+                        summary.addBalance(accountType, status, 0, newBalance - balance);
+                        applied++;
+                    }
+                    summary.flush(conn);
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                AccountDAO.rollbackQuietly(conn);
+                throw e;
+            }
+        }
+        System.out.println("Replayed " + applied + " of " + records.size() + " journal records after the checkpoint in " +
+                           (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Caller holds the account's stripe
+    private void append(LedgerAccount ledgerAccount, LedgerRow row) {
+        ledgerAccount.pending.add(row);
+        pendingRows.incrementAndGet();
+        markDirty(ledgerAccount);
+    }
+
+    // Caller holds the account's stripe
+    private void markDirty(LedgerAccount ledgerAccount) {
+        if (!ledgerAccount.queued) {
+            ledgerAccount.queued = true;
+            dirtyCount.incrementAndGet();
+            dirty.add(ledgerAccount);
+        }
+    }
+
+    private static long capacityDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MS);
+    }
+
+    // Bounded lag: past MAX_PENDING_ROWS unwritten rows, posting threads wait for the flusher, but
+    // only until the deadline (see capacityDeadline). Null once there is room, else why the posting must fail.
+    private String awaitCapacity(long deadline) {
+        while (pendingRows.get() >= MAX_PENDING_ROWS && !closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return "The database is not keeping up: " + pendingRows.get() + " ledger rows still unwritten after " +
+                       MAX_WAIT_MS + " ms";
+            }
+            if (flushRequested.compareAndSet(false, true)) {
+                try {
+                    flusher.execute(() -> {
+                        flushRequested.set(false);
+                        flushQuietly();
+                    });
+                } catch (RejectedExecutionException e) {
+                    return null; // close() is flushing; the posting will see closed
+                }
+            }
+            synchronized (capacity) {
+                try {
+                    if (pendingRows.get() >= MAX_PENDING_ROWS) {
+                        capacity.wait(Math.max(1, Math.min(FLUSH_INTERVAL_MS, TimeUnit.NANOSECONDS.toMillis(remaining))));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return "Interrupted waiting for the ledger";
+                }
+            }
+        }
+        return null;
+    }
+
+    private LedgerAccount load(String accountNumber) {
+        if (!AccountNumbers.isPlausible(accountNumber)) {
+            return null;
+        }
+        LedgerAccount ledgerAccount = accounts.get(accountNumber);
+        if (ledgerAccount != null) {
+            return ledgerAccount;
+        }
+        // Read outside the map so a slow query does not block other accounts; a racing load read the same row
+        Account account = accountDAO.loadAccount(accountNumber);
+        if (account == null) {
+            return null;
+        }
+        LedgerAccount loaded = new LedgerAccount(account, 0);
+        LedgerAccount raced = accounts.putIfAbsent(accountNumber, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private List<Account> withCurrentBalances(List<Account> fromDatabase) {
+        if (fromDatabase == null) {
+            return null;
+        }
+        for (Account account : fromDatabase) {
+            LedgerAccount ledgerAccount = accounts.get(account.getAccountNumber());
+            if (ledgerAccount != null) {
+                account.setBalance(balanceOf(ledgerAccount));
+            }
+        }
+        return fromDatabase;
+    }
+
+    private Account snapshot(LedgerAccount ledgerAccount) {
+        Account account = new Account(ledgerAccount.account);
+        account.setBalance(balanceOf(ledgerAccount));
+        return account;
+    }
+
+    private Money balanceOf(LedgerAccount ledgerAccount) {
+        ReentrantLock lock = stripe(ledgerAccount);
+        lock.lock();
+        try {
+            return Money.ofCents(ledgerAccount.balanceCents);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripeIndex(LedgerAccount ledgerAccount) {
+        return ledgerAccount.account.getAccountId() & (stripes.length - 1);
+    }
+
+    private ReentrantLock stripe(LedgerAccount ledgerAccount) {
+        return stripes[stripeIndex(ledgerAccount)];
+    }
+}
@@ -1,28 +1,39 @@
 package gui;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import model.Account;
 import model.Customer;
-import dao.AccountDAO;
-import dao.CustomerDAO;
+import model.Money;
+import dao.AccountRepository;
+import dao.Repositories;
+import service.AccountNumberAllocator;
+import service.AsyncBankingService;
+import service.CustomerDirectory;
 
-public class AccountManagementPanel extends JPanel {
+public class AccountManagementPanel extends JPanel implements LoadingPanel {
+    private static final Money MIN_FIXED_DEPOSIT = Money.of(1000);
     private JTextField txtAccountNumber, txtInitialDeposit;
-    private JComboBox<String> cmbCustomer, cmbAccountType;
+    private JComboBox<Customer> cmbCustomer;
+    private JComboBox<String> cmbAccountType;
+    private CustomerComboBoxModel customerModel;
+    private JComboBox<String> cmbStatusFilter, cmbTypeFilter;
     private JButton btnCreateAccount, btnViewAccounts, btnRefresh, btnViewAllCustomers;
     private JTable accountsTable;
-    private DefaultTableModel tableModel;
-    private AccountDAO accountDAO;
-    private CustomerDAO customerDAO;
+    private AccountTableModel tableModel;
+    private AccountRepository accountDAO;
+    private final AsyncBankingService bankingService = AsyncBankingService.getInstance();
+    private final CustomerDirectory customerDirectory = CustomerDirectory.getInstance();
+    private CompletableFuture<Void> customersLoaded;
+    private final CompletableFuture<Void> accountsLoaded = new CompletableFuture<>();
     
     public AccountManagementPanel() {
-        accountDAO = new AccountDAO();
-        customerDAO = new CustomerDAO();
+        accountDAO = Repositories.accounts();
         initializeUI();
         loadCustomers();
         loadAccountsData();
@@ -39,6 +50,9 @@ public class AccountManagementPanel extends JPanel {
         formPanel.add(new JLabel("Customer:"));
         JPanel customerPanel = new JPanel(new BorderLayout());
         cmbCustomer = new JComboBox<>();
+        // Reads the shared customer directory; no per-panel copy of the customer list
+        customerModel = new CustomerComboBoxModel(customerDirectory);
+        customerModel.install(cmbCustomer);
         customerPanel.add(cmbCustomer, BorderLayout.CENTER);
         
         btnViewAllCustomers = new JButton("View All");
@@ -76,19 +90,25 @@ public class AccountManagementPanel extends JPanel {
         JPanel tablePanel = new JPanel(new BorderLayout());
         tablePanel.setBorder(BorderFactory.createTitledBorder("Accounts List"));
         
-        String[] columnNames = {"Account ID", "Account Number", "Customer ID", "Customer Name", "Type", "Balance", "Status", "Created Date"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Rows are fetched page by page as the table scrolls; click a header to sort
+        tableModel = new AccountTableModel(accountDAO);
         
         accountsTable = new JTable(tableModel);
         accountsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        tableModel.installHeaderSorting(accountsTable);
         JScrollPane scrollPane = new JScrollPane(accountsTable);
         tablePanel.add(scrollPane, BorderLayout.CENTER);
         
+        // Filters and paging
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Status:"));
+        cmbStatusFilter = new JComboBox<>(new String[]{"ALL", "ACTIVE", "INACTIVE", "SUSPENDED"});
+        filterPanel.add(cmbStatusFilter);
+        filterPanel.add(new JLabel("Type:"));
+        cmbTypeFilter = new JComboBox<>(new String[]{"ALL", "SAVINGS", "CURRENT", "FIXED_DEPOSIT"});
+        filterPanel.add(cmbTypeFilter);
+        tablePanel.add(filterPanel, BorderLayout.NORTH);
+        
         // Add panels to main panel
         add(formPanel, BorderLayout.NORTH);
         add(tablePanel, BorderLayout.CENTER);
@@ -104,10 +124,12 @@ public class AccountManagementPanel extends JPanel {
         btnCreateAccount.addActionListener(e -> createAccount());
         btnViewAccounts.addActionListener(e -> viewCustomerAccounts());
         btnRefresh.addActionListener(e -> {
-            loadCustomers();
+            reloadCustomers();
             loadAccountsData();
         });
         btnViewAllCustomers.addActionListener(e -> showAllCustomers());
+        cmbStatusFilter.addActionListener(e -> loadAccountsData());
+        cmbTypeFilter.addActionListener(e -> loadAccountsData());
         
         // Auto-generate account number when account type changes
         cmbAccountType.addActionListener(e -> generateAccountNumber());
@@ -119,36 +141,49 @@ public class AccountManagementPanel extends JPanel {
         txtInitialDeposit.setToolTipText("Enter initial deposit amount");
     }
     
+    @Override
+    public CompletableFuture<Void> whenLoaded() {
+        return CompletableFuture.allOf(customersLoaded, accountsLoaded);
+    }
+    
     private void loadCustomers() {
-        List<Customer> customers = customerDAO.getAllCustomers();
-        cmbCustomer.removeAllItems();
-        
-        if (customers.isEmpty()) {
-            cmbCustomer.addItem("No customers found - Please add customers first");
-            cmbCustomer.setEnabled(false);
-            btnCreateAccount.setEnabled(false);
-        } else {
-            cmbCustomer.setEnabled(true);
-            btnCreateAccount.setEnabled(true);
-            
-            // Add each customer with ID and name
-            for (Customer customer : customers) {
-                String displayText = String.format("ID: %d - %s %s", 
-                    customer.getCustomerId(), 
-                    customer.getFirstName(), 
-                    customer.getLastName());
-                cmbCustomer.addItem(displayText);
+        customerDirectory.addChangeListener(this::updateCustomerControls);
+        customersLoaded = customerDirectory.ensureLoaded();
+        customersLoaded.whenComplete((ignored, error) -> {
+            if (error != null) {
+                showAsyncError("loading customers", error);
             }
-            
-            // Add a count of customers
-            cmbCustomer.setToolTipText(customers.size() + " customers available");
-        }
+        });
+    }
+    
+    private void reloadCustomers() {
+        customerDirectory.reload().whenComplete((ignored, error) -> {
+            if (error != null) {
+                showAsyncError("loading customers", error);
+            }
+        });
+    }
+    
+    private void updateCustomerControls() {
+        int count = customerDirectory.size();
+        cmbCustomer.setEnabled(count > 0);
+        btnCreateAccount.setEnabled(count > 0);
+        cmbCustomer.setToolTipText(count > 0 ? count + " customers available" : CustomerComboBoxModel.NO_CUSTOMERS);
     }
     
     private void showAllCustomers() {
-        List<Customer> customers = customerDAO.getAllCustomers();
+        customerDirectory.ensureLoaded().whenComplete((ignored, error) -> {
+            if (error != null) {
+                showAsyncError("loading customers", error);
+            } else {
+                displayAllCustomers();
+            }
+        });
+    }
+    
+    private void displayAllCustomers() {
         
-        if (customers.isEmpty()) {
+        if (customerDirectory.size() == 0) {
             JOptionPane.showMessageDialog(this, 
                 "No customers found in the system.\nPlease add customers first.", 
                 "No Customers", 
@@ -156,51 +191,38 @@ public class AccountManagementPanel extends JPanel {
             return;
         }
         
-        // Create a dialog to show all customers with their IDs
-        StringBuilder customerList = new StringBuilder();
-        customerList.append("ALL CUSTOMERS IN SYSTEM:\n\n");
-        
-        for (Customer customer : customers) {
-            customerList.append(String.format("ID: %-4d | %s %s\n", 
-                customer.getCustomerId(),
-                customer.getFirstName(),
-                customer.getLastName()));
-            customerList.append(String.format("       Email: %s | Phone: %s\n", 
-                customer.getEmail(),
-                customer.getPhone() != null ? customer.getPhone() : "N/A"));
-            customerList.append("       " + "-".repeat(50) + "\n");
-        }
-        
-        customerList.append(String.format("\nTotal: %d customers", customers.size()));
-        
-        JTextArea textArea = new JTextArea(customerList.toString());
-        textArea.setEditable(false);
-        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        textArea.setBackground(new Color(240, 240, 240));
+        // The table reads rows straight from the directory as they are painted
+        CustomerDirectoryTableModel model = new CustomerDirectoryTableModel(customerDirectory);
+        JTable table = new JTable(model);
+        table.setFont(new Font("Monospaced", Font.PLAIN, 12));
         
-        JScrollPane scrollPane = new JScrollPane(textArea);
+        JScrollPane scrollPane = new JScrollPane(table);
         scrollPane.setPreferredSize(new Dimension(500, 400));
         
         JOptionPane.showMessageDialog(this, scrollPane, 
-            "All Customers (" + customers.size() + ")", 
+            "All Customers (" + customerDirectory.size() + ")", 
             JOptionPane.INFORMATION_MESSAGE);
+        model.dispose();
     }
     
     private void generateAccountNumber() {
         String accountType = cmbAccountType.getSelectedItem().toString();
-        String prefix = "";
-        
-        switch (accountType) {
-            case "SAVINGS": prefix = "SAV"; break;
-            case "CURRENT": prefix = "CUR"; break;
-            case "FIXED_DEPOSIT": prefix = "FD"; break;
-        }
-        
-        // Generate account number with timestamp and random component
-        long timestamp = System.currentTimeMillis();
-        int random = (int) (Math.random() * 1000);
-        String accountNumber = prefix + String.format("%03d%03d", timestamp % 1000, random);
-        txtAccountNumber.setText(accountNumber);
+        txtAccountNumber.setText("");
+        
+        // Unique by construction (no retry on the UNIQUE key); usually served from memory,
+        // but the first number of a block reserves the block in the database, so not on the EDT
+        bankingService.submit("account-number:" + accountType, () -> AccountNumberAllocator.getInstance().next(accountType))
+            .whenComplete((accountNumber, error) -> {
+                if (!accountType.equals(cmbAccountType.getSelectedItem().toString())) {
+                    return; // Type changed meanwhile; that change requested its own number
+                }
+                if (error != null || accountNumber == null) {
+                    System.err.println("Could not allocate an account number for " + accountType +
+                                       (error != null ? ": " + error.getMessage() : ""));
+                } else {
+                    txtAccountNumber.setText(accountNumber);
+                }
+            });
     }
     
     private void createAccount() {
@@ -209,9 +231,7 @@ public class AccountManagementPanel extends JPanel {
         }
         
         try {
-            // Extract customer ID from combo box
-            String customerSelection = cmbCustomer.getSelectedItem().toString();
-            int customerId = extractCustomerId(customerSelection);
+            int customerId = customerModel.getSelectedCustomerId();
             
             if (customerId == -1) {
                 JOptionPane.showMessageDialog(this, 
@@ -222,51 +242,46 @@ public class AccountManagementPanel extends JPanel {
             
             String accountNumber = txtAccountNumber.getText().trim();
             String accountType = cmbAccountType.getSelectedItem().toString();
-            double initialDeposit = Double.parseDouble(txtInitialDeposit.getText());
-
-
-            // Verify customer exists
-            Customer customer = customerDAO.getCustomerById(customerId);
-            if (customer == null) {
-                JOptionPane.showMessageDialog(this, 
-                    "Selected customer not found in database!", 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-                loadCustomers(); // Refresh customer list
-                return;
-            }
-
-            
+            Money initialDeposit = Money.parse(txtInitialDeposit.getText());
             
+            // The customer comes from the directory; the foreign key still guards the insert
+            Customer customer = customerDirectory.get(customerId);
             Account account = new Account(customerId, accountNumber, accountType);
             account.setBalance(initialDeposit);
             
-            if (accountDAO.createAccount(account)) {
-                // Success message with details
-                String successMessage = String.format(
-                    "✅ Account Created Successfully!\n\n" +
-                    "Account Details:\n" +
-                    "• Account Number: %s\n" +
-                    "• Account Type: %s\n" +
-                    "• Customer: %s %s (ID: %d)\n" +
-                    "• Initial Balance: $%.2f\n\n" +
-                    "The account is now active and ready for transactions.",
-                    accountNumber, accountType, 
-                    customer.getFirstName(), customer.getLastName(), customerId,
-                    initialDeposit
-                );
-                
-                JOptionPane.showMessageDialog(this, successMessage, 
-                    "Account Created", JOptionPane.INFORMATION_MESSAGE);
-                
-                // Clear form and reload data
-                generateAccountNumber();
-                txtInitialDeposit.setText("0.00");
-                loadAccountsData();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "Failed to create account! Please try again.", 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            btnCreateAccount.setEnabled(false);
+            bankingService.createAccount(account).whenComplete((created, createError) -> {
+                btnCreateAccount.setEnabled(true);
+                if (createError != null) {
+                    showAsyncError("creating account", createError);
+                } else if (Boolean.TRUE.equals(created)) {
+                    // Success message with details
+                    String successMessage = String.format(
+                        "✅ Account Created Successfully!\n\n" +
+                        "Account Details:\n" +
+                        "• Account Number: %s\n" +
+                        "• Account Type: %s\n" +
+                        "• Customer: %s %s (ID: %d)\n" +
+                        "• Initial Balance: $%s\n\n" +
+                        "The account is now active and ready for transactions.",
+                        accountNumber, accountType, 
+                        customer.getFirstName(), customer.getLastName(), customerId,
+                        initialDeposit
+                    );
+                    
+                    JOptionPane.showMessageDialog(this, successMessage, 
+                        "Account Created", JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // Clear form and reload data
+                    generateAccountNumber();
+                    txtInitialDeposit.setText("0.00");
+                    loadAccountsData();
+                } else {
+                    JOptionPane.showMessageDialog(this, 
+                        "Failed to create account! Please try again.", 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
             
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, 
@@ -280,41 +295,27 @@ public class AccountManagementPanel extends JPanel {
         }
     }
     
-    private int extractCustomerId(String customerSelection) {
-        try {
-            // Format: "ID: 123 - John Doe"
-            if (customerSelection.startsWith("ID:")) {
-                String idPart = customerSelection.split(" - ")[0]; // "ID: 123"
-                String idStr = idPart.replace("ID:", "").trim(); // "123"
-                return Integer.parseInt(idStr);
-            }
-        } catch (Exception e) {
-            System.err.println("Error extracting customer ID from: " + customerSelection);
-        }
-        return -1;
-    }
-    
     private void viewCustomerAccounts() {
-        if (cmbCustomer.getSelectedIndex() == -1 || cmbCustomer.getSelectedIndex() == 0) {
+        int customerId = customerModel.getSelectedCustomerId();
+        if (customerId == -1) {
             JOptionPane.showMessageDialog(this, 
                 "Please select a customer first!", 
                 "No Customer Selected", JOptionPane.WARNING_MESSAGE);
             return;
         }
         
-        String customerSelection = cmbCustomer.getSelectedItem().toString();
-        int customerId = extractCustomerId(customerSelection);
-        
-        if (customerId == -1) {
-            JOptionPane.showMessageDialog(this, 
-                "Invalid customer selection.", 
-                "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-        
-        List<Account> accounts = accountDAO.getAccountsByCustomerId(customerId);
-        Customer customer = customerDAO.getCustomerById(customerId);
-        
+        // Only the accounts need a query; the customer comes from the directory
+        Customer customer = customerDirectory.get(customerId);
+        bankingService.getAccountsByCustomerId(customerId).whenComplete((accounts, error) -> {
+            if (error != null) {
+                showAsyncError("loading customer accounts", error);
+            } else {
+                displayCustomerAccounts(customerId, accounts, customer);
+            }
+        });
+    }
+    
+    private void displayCustomerAccounts(int customerId, List<Account> accounts, Customer customer) {
         if (accounts.isEmpty()) {
             JOptionPane.showMessageDialog(this, 
                 String.format("No accounts found for customer:\n%s %s (ID: %d)", 
@@ -333,19 +334,19 @@ public class AccountManagementPanel extends JPanel {
         }
         sb.append("\n" + "=".repeat(50) + "\n\n");
         
-        double totalBalance = 0;
+        Money totalBalance = Money.ZERO;
         for (Account account : accounts) {
             sb.append(String.format("🏦 Account: %s\n", account.getAccountNumber()));
             sb.append(String.format("   Type: %s\n", account.getAccountType()));
-            sb.append(String.format("   Balance: $%.2f\n", account.getBalance()));
+            sb.append(String.format("   Balance: $%s\n", account.getBalance()));
             sb.append(String.format("   Status: %s\n", account.getStatus()));
             sb.append(String.format("   Created: %s\n", 
                 account.getDateCreated().toString().substring(0, 16)));
             sb.append("   " + "-".repeat(30) + "\n");
-            totalBalance += account.getBalance();
+            totalBalance = totalBalance.add(account.getBalance());
         }
         
-        sb.append(String.format("\n💰 Total Balance Across All Accounts: $%.2f\n", totalBalance));
+        sb.append(String.format("\n💰 Total Balance Across All Accounts: $%s\n", totalBalance));
         sb.append(String.format("📈 Number of Accounts: %d", accounts.size()));
         
         JTextArea textArea = new JTextArea(sb.toString());
@@ -362,8 +363,7 @@ public class AccountManagementPanel extends JPanel {
     }
     
     private boolean validateAccountForm() {
-        if (cmbCustomer.getSelectedIndex() == -1 || 
-            cmbCustomer.getSelectedItem().toString().contains("No customers")) {
+        if (customerModel.getSelectedCustomerId() == -1) {
             JOptionPane.showMessageDialog(this, 
                 "Please select a customer!\n\nIf no customers are available, " +
                 "go to Customer Management tab to add customers first.", 
@@ -379,8 +379,8 @@ public class AccountManagementPanel extends JPanel {
         }
         
         try {
-            double deposit = Double.parseDouble(txtInitialDeposit.getText());
-            if (deposit < 0) {
+            Money deposit = Money.parse(txtInitialDeposit.getText());
+            if (deposit.isNegative()) {
                 JOptionPane.showMessageDialog(this, 
                     "Initial deposit cannot be negative!", 
                     "Validation Error", JOptionPane.WARNING_MESSAGE);
@@ -389,7 +389,7 @@ public class AccountManagementPanel extends JPanel {
             
             // Check minimum deposit for certain account types
             String accountType = cmbAccountType.getSelectedItem().toString();
-            if (accountType.equals("FIXED_DEPOSIT") && deposit < 1000) {
+            if (accountType.equals("FIXED_DEPOSIT") && deposit.isLessThan(MIN_FIXED_DEPOSIT)) {
                 int result = JOptionPane.showConfirmDialog(this,
                     "Fixed Deposit accounts typically require minimum $1000 deposit.\n" +
                     "Do you want to continue with $" + deposit + "?",
@@ -408,35 +408,36 @@ public class AccountManagementPanel extends JPanel {
     }
     
     private void loadAccountsData() {
-        tableModel.setRowCount(0);
-        
-        // Get all customers to display customer names
-        List<Customer> customers = customerDAO.getAllCustomers();
-        
-        for (Customer customer : customers) {
-            List<Account> accounts = accountDAO.getAccountsByCustomerId(customer.getCustomerId());
-            
-            for (Account account : accounts) {
-                Object[] rowData = {
-                    account.getAccountId(),
-                    account.getAccountNumber(),
-                    customer.getCustomerId(), // Show customer ID in table
-                    customer.getFirstName() + " " + customer.getLastName(),
-                    account.getAccountType(),
-                    String.format("$%.2f", account.getBalance()),
-                    account.getStatus(),
-                    account.getDateCreated() != null ? 
-                        account.getDateCreated().toString().substring(0, 16) : "N/A"
-                };
-                tableModel.addRow(rowData);
+        String statusFilter = getSelectedFilter(cmbStatusFilter);
+        String typeFilter = getSelectedFilter(cmbTypeFilter);
+        tableModel.setFilters(statusFilter, typeFilter);
+        
+        // The row count and the first page; later pages load as they scroll into view
+        tableModel.refresh().whenComplete((count, error) -> {
+            if (error != null) {
+                accountsLoaded.completeExceptionally(error);
+                showAsyncError("loading accounts", error);
+                return;
             }
-        }
-        
-        // Update status bar or display count
-        if (tableModel.getRowCount() == 0) {
-            JOptionPane.showMessageDialog(this, 
-                "No accounts found in the system.\nCreate accounts using the form above.", 
-                "No Accounts", JOptionPane.INFORMATION_MESSAGE);
-        }
+            accountsLoaded.complete(null);
+            if (count == 0 && statusFilter == null && typeFilter == null) {
+                JOptionPane.showMessageDialog(this, 
+                    "No accounts found in the system.\nCreate accounts using the form above.", 
+                    "No Accounts", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+    }
+    
+    private void showAsyncError(String action, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        cause.printStackTrace();
+        JOptionPane.showMessageDialog(this, 
+            "Error " + action + ": " + cause.getMessage(), 
+            "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    private String getSelectedFilter(JComboBox<String> filter) {
+        Object selected = filter.getSelectedItem();
+        return selected == null || "ALL".equals(selected) ? null : selected.toString();
     }
 }
\ No newline at end of file
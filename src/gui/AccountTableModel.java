@@ -0,0 +1,56 @@
+package gui;
+
+import java.util.List;
+
+import dao.AccountRepository;
+import model.Account;
+import util.AppConfig;
+
+// Lazily paged model behind the accounts table, with optional status/type filters
+public class AccountTableModel extends PagedTableModel<Account> {
+    private static final String[] COLUMN_NAMES = {"Account ID", "Account Number", "Customer ID", "Customer Name", "Type", "Balance", "Status", "Created Date"};
+    private static final String[] SORT_KEYS = {"account_id", "account_number", "customer_id", "customer_name", "account_type", "balance", "status", "date_created"};
+    
+    private final AccountRepository accountDAO;
+    private volatile String statusFilter;
+    private volatile String typeFilter;
+    
+    public AccountTableModel(AccountRepository accountDAO) {
+        super(COLUMN_NAMES,
+              AppConfig.getInt("banking.ui.pageSize", 100),
+              AppConfig.getInt("banking.ui.maxCachedPages", 10));
+        this.accountDAO = accountDAO;
+    }
+    
+    // null means "any"; takes effect on the next refresh()
+    public void setFilters(String status, String accountType) {
+        this.statusFilter = status;
+        this.typeFilter = accountType;
+    }
+    
+    @Override
+    protected int fetchRowCount() {
+        return accountDAO.countAccounts(statusFilter, typeFilter);
+    }
+    
+    @Override
+    protected List<Account> fetchPage(int offset, int limit, int sortColumn, boolean ascending) {
+        return accountDAO.getAccountsSorted(offset, limit, statusFilter, typeFilter, SORT_KEYS[sortColumn], ascending);
+    }
+    
+    @Override
+    protected Object getColumnValue(Account account, int column) {
+        switch (column) {
+            case 0: return account.getAccountId();
+            case 1: return account.getAccountNumber();
+            case 2: return account.getCustomerId();
+            case 3: return account.getCustomerName() != null ? account.getCustomerName() : "N/A";
+            case 4: return account.getAccountType();
+            case 5: return "$" + account.getBalance();
+            case 6: return account.getStatus();
+            case 7: return account.getDateCreated() != null ?
+                        account.getDateCreated().toString().substring(0, 16) : "N/A";
+            default: return null;
+        }
+    }
+}
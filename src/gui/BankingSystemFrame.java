@@ -4,14 +4,33 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
+/**
+ * Main window after login. A tab's panel is only built the first time the tab is selected,
+ * so login costs the queries of the first tab alone instead of every tab's. Panels that
+ * fetch data when built (LoadingPanel) show a progress bar in the status bar until their
+ * data is in; the time from login to a usable first tab, and each tab's build and load
+ * time, go to the console.
+ */
 public class BankingSystemFrame extends JFrame {
     private String userRole;
     private JTabbedPane tabbedPane;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    
+    // Placeholder component -> builder of the real panel, until the tab is first selected
+    private final Map<Component, Supplier<JComponent>> unbuiltTabs = new HashMap<>();
+    private final long loginAt = System.nanoTime();
+    private boolean firstTabReady = false;
+    private int tabsLoading = 0;
     
     public BankingSystemFrame(String userRole) {
         this.userRole = userRole;
         initializeUI();
+        System.out.println("Startup: main window built in " + millisSince(loginAt) + " ms");
     }
     
     private void initializeUI() {
@@ -26,19 +45,90 @@ public class BankingSystemFrame extends JFrame {
         // Create tabbed pane
         tabbedPane = new JTabbedPane();
         
-        // Add tabs based on user role
+        // Add tabs based on user role; each panel is built when its tab is first selected
         if ("ADMIN".equals(userRole)) {
-            tabbedPane.addTab("Customer Management", new CustomerManagementPanel());
-            tabbedPane.addTab("Account Management", new AccountManagementPanel());
-            tabbedPane.addTab("Transaction Management", new TransactionManagementPanel());
-            tabbedPane.addTab("Reports", new ReportsPanel());
+            addLazyTab("Customer Management", CustomerManagementPanel::new);
+            addLazyTab("Account Management", AccountManagementPanel::new);
+            addLazyTab("Transaction Management", TransactionManagementPanel::new);
+            addLazyTab("Reports", ReportsPanel::new);
         } else {
-            tabbedPane.addTab("Customer Management", new CustomerManagementPanel());
-            tabbedPane.addTab("Account Management", new AccountManagementPanel());
-            tabbedPane.addTab("Transaction Management", new TransactionManagementPanel());
+            addLazyTab("Customer Management", CustomerManagementPanel::new);
+            addLazyTab("Account Management", AccountManagementPanel::new);
+            addLazyTab("Transaction Management", TransactionManagementPanel::new);
         }
         
-        add(tabbedPane);
+        add(tabbedPane, BorderLayout.CENTER);
+        add(createStatusBar(), BorderLayout.SOUTH);
+        
+        // The first tab is visible straight away; build it now so its data starts loading
+        tabbedPane.addChangeListener(e -> buildSelectedTab());
+        buildSelectedTab();
+    }
+    
+    private void addLazyTab(String title, Supplier<JComponent> builder) {
+        JPanel placeholder = new JPanel(new BorderLayout());
+        placeholder.add(new JLabel("Loading " + title + "...", SwingConstants.CENTER), BorderLayout.CENTER);
+        unbuiltTabs.put(placeholder, builder);
+        tabbedPane.addTab(title, placeholder);
+    }
+    
+    private void buildSelectedTab() {
+        int index = tabbedPane.getSelectedIndex();
+        if (index < 0) return;
+        Supplier<JComponent> builder = unbuiltTabs.remove(tabbedPane.getComponentAt(index));
+        if (builder == null) return; // Built already
+        
+        String title = tabbedPane.getTitleAt(index);
+        long started = System.nanoTime();
+        JComponent panel = builder.get();
+        tabbedPane.setComponentAt(index, panel);
+        long builtMillis = millisSince(started);
+        
+        if (panel instanceof LoadingPanel) {
+            showLoading(title);
+            ((LoadingPanel) panel).whenLoaded().whenComplete((ignored, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    tabLoaded(title, started, builtMillis, error);
+                    if (--tabsLoading == 0) {
+                        progressBar.setVisible(false);
+                        statusLabel.setText(" ");
+                    }
+                }));
+        } else {
+            tabLoaded(title, started, builtMillis, null);
+        }
+    }
+    
+    private void tabLoaded(String title, long started, long builtMillis, Throwable error) {
+        String outcome = error == null ? "loaded" : "failed to load";
+        System.out.println(title + " tab built in " + builtMillis + " ms, " + outcome + " in " +
+                           millisSince(started) + " ms");
+        if (!firstTabReady) {
+            firstTabReady = true;
+            System.out.println("Startup: " + title + " usable " + millisSince(loginAt) + " ms after login");
+        }
+    }
+    
+    private void showLoading(String title) {
+        tabsLoading++;
+        statusLabel.setText("Loading " + title + "...");
+        progressBar.setVisible(true);
+    }
+    
+    private JPanel createStatusBar() {
+        JPanel statusBar = new JPanel(new BorderLayout(10, 0));
+        statusBar.setBorder(BorderFactory.createEmptyBorder(2, 8, 2, 8));
+        statusLabel = new JLabel(" ");
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        statusBar.add(statusLabel, BorderLayout.CENTER);
+        statusBar.add(progressBar, BorderLayout.EAST);
+        return statusBar;
+    }
+    
+    private static long millisSince(long nanoTime) {
+        return (System.nanoTime() - nanoTime) / 1_000_000;
     }
     
     private void createMenuBar() {
@@ -0,0 +1,83 @@
+package gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+import model.Customer;
+import service.CustomerDirectory;
+
+/**
+ * Customer picker backed by the shared CustomerDirectory.
+ *
+ * Items are the directory's own Customer objects; the "ID: n - First Last" text is only
+ * built by the renderer for the rows actually painted, so opening the combo box costs the
+ * same for ten customers or a hundred thousand.
+ */
+public class CustomerComboBoxModel extends AbstractListModel<Customer> implements ComboBoxModel<Customer> {
+    public static final String NO_CUSTOMERS = "No customers found - Please add customers first";
+
+    private final CustomerDirectory directory;
+    private int selectedId = -1;
+
+    public CustomerComboBoxModel(CustomerDirectory directory) {
+        this.directory = directory;
+        directory.addChangeListener(() -> {
+            // Like addItem on an empty combo box, pick the first customer once some exist
+            if (getSelectedItem() == null && directory.size() > 0) {
+                selectedId = directory.getAt(0).getCustomerId();
+            }
+            fireContentsChanged(this, -1, -1);
+        });
+    }
+
+    /** Uses this model on the combo box together with the lazy renderer. */
+    public void install(JComboBox<Customer> comboBox) {
+        comboBox.setModel(this);
+        // Wide enough for typical names; stops JComboBox from measuring every item
+        Customer prototype = new Customer("Firstname", "Lastname-Longer", "", "", "");
+        prototype.setCustomerId(999999);
+        comboBox.setPrototypeDisplayValue(prototype);
+        comboBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String text = value instanceof Customer ? format((Customer) value)
+                            : directory.size() == 0 ? NO_CUSTOMERS : "";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+    }
+
+    @Override
+    public int getSize() {
+        return directory.size();
+    }
+
+    @Override
+    public Customer getElementAt(int index) {
+        return directory.getAt(index);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        int id = item instanceof Customer ? ((Customer) item).getCustomerId() : -1;
+        if (id != selectedId) {
+            selectedId = id;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selectedId > 0 ? directory.get(selectedId) : null;
+    }
+
+    /** Id of the selected customer, or -1 when nothing is selected. */
+    public int getSelectedCustomerId() {
+        return selectedId > 0 && directory.get(selectedId) != null ? selectedId : -1;
+    }
+
+    public static String format(Customer customer) {
+        return "ID: " + customer.getCustomerId() + " - " + customer.getFirstName() + " " + customer.getLastName();
+    }
+}
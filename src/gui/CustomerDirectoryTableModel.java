@@ -0,0 +1,50 @@
+package gui;
+
+import javax.swing.table.AbstractTableModel;
+
+import model.Customer;
+import service.CustomerDirectory;
+
+// Read-only view of the shared CustomerDirectory for the "View All" customers dialog
+public class CustomerDirectoryTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {"ID", "First Name", "Last Name", "Email", "Phone"};
+    
+    private final CustomerDirectory directory;
+    private final Runnable listener = this::fireTableDataChanged;
+    
+    public CustomerDirectoryTableModel(CustomerDirectory directory) {
+        this.directory = directory;
+        directory.addChangeListener(listener);
+    }
+    
+    /** Stops following directory changes; call when the dialog closes. */
+    public void dispose() {
+        directory.removeChangeListener(listener);
+    }
+    
+    @Override
+    public int getRowCount() { return directory.size(); }
+    
+    @Override
+    public int getColumnCount() { return COLUMN_NAMES.length; }
+    
+    @Override
+    public String getColumnName(int column) { return COLUMN_NAMES[column]; }
+    
+    @Override
+    public boolean isCellEditable(int row, int column) { return false; }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row >= directory.size()) return null;
+        Customer customer = directory.getAt(row);
+        switch (column) {
+            case 0: return customer.getCustomerId();
+            case 1: return customer.getFirstName();
+            case 2: return customer.getLastName();
+            case 3: return customer.getEmail();
+            case 4: return customer.getPhone() != null ? customer.getPhone() : "N/A";
+            default: return null;
+        }
+    }
+}
@@ -2,24 +2,28 @@
 package gui;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import model.Customer;
-import dao.CustomerDAO;
+import dao.CustomerRepository;
+import dao.Repositories;
+import service.AsyncBankingService;
 
-public class CustomerManagementPanel extends JPanel {
+public class CustomerManagementPanel extends JPanel implements LoadingPanel {
     private JTextField txtFirstName, txtLastName, txtEmail, txtPhone, txtAddress;
     private JButton btnAdd, btnUpdate, btnClear, btnRefresh;
     private JTable customerTable;
-    private DefaultTableModel tableModel;
-    private CustomerDAO customerDAO;
+    private CustomerTableModel tableModel;
+    private CustomerRepository customerDAO;
+    private final AsyncBankingService bankingService = AsyncBankingService.getInstance();
+    private final CompletableFuture<Void> firstLoad = new CompletableFuture<>();
     
     public CustomerManagementPanel() {
-        customerDAO = new CustomerDAO();
+        customerDAO = Repositories.customers();
         initializeUI();
         loadCustomerData();
     }
@@ -69,15 +73,11 @@ public class CustomerManagementPanel extends JPanel {
         JPanel tablePanel = new JPanel(new BorderLayout());
         tablePanel.setBorder(BorderFactory.createTitledBorder("Customers List"));
         
-        String[] columnNames = {"ID", "First Name", "Last Name", "Email", "Phone", "Address", "Date Created"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Rows are fetched page by page as the table scrolls; click a header to sort
+        tableModel = new CustomerTableModel(customerDAO);
         
         customerTable = new JTable(tableModel);
+        tableModel.installHeaderSorting(customerTable);
         JScrollPane scrollPane = new JScrollPane(customerTable);
         tablePanel.add(scrollPane, BorderLayout.CENTER);
         
@@ -142,13 +142,17 @@ public class CustomerManagementPanel extends JPanel {
             txtAddress.getText().trim()
         );
         
-        if (customerDAO.addCustomer(customer)) {
-            JOptionPane.showMessageDialog(this, "Customer added successfully!");
-            clearForm();
-            loadCustomerData();
-        } else {
-            JOptionPane.showMessageDialog(this, "Failed to add customer!", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        btnAdd.setEnabled(false);
+        bankingService.addCustomer(customer).whenComplete((added, error) -> {
+            btnAdd.setEnabled(true);
+            if (error == null && Boolean.TRUE.equals(added)) {
+                JOptionPane.showMessageDialog(this, "Customer added successfully!");
+                clearForm();
+                loadCustomerData();
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to add customer!", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
     
     private void updateCustomer() {
@@ -162,7 +166,13 @@ public class CustomerManagementPanel extends JPanel {
             return;
         }
         
-        int customerId = (int) tableModel.getValueAt(selectedRow, 0);
+        Customer selected = tableModel.getRow(selectedRow);
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this, "Customer details are still loading, please try again.");
+            return;
+        }
+        
+        int customerId = selected.getCustomerId();
         Customer customer = new Customer(
             txtFirstName.getText().trim(),
             txtLastName.getText().trim(),
@@ -172,13 +182,17 @@ public class CustomerManagementPanel extends JPanel {
         );
         customer.setCustomerId(customerId);
         
-        if (customerDAO.updateCustomer(customer)) {
-            JOptionPane.showMessageDialog(this, "Customer updated successfully!");
-            clearForm();
-            loadCustomerData();
-        } else {
-            JOptionPane.showMessageDialog(this, "Failed to update customer!", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        btnUpdate.setEnabled(false);
+        bankingService.updateCustomer(customer).whenComplete((updated, error) -> {
+            btnUpdate.setEnabled(true);
+            if (error == null && Boolean.TRUE.equals(updated)) {
+                JOptionPane.showMessageDialog(this, "Customer updated successfully!");
+                clearForm();
+                loadCustomerData();
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to update customer!", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
     
     private boolean validateForm() {
@@ -204,28 +218,33 @@ public class CustomerManagementPanel extends JPanel {
     }
     
     private void displaySelectedCustomer(int row) {
-        txtFirstName.setText(tableModel.getValueAt(row, 1).toString());
-        txtLastName.setText(tableModel.getValueAt(row, 2).toString());
-        txtEmail.setText(tableModel.getValueAt(row, 3).toString());
-        txtPhone.setText(tableModel.getValueAt(row, 4).toString());
-        txtAddress.setText(tableModel.getValueAt(row, 5).toString());
+        Customer customer = tableModel.getRow(row);
+        if (customer == null) {
+            return; // Page not loaded yet
+        }
+        txtFirstName.setText(customer.getFirstName());
+        txtLastName.setText(customer.getLastName());
+        txtEmail.setText(customer.getEmail());
+        txtPhone.setText(customer.getPhone());
+        txtAddress.setText(customer.getAddress());
+    }
+    
+    @Override
+    public CompletableFuture<Void> whenLoaded() {
+        return firstLoad;
     }
     
     private void loadCustomerData() {
-        tableModel.setRowCount(0);
-        List<Customer> customers = customerDAO.getAllCustomers();
-        
-        for (Customer customer : customers) {
-            Object[] rowData = {
-                customer.getCustomerId(),
-                customer.getFirstName(),
-                customer.getLastName(),
-                customer.getEmail(),
-                customer.getPhone(),
-                customer.getAddress(),
-                customer.getDateCreated()
-            };
-            tableModel.addRow(rowData);
-        }
+        // The row count and the first page; later pages load as they scroll into view
+        tableModel.refresh().whenComplete((count, error) -> {
+            if (error != null) {
+                firstLoad.completeExceptionally(error);
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error loading customers: " + error.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                firstLoad.complete(null);
+            }
+        });
     }
 }
\ No newline at end of file
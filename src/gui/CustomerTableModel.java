@@ -0,0 +1,46 @@
+package gui;
+
+import java.util.List;
+
+import dao.CustomerRepository;
+import model.Customer;
+import util.AppConfig;
+
+// Lazily paged model behind the customers table
+public class CustomerTableModel extends PagedTableModel<Customer> {
+    private static final String[] COLUMN_NAMES = {"ID", "First Name", "Last Name", "Email", "Phone", "Address", "Date Created"};
+    private static final String[] SORT_KEYS = {"customer_id", "first_name", "last_name", "email", "phone", "address", "date_created"};
+    
+    private final CustomerRepository customerDAO;
+    
+    public CustomerTableModel(CustomerRepository customerDAO) {
+        super(COLUMN_NAMES,
+              AppConfig.getInt("banking.ui.pageSize", 100),
+              AppConfig.getInt("banking.ui.maxCachedPages", 10));
+        this.customerDAO = customerDAO;
+    }
+    
+    @Override
+    protected int fetchRowCount() {
+        return customerDAO.countCustomers();
+    }
+    
+    @Override
+    protected List<Customer> fetchPage(int offset, int limit, int sortColumn, boolean ascending) {
+        return customerDAO.getCustomersPage(offset, limit, SORT_KEYS[sortColumn], ascending);
+    }
+    
+    @Override
+    protected Object getColumnValue(Customer customer, int column) {
+        switch (column) {
+            case 0: return customer.getCustomerId();
+            case 1: return customer.getFirstName();
+            case 2: return customer.getLastName();
+            case 3: return customer.getEmail();
+            case 4: return customer.getPhone();
+            case 5: return customer.getAddress();
+            case 6: return customer.getDateCreated();
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package gui;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A tab that starts fetching its data when it is built. BankingSystemFrame shows a progress
+ * bar until whenLoaded() completes, normally or not, and logs how long it took.
+ */
+public interface LoadingPanel {
+    CompletableFuture<?> whenLoaded();
+}
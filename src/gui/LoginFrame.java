@@ -6,6 +6,7 @@ import java.awt.event.*;
 import java.sql.*;
 
 import util.DatabaseConnection;
+import util.SchemaMigrator;
 
 public class LoginFrame extends JFrame {
     private JTextField txtUsername;
@@ -77,9 +78,10 @@ public class LoginFrame extends JFrame {
             return;
         }
         
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
+        String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
+        // Statements must be closed explicitly now that connections are pooled
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
             pstmt.setString(2, password);
             
@@ -111,6 +113,13 @@ public class LoginFrame extends JFrame {
             e.printStackTrace();
         }
         
+        // Apply any pending database/migrations scripts before the first query runs
+        if (!SchemaMigrator.migrate()) {
+            JOptionPane.showMessageDialog(null,
+                "The database schema could not be brought up to date.\nSee the console for details.",
+                "Database Warning", JOptionPane.WARNING_MESSAGE);
+        }
+        
         SwingUtilities.invokeLater(() -> new LoginFrame().setVisible(true));
     }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+package gui;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Table model that only holds the pages the user is looking at.
+ *
+ * Rows are fetched from the DAO one page at a time when the JTable first asks for them,
+ * at most maxCachedPages pages stay in memory (least recently viewed are dropped), and
+ * rows whose page is still loading show a placeholder. A page that fails to load is not
+ * cached, so it is asked for again the next time one of its rows is painted. Sorting is
+ * done by the database.
+ */
+public abstract class PagedTableModel<T> extends AbstractTableModel {
+    protected static final String LOADING = "Loading...";
+
+    // Shared by all paged tables so scrolling never blocks the EDT on a query
+    private static final ExecutorService PAGE_LOADER = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "table-page-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String[] columnNames;
+    private final int pageSize;
+    private final int maxCachedPages;
+    private final Map<Integer, List<T>> pages;
+    private final Set<Integer> pagesLoading = new HashSet<>();
+
+    private int rowCount = 0;
+    private int sortColumn = 0;
+    private boolean sortAscending = true;
+    // Bumped on refresh/sort so late results from an older query are ignored
+    private int generation = 0;
+    private CompletableFuture<Integer> pendingRefresh;
+
+    protected PagedTableModel(String[] columnNames, int pageSize, int maxCachedPages) {
+        this.columnNames = columnNames;
+        this.pageSize = pageSize;
+        this.maxCachedPages = Math.max(2, maxCachedPages);
+        this.pages = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // Implemented by each table: runs on a background thread. fetchRowCount may return a
+    // negative count and fetchPage null (or either may throw) when they could not be read.
+    protected abstract int fetchRowCount();
+    protected abstract List<T> fetchPage(int offset, int limit, int sortColumn, boolean ascending);
+    protected abstract Object getColumnValue(T row, int column);
+
+    protected boolean isSortable(int column) {
+        return true;
+    }
+
+    @Override
+    public int getRowCount() { return rowCount; }
+
+    @Override
+    public int getColumnCount() { return columnNames.length; }
+
+    @Override
+    public String getColumnName(int column) { return columnNames[column]; }
+
+    @Override
+    public boolean isCellEditable(int row, int column) { return false; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T item = getRow(row);
+        return item == null ? LOADING : getColumnValue(item, column);
+    }
+
+    /** Returns the row if its page is in memory, otherwise starts loading it and returns null. */
+    public T getRow(int row) {
+        if (row < 0 || row >= rowCount) return null;
+        int pageIndex = row / pageSize;
+        List<T> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        int offsetInPage = row % pageSize;
+        return offsetInPage < page.size() ? page.get(offsetInPage) : null;
+    }
+
+    private void requestPage(int pageIndex) {
+        if (!pagesLoading.add(pageIndex)) return;
+
+        final int requestGeneration = generation;
+        final int column = sortColumn;
+        final boolean ascending = sortAscending;
+        PAGE_LOADER.execute(() -> {
+            List<T> loaded = fetchPageQuietly(pageIndex, column, ascending);
+            SwingUtilities.invokeLater(() -> pageLoaded(requestGeneration, pageIndex, loaded));
+        });
+    }
+
+    // null if the page could not be read
+    private List<T> fetchPageQuietly(int pageIndex, int column, boolean ascending) {
+        try {
+            return fetchPage(pageIndex * pageSize, pageSize, column, ascending);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void pageLoaded(int requestGeneration, int pageIndex, List<T> page) {
+        if (requestGeneration != generation) return;
+        pagesLoading.remove(pageIndex);
+        if (page == null) {
+            // Not cached: the next getValueAt for one of its rows asks for it again
+            System.err.println("Could not load table page " + pageIndex);
+            return;
+        }
+        pages.put(pageIndex, page);
+
+        // Drop the least recently viewed pages once over budget
+        while (pages.size() > maxCachedPages) {
+            Integer eldest = pages.keySet().iterator().next();
+            pages.remove(eldest);
+        }
+
+        int first = pageIndex * pageSize;
+        int last = Math.min(rowCount, first + pageSize) - 1;
+        if (first <= last) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    /**
+     * Re-counts the rows and drops every cached page. The first page is fetched alongside the
+     * count rather than after it, as the table asks for it straight away. The returned future
+     * completes on the EDT with the new row count once both are in, or exceptionally if either
+     * could not be read (the rows then load as they are painted, as after a failed page). A
+     * refresh overtaken by a later one completes with it.
+     */
+    public CompletableFuture<Integer> refresh() {
+        final int requestGeneration = ++generation;
+        final int column = sortColumn;
+        final boolean ascending = sortAscending;
+        pages.clear();
+        pagesLoading.clear();
+        pagesLoading.add(0);
+
+        CompletableFuture<Integer> loaded = new CompletableFuture<>();
+        if (pendingRefresh != null && !pendingRefresh.isDone()) {
+            CompletableFuture<Integer> overtaken = pendingRefresh;
+            loaded.whenComplete((newCount, error) -> {
+                if (error != null) {
+                    overtaken.completeExceptionally(error);
+                } else {
+                    overtaken.complete(newCount);
+                }
+            });
+        }
+        pendingRefresh = loaded;
+
+        CompletableFuture<Integer> count = CompletableFuture.supplyAsync(() -> {
+            try {
+                int rows = fetchRowCount();
+                if (rows < 0) {
+                    throw new IllegalStateException("The rows of the table could not be counted");
+                }
+                return rows;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                throw e;
+            }
+        }, PAGE_LOADER);
+        CompletableFuture<List<T>> firstPage = CompletableFuture.supplyAsync(
+            () -> fetchPageQuietly(0, column, ascending), PAGE_LOADER);
+        count.whenComplete((newCount, error) -> firstPage.thenAccept(page -> SwingUtilities.invokeLater(() -> {
+            if (loaded != pendingRefresh) return; // a later refresh completes this one
+            if (error != null) {
+                loaded.completeExceptionally(error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            // A sort since then made the page stale, but not the count
+            rowCount = newCount;
+            if (requestGeneration == generation) {
+                pagesLoading.remove(0);
+                if (page != null) {
+                    pages.put(0, page);
+                }
+            }
+            fireTableDataChanged();
+            if (page == null && requestGeneration == generation) {
+                loaded.completeExceptionally(new IllegalStateException("The first page of the table could not be loaded"));
+            } else {
+                loaded.complete(newCount);
+            }
+        })));
+        return loaded;
+    }
+
+    public void sortBy(int column, boolean ascending) {
+        if (!isSortable(column)) return;
+        sortColumn = column;
+        sortAscending = ascending;
+        generation++;
+        pages.clear();
+        pagesLoading.clear();
+        fireTableDataChanged();
+    }
+
+    public int getSortColumn() { return sortColumn; }
+    public boolean isSortAscending() { return sortAscending; }
+
+    /** Clicking a column header sorts by that column; clicking it again flips the direction. */
+    public void installHeaderSorting(JTable table) {
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) return;
+                int column = table.convertColumnIndexToModel(viewColumn);
+                boolean ascending = column != sortColumn || !sortAscending;
+                table.clearSelection();
+                sortBy(column, ascending);
+            }
+        });
+    }
+}
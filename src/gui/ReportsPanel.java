@@ -2,11 +2,179 @@
 package gui;
 
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import dao.ReportDAO;
+import model.Account;
+import model.AccountTypeSummary;
+import model.DailyVolume;
+import model.Money;
+import service.AsyncBankingService;
+
+public class ReportsPanel extends JPanel implements LoadingPanel {
+    private JSpinner spnDays, spnTopN;
+    private JButton btnRefresh, btnRebuild;
+    private DefaultTableModel totalsModel, dailyModel, topAccountsModel;
+    private final ReportDAO reportDAO = new ReportDAO();
+    private final AsyncBankingService bankingService = AsyncBankingService.getInstance();
+    private CompletableFuture<Void> loaded;
 
-public class ReportsPanel extends JPanel {
     public ReportsPanel() {
-        setLayout(new BorderLayout());
-        add(new JLabel("Reports - Under Development", SwingConstants.CENTER), BorderLayout.CENTER);
+        initializeUI();
+        loadReports();
+    }
+
+    private void initializeUI() {
+        setLayout(new BorderLayout(10, 10));
+
+        // Controls
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(new JLabel("Daily volume for last"));
+        spnDays = new JSpinner(new SpinnerNumberModel(30, 1, 366, 1));
+        controlPanel.add(spnDays);
+        controlPanel.add(new JLabel("days"));
+        controlPanel.add(new JLabel("   Top accounts:"));
+        spnTopN = new JSpinner(new SpinnerNumberModel(10, 1, 500, 5));
+        controlPanel.add(spnTopN);
+        btnRefresh = new JButton("Refresh");
+        btnRebuild = new JButton("Rebuild Summaries");
+        btnRebuild.setToolTipText("Recalculate the report totals from the full transaction history");
+        controlPanel.add(btnRefresh);
+        controlPanel.add(btnRebuild);
+
+        // Report tables
+        totalsModel = createModel("Account Type", "Status", "Accounts", "Total Balance");
+        dailyModel = createModel("Date", "Deposits", "Deposit Amount", "Withdrawals", "Withdrawal Amount", "Net");
+        topAccountsModel = createModel("Account Number", "Customer", "Type", "Status", "Balance");
+
+        JPanel reportPanel = new JPanel(new GridLayout(3, 1, 10, 10));
+        reportPanel.add(createTablePanel("Totals by Account Type and Status", totalsModel));
+        reportPanel.add(createTablePanel("Daily Deposit and Withdrawal Volume", dailyModel));
+        reportPanel.add(createTablePanel("Top Accounts by Balance", topAccountsModel));
+
+        add(controlPanel, BorderLayout.NORTH);
+        add(reportPanel, BorderLayout.CENTER);
+
+        btnRefresh.addActionListener(e -> loadReports());
+        btnRebuild.addActionListener(e -> rebuildSummaries());
+    }
+
+    private DefaultTableModel createModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private JPanel createTablePanel(String title, DefaultTableModel model) {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createTitledBorder(title));
+        JTable table = new JTable(model);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void loadReports() {
+        int days = (Integer) spnDays.getValue();
+        int topN = (Integer) spnTopN.getValue();
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(days - 1);
+
+        // The three reports only read summary tables (or a short index range), so run them side by side
+        CompletableFuture<?> totals = bankingService.submit("report-totals", reportDAO::getAccountTypeSummary)
+            .whenComplete((summaries, error) -> {
+                if (error != null) showAsyncError("loading account totals", error);
+                else showTotals(summaries);
+            });
+        CompletableFuture<?> daily = bankingService.submit("report-daily:" + from, () -> reportDAO.getDailyVolume(from, to))
+            .whenComplete((volumes, error) -> {
+                if (error != null) showAsyncError("loading daily volume", error);
+                else showDailyVolume(volumes);
+            });
+        CompletableFuture<?> top = bankingService.submit("report-top:" + topN, () -> reportDAO.getTopAccountsByBalance(topN))
+            .whenComplete((accounts, error) -> {
+                if (error != null) showAsyncError("loading top accounts", error);
+                else showTopAccounts(accounts);
+            });
+        if (loaded == null) {
+            loaded = CompletableFuture.allOf(totals, daily, top);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> whenLoaded() {
+        return loaded;
+    }
+
+    private void showTotals(List<AccountTypeSummary> totals) {
+        totalsModel.setRowCount(0);
+        long accountCount = 0;
+        Money balance = Money.ZERO;
+        for (AccountTypeSummary summary : totals) {
+            totalsModel.addRow(new Object[]{
+                summary.getAccountType(), summary.getStatus(), summary.getAccountCount(),
+                summary.getTotalBalance().toString()});
+            accountCount += summary.getAccountCount();
+            balance = balance.add(summary.getTotalBalance());
+        }
+        totalsModel.addRow(new Object[]{"ALL", "ALL", accountCount, balance.toString()});
+    }
+
+    private void showDailyVolume(List<DailyVolume> volumes) {
+        dailyModel.setRowCount(0);
+        for (DailyVolume volume : volumes) {
+            dailyModel.addRow(new Object[]{
+                volume.getDate(),
+                volume.getDepositCount(), volume.getDepositTotal().toString(),
+                volume.getWithdrawalCount(), volume.getWithdrawalTotal().toString(),
+                volume.getNetAmount().toString()});
+        }
+    }
+
+    private void showTopAccounts(List<Account> accounts) {
+        topAccountsModel.setRowCount(0);
+        for (Account account : accounts) {
+            topAccountsModel.addRow(new Object[]{
+                account.getAccountNumber(), account.getCustomerName(), account.getAccountType(),
+                account.getStatus(), account.getBalance().toString()});
+        }
+    }
+
+    private void rebuildSummaries() {
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Recalculate all report totals from the transaction history?\n" +
+            "Postings made while this runs will wait until it finishes.",
+            "Rebuild Summaries", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        btnRebuild.setEnabled(false);
+        bankingService.submit("report-rebuild", reportDAO::rebuildSummaries).whenComplete((ok, error) -> {
+            btnRebuild.setEnabled(true);
+            if (error != null) {
+                showAsyncError("rebuilding summaries", error);
+            } else if (Boolean.TRUE.equals(ok)) {
+                loadReports();
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to rebuild the report summaries!",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    private void showAsyncError(String action, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        cause.printStackTrace();
+        JOptionPane.showMessageDialog(this,
+            "Error " + action + ": " + cause.getMessage(),
+            "Error", JOptionPane.ERROR_MESSAGE);
     }
-}
\ No newline at end of file
+}
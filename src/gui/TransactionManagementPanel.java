@@ -4,19 +4,29 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import model.Account;
-import dao.AccountDAO;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.TransferResult;
+import service.AsyncBankingService;
+import util.AccountNumbers;
+import util.DatabaseConnection;
 
 public class TransactionManagementPanel extends JPanel {
-    private JTextField txtAccountNumber, txtAmount, txtDescription;
+    private static final String INVALID_CHECK_DIGIT =
+        "This account number is not valid (its check digit does not match).\nPlease check it for typos.";
+    private JTextField txtAccountNumber, txtToAccountNumber, txtAmount, txtDescription;
     private JComboBox<String> cmbTransactionType;
     private JButton btnExecute, btnCheckBalance, btnFindAccount;
     private JTextArea txtBalanceInfo;
-    private AccountDAO accountDAO;
+    private final AsyncBankingService bankingService = AsyncBankingService.getInstance();
+    private CompletableFuture<Account> pendingLookup;
     
     public TransactionManagementPanel() {
-        accountDAO = new AccountDAO();
         initializeUI();
     }
     
@@ -27,7 +37,7 @@ public class TransactionManagementPanel extends JPanel {
         JPanel mainPanel = new JPanel(new GridLayout(2, 1, 10, 10));
         
         // Transaction panel
-        JPanel transactionPanel = new JPanel(new GridLayout(6, 2, 10, 10));
+        JPanel transactionPanel = new JPanel(new GridLayout(7, 2, 10, 10));
         transactionPanel.setBorder(BorderFactory.createTitledBorder("Execute Transaction"));
         
         // Account number with find button
@@ -42,9 +52,15 @@ public class TransactionManagementPanel extends JPanel {
         transactionPanel.add(accountPanel);
         
         transactionPanel.add(new JLabel("Transaction Type:"));
-        cmbTransactionType = new JComboBox<>(new String[]{"DEPOSIT", "WITHDRAWAL"});
+        cmbTransactionType = new JComboBox<>(new String[]{"DEPOSIT", "WITHDRAWAL", "TRANSFER"});
         transactionPanel.add(cmbTransactionType);
         
+        // Only used by transfers; the account above is the one debited
+        transactionPanel.add(new JLabel("To Account Number:"));
+        txtToAccountNumber = new JTextField();
+        txtToAccountNumber.setEnabled(false);
+        transactionPanel.add(txtToAccountNumber);
+        
         transactionPanel.add(new JLabel("Amount:"));
         txtAmount = new JTextField();
         transactionPanel.add(txtAmount);
@@ -90,6 +106,7 @@ public class TransactionManagementPanel extends JPanel {
         btnExecute.addActionListener(e -> executeTransaction());
         btnCheckBalance.addActionListener(e -> checkBalance());
         btnFindAccount.addActionListener(e -> findAccount());
+        cmbTransactionType.addActionListener(e -> txtToAccountNumber.setEnabled(isTransferSelected()));
         
         // Add sample data for testing
         JButton btnSampleData = new JButton("Load Sample Data");
@@ -124,16 +141,39 @@ public class TransactionManagementPanel extends JPanel {
             return;
         }
         
-        Account account = accountDAO.getAccountByNumber(accountNumber);
-        if (account == null) {
-            txtBalanceInfo.setText("❌ Account not found: " + accountNumber + 
-                                 "\n\nPlease check:\n" +
-                                 "• Account number spelling\n" +
-                                 "• Account exists in database\n" +
-                                 "• Use 'List All Accounts' to see available accounts");
-        } else {
-            displayAccountInfo(account);
+        lookupAccount(accountNumber, "❌ Account not found: " + accountNumber + 
+                                     "\n\nPlease check:\n" +
+                                     "• Account number spelling\n" +
+                                     "• Account exists in database\n" +
+                                     "• Use 'List All Accounts' to see available accounts");
+    }
+    
+    // Looks the account up off the EDT; a newer lookup cancels one still pending
+    private void lookupAccount(String accountNumber, String notFoundText) {
+        if (pendingLookup != null) {
+            pendingLookup.cancel(true);
+        }
+        if (!AccountNumbers.isPlausible(accountNumber)) {
+            txtBalanceInfo.setText("❌ " + INVALID_CHECK_DIGIT);
+            return;
         }
+        txtBalanceInfo.setText("Looking up account " + accountNumber + "...");
+        
+        CompletableFuture<Account> lookup = bankingService.getAccountByNumber(accountNumber);
+        pendingLookup = lookup;
+        lookup.whenComplete((account, error) -> {
+            if (lookup != pendingLookup || lookup.isCancelled()) {
+                return; // Superseded by a newer lookup
+            }
+            pendingLookup = null;
+            if (error != null) {
+                txtBalanceInfo.setText("❌ Error looking up account: " + rootCause(error).getMessage());
+            } else if (account == null) {
+                txtBalanceInfo.setText(notFoundText);
+            } else {
+                displayAccountInfo(account);
+            }
+        });
     }
     
     private void executeTransaction() {
@@ -144,71 +184,30 @@ public class TransactionManagementPanel extends JPanel {
         try {
             String accountNumber = txtAccountNumber.getText().trim();
             String transactionType = cmbTransactionType.getSelectedItem().toString();
-            double amount = Double.parseDouble(txtAmount.getText());
+            Money amount = Money.parse(txtAmount.getText());
             String description = txtDescription.getText().trim();
             
             System.out.println("Attempting transaction: " + transactionType + 
                              " Amount: " + amount + " for account: " + accountNumber);
             
-            // First, verify account exists
-            if (!accountDAO.verifyAccountExists(accountNumber)) {
-                JOptionPane.showMessageDialog(this, 
-                    "Account not found: " + accountNumber + 
-                    "\n\nPlease verify the account number and try again.", 
-                    "Account Not Found", JOptionPane.ERROR_MESSAGE);
+            if (isTransferSelected()) {
+                executeTransfer(accountNumber, txtToAccountNumber.getText().trim(), amount, description);
                 return;
             }
             
-            Account account = accountDAO.getAccountByNumber(accountNumber);
-            if (account == null) {
-                JOptionPane.showMessageDialog(this, 
-                    "Could not retrieve account details for: " + accountNumber, 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            
-            double newBalance = account.getBalance();
-            
-            if (transactionType.equals("DEPOSIT")) {
-                newBalance += amount;
-            } else if (transactionType.equals("WITHDRAWAL")) {
-                if (amount > account.getBalance()) {
-                    JOptionPane.showMessageDialog(this, 
-                        "❌ Insufficient funds!\n" +
-                        "Available balance: $" + account.getBalance() + 
-                        "\nAttempted withdrawal: $" + amount,
-                        "Insufficient Funds", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                newBalance -= amount;
-            }
-            
-            // Update balance in database
-            if (accountDAO.updateBalance(accountNumber, newBalance)) {
-                String successMessage = String.format(
-                    "✅ Transaction Successful!\n\n" +
-                    "Account: %s\n" +
-                    "Transaction: %s\n" +
-                    "Amount: $%.2f\n" +
-                    "Previous Balance: $%.2f\n" +
-                    "New Balance: $%.2f\n" +
-                    "Description: %s",
-                    accountNumber, transactionType, amount, 
-                    account.getBalance(), newBalance, description
-                );
-                
-                JOptionPane.showMessageDialog(this, successMessage, 
-                    "Transaction Complete", JOptionPane.INFORMATION_MESSAGE);
-                
-                // Clear form and refresh balance
-                txtAmount.setText("");
-                txtDescription.setText("");
-                checkBalance(); // Refresh the display
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "❌ Transaction failed! Please try again.", 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // Balance check, update and ledger row happen atomically in the DAO, off the EDT
+            btnExecute.setEnabled(false);
+            bankingService.post(new Posting(accountNumber, transactionType, amount, description))
+                .whenComplete((result, error) -> {
+                    btnExecute.setEnabled(true);
+                    if (error != null) {
+                        JOptionPane.showMessageDialog(this, 
+                            "Error processing transaction: " + rootCause(error).getMessage(), 
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        showPostingResult(result, transactionType, amount, description);
+                    }
+                });
             
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, 
@@ -222,6 +221,124 @@ public class TransactionManagementPanel extends JPanel {
         }
     }
     
+    // Both accounts are locked and updated in one DB transaction, off the EDT
+    private void executeTransfer(String fromAccountNumber, String toAccountNumber, Money amount, String description) {
+        btnExecute.setEnabled(false);
+        bankingService.transfer(fromAccountNumber, toAccountNumber, amount, description)
+            .whenComplete((result, error) -> {
+                btnExecute.setEnabled(true);
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this, 
+                        "Error processing transfer: " + rootCause(error).getMessage(), 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    showTransferResult(result, description);
+                }
+            });
+    }
+    
+    private void showTransferResult(TransferResult result, String description) {
+        if (result.isSuccess()) {
+            String successMessage = String.format(
+                "✅ Transfer Successful!\n\n" +
+                "From: %s (new balance $%s)\n" +
+                "To: %s (new balance $%s)\n" +
+                "Amount: $%s\n" +
+                "Description: %s",
+                result.getFromAccountNumber(), result.getFromBalance(),
+                result.getToAccountNumber(), result.getToBalance(),
+                result.getAmount(), description
+            );
+            
+            JOptionPane.showMessageDialog(this, successMessage, 
+                "Transfer Complete", JOptionPane.INFORMATION_MESSAGE);
+            
+            // Clear form and refresh balance
+            txtAmount.setText("");
+            txtDescription.setText("");
+            checkBalance(); // Refresh the display
+        } else if (result.getStatus() == PostingResult.Status.NOT_DURABLE) {
+            JOptionPane.showMessageDialog(this, 
+                "⚠ Transfer applied, but it is not yet safely stored.\n\n" +
+                "From: " + result.getFromAccountNumber() + " (new balance $" + result.getFromBalance() + ")\n" +
+                "To: " + result.getToAccountNumber() + " (new balance $" + result.getToBalance() + ")\n\n" +
+                "Do NOT repeat this transfer. Please report this to the administrator.", 
+                "Transfer Not Durable", JOptionPane.WARNING_MESSAGE);
+            txtAmount.setText("");
+            txtDescription.setText("");
+            checkBalance();
+        } else if (result.getStatus() == PostingResult.Status.ACCOUNT_NOT_FOUND) {
+            JOptionPane.showMessageDialog(this, 
+                result.getMessage() + 
+                "\n\nPlease verify both account numbers and try again.", 
+                "Account Not Found", JOptionPane.ERROR_MESSAGE);
+        } else if (result.getStatus() == PostingResult.Status.INSUFFICIENT_FUNDS) {
+            JOptionPane.showMessageDialog(this, 
+                "❌ Insufficient funds!\n" +
+                "Available balance: $" + result.getFromBalance() + 
+                "\nAttempted transfer: $" + result.getAmount(),
+                "Insufficient Funds", JOptionPane.ERROR_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(this, 
+                "❌ Transfer failed! Please try again.", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    private boolean isTransferSelected() {
+        return "TRANSFER".equals(cmbTransactionType.getSelectedItem());
+    }
+    
+    private void showPostingResult(PostingResult result, String transactionType, Money amount, String description) {
+        String accountNumber = result.getAccountNumber();
+        
+        if (result.isSuccess()) {
+            String successMessage = String.format(
+                "✅ Transaction Successful!\n\n" +
+                "Account: %s\n" +
+                "Transaction: %s\n" +
+                "Amount: $%s\n" +
+                "Previous Balance: $%s\n" +
+                "New Balance: $%s\n" +
+                "Description: %s",
+                accountNumber, transactionType, amount, 
+                result.getPreviousBalance(), result.getNewBalance(), description
+            );
+            
+            JOptionPane.showMessageDialog(this, successMessage, 
+                "Transaction Complete", JOptionPane.INFORMATION_MESSAGE);
+            
+            // Clear form and refresh balance
+            txtAmount.setText("");
+            txtDescription.setText("");
+            checkBalance(); // Refresh the display
+        } else if (result.getStatus() == PostingResult.Status.NOT_DURABLE) {
+            JOptionPane.showMessageDialog(this, 
+                "⚠ Transaction applied, but it is not yet safely stored.\n\n" +
+                "Account: " + accountNumber + " (new balance $" + result.getNewBalance() + ")\n\n" +
+                "Do NOT repeat this transaction. Please report this to the administrator.", 
+                "Transaction Not Durable", JOptionPane.WARNING_MESSAGE);
+            txtAmount.setText("");
+            txtDescription.setText("");
+            checkBalance();
+        } else if (result.getStatus() == PostingResult.Status.ACCOUNT_NOT_FOUND) {
+            JOptionPane.showMessageDialog(this, 
+                "Account not found: " + accountNumber + 
+                "\n\nPlease verify the account number and try again.", 
+                "Account Not Found", JOptionPane.ERROR_MESSAGE);
+        } else if (result.getStatus() == PostingResult.Status.INSUFFICIENT_FUNDS) {
+            JOptionPane.showMessageDialog(this, 
+                "❌ Insufficient funds!\n" +
+                "Available balance: $" + result.getNewBalance() + 
+                "\nAttempted withdrawal: $" + amount,
+                "Insufficient Funds", JOptionPane.ERROR_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(this, 
+                "❌ Transaction failed! Please try again.", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
     private void checkBalance() {
         String accountNumber = txtAccountNumber.getText().trim();
         
@@ -230,18 +347,12 @@ public class TransactionManagementPanel extends JPanel {
             return;
         }
         
-        Account account = accountDAO.getAccountByNumber(accountNumber);
-        if (account == null) {
-            txtBalanceInfo.setText("❌ Account not found: " + accountNumber + 
-                                 "\n\nTroubleshooting:\n" +
-                                 "1. Check account number spelling\n" +
-                                 "2. Verify account exists in database\n" +
-                                 "3. Use 'List All Accounts' button to see all accounts\n" +
-                                 "4. Try the 'Find' button to search");
-            return;
-        }
-        
-        displayAccountInfo(account);
+        lookupAccount(accountNumber, "❌ Account not found: " + accountNumber + 
+                                     "\n\nTroubleshooting:\n" +
+                                     "1. Check account number spelling\n" +
+                                     "2. Verify account exists in database\n" +
+                                     "3. Use 'List All Accounts' button to see all accounts\n" +
+                                     "4. Try the 'Find' button to search");
     }
     
     private void displayAccountInfo(Account account) {
@@ -250,7 +361,7 @@ public class TransactionManagementPanel extends JPanel {
             "✅ Account Found!\n\n" +
             "Account Number: %s\n" +
             "Account Type: %s\n" +
-            "Current Balance: $%.2f\n" +
+            "Current Balance: $%s\n" +
             "Status: %s\n" +
             "Account ID: %d\n" +
             "Customer ID: %d\n" +
@@ -258,7 +369,7 @@ public class TransactionManagementPanel extends JPanel {
             "💡 Transaction Tips:\n" +
             "• Minimum withdrawal: $1.00\n" +
             "• Minimum deposit: $1.00\n" +
-            "• Available for withdrawal: $%.2f",
+            "• Available for withdrawal: $%s",
             account.getAccountNumber(),
             account.getAccountType(),
             account.getBalance(),
@@ -279,14 +390,35 @@ public class TransactionManagementPanel extends JPanel {
             return false;
         }
         
+        if (!AccountNumbers.isPlausible(txtAccountNumber.getText().trim())) {
+            JOptionPane.showMessageDialog(this, INVALID_CHECK_DIGIT, "Validation Error", JOptionPane.WARNING_MESSAGE);
+            return false;
+        }
+        
+        if (isTransferSelected()) {
+            String toAccountNumber = txtToAccountNumber.getText().trim();
+            if (toAccountNumber.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please enter the account number to transfer to!", "Validation Error", JOptionPane.WARNING_MESSAGE);
+                return false;
+            }
+            if (!AccountNumbers.isPlausible(toAccountNumber)) {
+                JOptionPane.showMessageDialog(this, INVALID_CHECK_DIGIT, "Validation Error", JOptionPane.WARNING_MESSAGE);
+                return false;
+            }
+            if (toAccountNumber.equals(txtAccountNumber.getText().trim())) {
+                JOptionPane.showMessageDialog(this, "Cannot transfer to the same account!", "Validation Error", JOptionPane.WARNING_MESSAGE);
+                return false;
+            }
+        }
+        
         if (txtAmount.getText().trim().isEmpty()) {
             JOptionPane.showMessageDialog(this, "Please enter an amount!", "Validation Error", JOptionPane.WARNING_MESSAGE);
             return false;
         }
         
         try {
-            double amount = Double.parseDouble(txtAmount.getText());
-            if (amount <= 0) {
+            Money amount = Money.parse(txtAmount.getText());
+            if (!amount.isPositive()) {
                 JOptionPane.showMessageDialog(this, "Amount must be greater than 0!", "Validation Error", JOptionPane.WARNING_MESSAGE);
                 return false;
             }
@@ -300,17 +432,20 @@ public class TransactionManagementPanel extends JPanel {
     
     // Debug methods
     private void testDatabaseConnection() {
-        try {
-            Account testAccount = accountDAO.getAccountByNumber("TEST");
-            JOptionPane.showMessageDialog(this, 
-                "✅ Database connection is working!\n" +
-                "AccountDAO methods are accessible.",
-                "Connection Test", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "❌ Database connection failed!\nError: " + e.getMessage(),
-                "Connection Test Failed", JOptionPane.ERROR_MESSAGE);
-        }
+        bankingService.submit("test-connection", DatabaseConnection::testConnection)
+            .whenComplete((ok, error) -> {
+                if (error == null && Boolean.TRUE.equals(ok)) {
+                    JOptionPane.showMessageDialog(this, 
+                        "✅ Database connection is working!\n" +
+                        "AccountDAO methods are accessible.",
+                        "Connection Test", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, 
+                        "❌ Database connection failed!\nError: " + 
+                        (error != null ? rootCause(error).getMessage() : "see console for details"),
+                        "Connection Test Failed", JOptionPane.ERROR_MESSAGE);
+                }
+            });
     }
     
     private void listAllAccounts() {
@@ -332,20 +467,25 @@ public class TransactionManagementPanel extends JPanel {
             return;
         }
         
-        boolean exists = accountDAO.verifyAccountExists(accountNumber);
-        if (exists) {
-            JOptionPane.showMessageDialog(this, 
-                "✅ Account VERIFIED in database: " + accountNumber,
-                "Account Verification", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            JOptionPane.showMessageDialog(this, 
-                "❌ Account NOT FOUND in database: " + accountNumber + 
-                "\n\nPossible reasons:\n" +
-                "• Account number misspelled\n" +
-                "• Account not created properly\n" +
-                "• Database connection issue",
-                "Account Verification Failed", JOptionPane.ERROR_MESSAGE);
-        }
+        bankingService.verifyAccountExists(accountNumber).whenComplete((exists, error) -> {
+            if (error == null && Boolean.TRUE.equals(exists)) {
+                JOptionPane.showMessageDialog(this, 
+                    "✅ Account VERIFIED in database: " + accountNumber,
+                    "Account Verification", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, 
+                    "❌ Account NOT FOUND in database: " + accountNumber + 
+                    "\n\nPossible reasons:\n" +
+                    "• Account number misspelled\n" +
+                    "• Account not created properly\n" +
+                    "• Database connection issue",
+                    "Account Verification Failed", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+    
+    private static Throwable rootCause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
     
     private void loadSampleData() {
@@ -7,9 +7,10 @@ public class Account {
     private int customerId;
     private String accountNumber;
     private String accountType;
-    private double balance;
+    private Money balance = Money.ZERO;
     private Timestamp dateCreated;
     private String status;
+    private String customerName; // only filled by queries that join customers
     
     // Constructors
     public Account() {}
@@ -18,7 +19,17 @@ public class Account {
         this.customerId = customerId;
         this.accountNumber = accountNumber;
         this.accountType = accountType;
-        this.balance = 0.0;
+    }
+    
+    public Account(Account other) {
+        this.accountId = other.accountId;
+        this.customerId = other.customerId;
+        this.accountNumber = other.accountNumber;
+        this.accountType = other.accountType;
+        this.balance = other.balance;
+        this.dateCreated = other.dateCreated;
+        this.status = other.status;
+        this.customerName = other.customerName;
     }
     
     // Getters and Setters
@@ -34,12 +45,15 @@ public class Account {
     public String getAccountType() { return accountType; }
     public void setAccountType(String accountType) { this.accountType = accountType; }
     
-    public double getBalance() { return balance; }
-    public void setBalance(double balance) { this.balance = balance; }
+    public Money getBalance() { return balance; }
+    public void setBalance(Money balance) { this.balance = balance; }
     
     public Timestamp getDateCreated() { return dateCreated; }
     public void setDateCreated(Timestamp dateCreated) { this.dateCreated = dateCreated; }
     
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+    
+    public String getCustomerName() { return customerName; }
+    public void setCustomerName(String customerName) { this.customerName = customerName; }
 }
\ No newline at end of file
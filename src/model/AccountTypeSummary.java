@@ -0,0 +1,30 @@
+package model;
+
+// Number of accounts and their total balance for one account type and status
+public class AccountTypeSummary {
+    private String accountType;
+    private String status;
+    private long accountCount;
+    private Money totalBalance;
+    
+    public AccountTypeSummary() {}
+    
+    public AccountTypeSummary(String accountType, String status, long accountCount, Money totalBalance) {
+        this.accountType = accountType;
+        this.status = status;
+        this.accountCount = accountCount;
+        this.totalBalance = totalBalance;
+    }
+    
+    public String getAccountType() { return accountType; }
+    public void setAccountType(String accountType) { this.accountType = accountType; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public long getAccountCount() { return accountCount; }
+    public void setAccountCount(long accountCount) { this.accountCount = accountCount; }
+    
+    public Money getTotalBalance() { return totalBalance; }
+    public void setTotalBalance(Money totalBalance) { this.totalBalance = totalBalance; }
+}
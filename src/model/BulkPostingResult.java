@@ -0,0 +1,40 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+// Per-item outcome of a bulk posting run, in the same order as the submitted postings
+public class BulkPostingResult {
+    private final List<PostingResult> results;
+    private final int successCount;
+    private final int notDurableCount;
+    private final long elapsedMillis;
+    
+    public BulkPostingResult(List<PostingResult> results, long elapsedMillis) {
+        this.results = Collections.unmodifiableList(results);
+        this.elapsedMillis = elapsedMillis;
+        int ok = 0;
+        int notDurable = 0;
+        for (PostingResult result : results) {
+            if (result.isSuccess()) ok++;
+            else if (result.getStatus() == PostingResult.Status.NOT_DURABLE) notDurable++;
+        }
+        this.successCount = ok;
+        this.notDurableCount = notDurable;
+    }
+    
+    public List<PostingResult> getResults() { return results; }
+    public int getTotalCount() { return results.size(); }
+    public int getSuccessCount() { return successCount; }
+    // Applied but not crash safe; never resubmit these with the failures
+    public int getNotDurableCount() { return notDurableCount; }
+    public int getFailureCount() { return results.size() - successCount - notDurableCount; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    
+    @Override
+    public String toString() {
+        return getTotalCount() + " postings: " + successCount + " succeeded, " +
+               (notDurableCount > 0 ? notDurableCount + " applied but not durable, " : "") + getFailureCount() +
+               " failed in " + elapsedMillis + "ms";
+    }
+}
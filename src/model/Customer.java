@@ -22,6 +22,16 @@ public class Customer {
         this.address = address;
     }
     
+    public Customer(Customer other) {
+        this.customerId = other.customerId;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.email = other.email;
+        this.phone = other.phone;
+        this.address = other.address;
+        this.dateCreated = other.dateCreated;
+    }
+    
     // Getters and Setters
     public int getCustomerId() { return customerId; }
     public void setCustomerId(int customerId) { this.customerId = customerId; }
@@ -0,0 +1,37 @@
+package model;
+
+import java.sql.Date;
+
+// Deposit and withdrawal volume of one day, across all accounts
+public class DailyVolume {
+    private Date date;
+    private long depositCount;
+    private Money depositTotal = Money.ZERO;
+    private long withdrawalCount;
+    private Money withdrawalTotal = Money.ZERO;
+    
+    public DailyVolume() {}
+    
+    public DailyVolume(Date date) {
+        this.date = date;
+    }
+    
+    public Date getDate() { return date; }
+    public void setDate(Date date) { this.date = date; }
+    
+    public long getDepositCount() { return depositCount; }
+    public void setDepositCount(long depositCount) { this.depositCount = depositCount; }
+    
+    public Money getDepositTotal() { return depositTotal; }
+    public void setDepositTotal(Money depositTotal) { this.depositTotal = depositTotal; }
+    
+    public long getWithdrawalCount() { return withdrawalCount; }
+    public void setWithdrawalCount(long withdrawalCount) { this.withdrawalCount = withdrawalCount; }
+    
+    public Money getWithdrawalTotal() { return withdrawalTotal; }
+    public void setWithdrawalTotal(Money withdrawalTotal) { this.withdrawalTotal = withdrawalTotal; }
+    
+    public Money getNetAmount() {
+        return depositTotal.subtract(withdrawalTotal);
+    }
+}
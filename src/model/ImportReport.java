@@ -0,0 +1,46 @@
+package model;
+
+// Counters of an import run, also used for the periodic progress lines
+public class ImportReport {
+    private final long rowsRead;
+    private final long customersInserted;
+    private final long accountsInserted;
+    private final long rowsRejected;
+    private final long rowsSkipped;
+    private final long elapsedMillis;
+    private final long validateMillis;
+    private final long writeMillis;
+    
+    public ImportReport(long rowsRead, long customersInserted, long accountsInserted, long rowsRejected,
+                        long rowsSkipped, long elapsedMillis, long validateMillis, long writeMillis) {
+        this.rowsRead = rowsRead;
+        this.customersInserted = customersInserted;
+        this.accountsInserted = accountsInserted;
+        this.rowsRejected = rowsRejected;
+        this.rowsSkipped = rowsSkipped;
+        this.elapsedMillis = elapsedMillis;
+        this.validateMillis = validateMillis;
+        this.writeMillis = writeMillis;
+    }
+    
+    public long getRowsRead() { return rowsRead; }
+    public long getCustomersInserted() { return customersInserted; }
+    public long getAccountsInserted() { return accountsInserted; }
+    public long getRowsRejected() { return rowsRejected; }
+    public long getRowsSkipped() { return rowsSkipped; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public long getValidateMillis() { return validateMillis; }
+    public long getWriteMillis() { return writeMillis; }
+    
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : rowsRead * 1000.0 / elapsedMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return rowsRead + " rows read (" + rowsSkipped + " skipped by checkpoint), " +
+               customersInserted + " customers and " + accountsInserted + " accounts inserted, " +
+               rowsRejected + " rejected in " + elapsedMillis + "ms (" + Math.round(getRowsPerSecond()) + " rows/s; " +
+               "validation " + validateMillis + "ms across threads, writing " + writeMillis + "ms)";
+    }
+}
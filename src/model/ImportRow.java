@@ -0,0 +1,33 @@
+package model;
+
+// One data line of an import file: the customer, an optional account, or why it was rejected
+public class ImportRow {
+    private final long lineNumber;
+    private final String line;
+    private Customer customer;
+    private Account account;
+    private String rejectReason;
+    
+    public ImportRow(long lineNumber, String line) {
+        this.lineNumber = lineNumber;
+        this.line = line;
+    }
+    
+    public long getLineNumber() { return lineNumber; }
+    public String getLine() { return line; }
+    
+    public Customer getCustomer() { return customer; }
+    public void setCustomer(Customer customer) { this.customer = customer; }
+    
+    public Account getAccount() { return account; }
+    public void setAccount(Account account) { this.account = account; }
+    
+    public String getRejectReason() { return rejectReason; }
+    public boolean isRejected() { return rejectReason != null; }
+    
+    public void reject(String reason) {
+        if (rejectReason == null) {
+            rejectReason = reason;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents, matching the DECIMAL(15,2) columns exactly.
+ *
+ * Immutable. add/subtract/compare are plain long arithmetic (overflow throws instead of
+ * wrapping); code that accumulates many amounts in a loop can work on getCents() directly
+ * and wrap the result once. Amounts go to and from JDBC as BigDecimal with scale 2, never
+ * as double, and toString() prints "1234.56" / "-0.05" without going through String.format.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long CENTS_PER_UNIT = 100;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    // Whole units, e.g. Money.of(100) is 100.00
+    public static Money of(long units) {
+        return ofCents(Math.multiplyExact(units, CENTS_PER_UNIT));
+    }
+
+    /**
+     * From a DECIMAL column or other exact value. SQL NULL reads as zero, as getDouble did.
+     * Throws ArithmeticException for fractions of a cent rather than silently rounding.
+     */
+    public static Money of(BigDecimal value) {
+        if (value == null) {
+            return ZERO;
+        }
+        return ofCents(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses user or file input such as "100", "-12.5", "0.05" or "1,250.00" (commas are
+     * ignored). At most two decimals; anything else throws NumberFormatException, the same
+     * exception Double.parseDouble threw, so existing input handling keeps working.
+     */
+    public static Money parse(String text) {
+        if (text == null) {
+            throw new NumberFormatException("No amount");
+        }
+        String s = text.trim();
+        int i = 0;
+        boolean negative = false;
+        if (i < s.length() && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        try {
+            for (; i < s.length() && s.charAt(i) != '.'; i++) {
+                char c = s.charAt(i);
+                if (c == ',') continue;
+                if (c < '0' || c > '9') throw new NumberFormatException("Invalid amount: " + text);
+                units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                digits++;
+            }
+            long fraction = 0;
+            int decimals = 0;
+            if (i < s.length()) {
+                for (i++; i < s.length(); i++) {
+                    char c = s.charAt(i);
+                    if (c < '0' || c > '9' || ++decimals > SCALE) throw new NumberFormatException("Invalid amount: " + text);
+                    fraction = fraction * 10 + (c - '0');
+                }
+            }
+            if (digits == 0 && decimals == 0) {
+                throw new NumberFormatException("Invalid amount: " + text);
+            }
+            for (int d = decimals; d < SCALE; d++) {
+                fraction *= 10;
+            }
+            long cents = Math.addExact(Math.multiplyExact(units, CENTS_PER_UNIT), fraction);
+            return ofCents(negative ? -cents : cents);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public Money add(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money subtract(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public boolean isZero() { return cents == 0; }
+    public boolean isPositive() { return cents > 0; }
+    public boolean isNegative() { return cents < 0; }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    // Appends the plain "1234.56" form, for writers that build lines in a StringBuilder
+    public StringBuilder appendTo(StringBuilder sb) {
+        long abs = Math.abs(cents);
+        if (cents < 0) sb.append('-');
+        long fraction = abs % CENTS_PER_UNIT;
+        sb.append(abs / CENTS_PER_UNIT).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+    // Right-aligned in a column of the given width, for fixed-width reports
+    public String toString(int width) {
+        String s = toString();
+        if (s.length() >= width) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(width);
+        for (int i = s.length(); i < width; i++) sb.append(' ');
+        return sb.append(s).toString();
+    }
+}
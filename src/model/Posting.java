@@ -0,0 +1,35 @@
+package model;
+
+// A deposit or withdrawal request against an account, identified by account number
+public class Posting {
+    private String accountNumber;
+    private String transactionType;
+    private Money amount;
+    private String description;
+    
+    // Constructors
+    public Posting() {}
+    
+    public Posting(String accountNumber, String transactionType, Money amount, String description) {
+        this.accountNumber = accountNumber;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.description = description;
+    }
+    
+    // Getters and Setters
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+    
+    public String getTransactionType() { return transactionType; }
+    public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
+    
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
+    
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    
+    public boolean isDeposit() { return "DEPOSIT".equals(transactionType); }
+    public boolean isWithdrawal() { return "WITHDRAWAL".equals(transactionType); }
+}
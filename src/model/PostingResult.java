@@ -0,0 +1,62 @@
+package model;
+
+// Outcome of a single posting; balances are only meaningful when the posting was applied
+public class PostingResult {
+    // NOT_DURABLE: applied and on its way to MySQL, but its journal record could not be synced,
+    // so a crash before the next flush would lose it. It must not be retried.
+    public enum Status { SUCCESS, ACCOUNT_NOT_FOUND, INSUFFICIENT_FUNDS, INVALID_REQUEST, FAILED, NOT_DURABLE }
+    
+    private final Status status;
+    private final String accountNumber;
+    private final Money previousBalance;
+    private final Money newBalance;
+    private final int transactionId;
+    private final String message;
+    
+    private PostingResult(Status status, String accountNumber, Money previousBalance, Money newBalance,
+                          int transactionId, String message) {
+        this.status = status;
+        this.accountNumber = accountNumber;
+        this.previousBalance = previousBalance;
+        this.newBalance = newBalance;
+        this.transactionId = transactionId;
+        this.message = message;
+    }
+    
+    public static PostingResult success(String accountNumber, Money previousBalance, Money newBalance, int transactionId) {
+        return new PostingResult(Status.SUCCESS, accountNumber, previousBalance, newBalance, transactionId, "OK");
+    }
+    
+    // availableBalance is reported back so the caller can show it without another lookup
+    public static PostingResult insufficientFunds(String accountNumber, Money availableBalance) {
+        return new PostingResult(Status.INSUFFICIENT_FUNDS, accountNumber, availableBalance, availableBalance, 0,
+                                 "Insufficient funds");
+    }
+    
+    public static PostingResult failure(Status status, String accountNumber, String message) {
+        return new PostingResult(status, accountNumber, Money.ZERO, Money.ZERO, 0, message);
+    }
+    
+    // Keeps the balances of the applied posting
+    public static PostingResult notDurable(PostingResult applied, String message) {
+        return new PostingResult(Status.NOT_DURABLE, applied.accountNumber, applied.previousBalance, applied.newBalance,
+                                 applied.transactionId, message);
+    }
+    
+    public boolean isSuccess() { return status == Status.SUCCESS; }
+    
+    // The balance has changed, whether or not the change is crash safe yet
+    public boolean isApplied() { return status == Status.SUCCESS || status == Status.NOT_DURABLE; }
+    
+    public Status getStatus() { return status; }
+    public String getAccountNumber() { return accountNumber; }
+    public Money getPreviousBalance() { return previousBalance; }
+    public Money getNewBalance() { return newBalance; }
+    public int getTransactionId() { return transactionId; }
+    public String getMessage() { return message; }
+    
+    @Override
+    public String toString() {
+        return status + " " + accountNumber + ": " + message;
+    }
+}
@@ -6,14 +6,14 @@ public class Transaction {
     private int transactionId;
     private int accountId;
     private String transactionType;
-    private double amount;
+    private Money amount;
     private String description;
     private Timestamp transactionDate;
     
     // Constructors
     public Transaction() {}
     
-    public Transaction(int accountId, String transactionType, double amount, String description) {
+    public Transaction(int accountId, String transactionType, Money amount, String description) {
         this.accountId = accountId;
         this.transactionType = transactionType;
         this.amount = amount;
@@ -30,12 +30,17 @@ public class Transaction {
     public String getTransactionType() { return transactionType; }
     public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
     
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
     
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
     
     public Timestamp getTransactionDate() { return transactionDate; }
     public void setTransactionDate(Timestamp transactionDate) { this.transactionDate = transactionDate; }
+    
+    // Effect on the balance: withdrawals are stored as positive amounts, transfer legs already signed
+    public Money getSignedAmount() {
+        return "WITHDRAWAL".equals(transactionType) ? amount.negate() : amount;
+    }
 }
\ No newline at end of file
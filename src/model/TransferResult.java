@@ -0,0 +1,78 @@
+package model;
+
+// Outcome of a transfer between two accounts; balances are only meaningful when it was applied
+public class TransferResult {
+    private final PostingResult.Status status;
+    private final String fromAccountNumber;
+    private final String toAccountNumber;
+    private final Money amount;
+    private final Money fromBalance;
+    private final Money toBalance;
+    private final int debitTransactionId;
+    private final int creditTransactionId;
+    private final String message;
+    private final int attempts;
+
+    private TransferResult(PostingResult.Status status, String fromAccountNumber, String toAccountNumber, Money amount,
+                           Money fromBalance, Money toBalance, int debitTransactionId, int creditTransactionId,
+                           String message, int attempts) {
+        this.status = status;
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+        this.fromBalance = fromBalance;
+        this.toBalance = toBalance;
+        this.debitTransactionId = debitTransactionId;
+        this.creditTransactionId = creditTransactionId;
+        this.message = message;
+        this.attempts = attempts;
+    }
+
+    public static TransferResult success(String fromAccountNumber, String toAccountNumber, Money amount,
+                                         Money fromBalance, Money toBalance,
+                                         int debitTransactionId, int creditTransactionId, int attempts) {
+        return new TransferResult(PostingResult.Status.SUCCESS, fromAccountNumber, toAccountNumber, amount,
+                                  fromBalance, toBalance, debitTransactionId, creditTransactionId, "OK", attempts);
+    }
+
+    // availableBalance is the source account's balance, so the caller can show it without another lookup
+    public static TransferResult insufficientFunds(String fromAccountNumber, String toAccountNumber, Money amount,
+                                                   Money availableBalance, int attempts) {
+        return new TransferResult(PostingResult.Status.INSUFFICIENT_FUNDS, fromAccountNumber, toAccountNumber, amount,
+                                  availableBalance, Money.ZERO, 0, 0, "Insufficient funds", attempts);
+    }
+
+    public static TransferResult failure(PostingResult.Status status, String fromAccountNumber, String toAccountNumber,
+                                         Money amount, String message, int attempts) {
+        return new TransferResult(status, fromAccountNumber, toAccountNumber, amount,
+                                  Money.ZERO, Money.ZERO, 0, 0, message, attempts);
+    }
+
+    // Keeps the balances of the applied transfer; see PostingResult.Status.NOT_DURABLE
+    public static TransferResult notDurable(TransferResult applied, String message) {
+        return new TransferResult(PostingResult.Status.NOT_DURABLE, applied.fromAccountNumber, applied.toAccountNumber,
+                                  applied.amount, applied.fromBalance, applied.toBalance, applied.debitTransactionId,
+                                  applied.creditTransactionId, message, applied.attempts);
+    }
+
+    public boolean isSuccess() { return status == PostingResult.Status.SUCCESS; }
+
+    public boolean isApplied() { return status == PostingResult.Status.SUCCESS || status == PostingResult.Status.NOT_DURABLE; }
+
+    public PostingResult.Status getStatus() { return status; }
+    public String getFromAccountNumber() { return fromAccountNumber; }
+    public String getToAccountNumber() { return toAccountNumber; }
+    public Money getAmount() { return amount; }
+    public Money getFromBalance() { return fromBalance; }
+    public Money getToBalance() { return toBalance; }
+    public int getDebitTransactionId() { return debitTransactionId; }
+    public int getCreditTransactionId() { return creditTransactionId; }
+    public String getMessage() { return message; }
+    // Deadlocks and lock wait timeouts are retried; 1 means it went through first time
+    public int getAttempts() { return attempts; }
+
+    @Override
+    public String toString() {
+        return status + " " + fromAccountNumber + " -> " + toAccountNumber + ": " + message;
+    }
+}
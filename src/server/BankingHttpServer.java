@@ -0,0 +1,708 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import dao.AccountRepository;
+import dao.CustomerRepository;
+import dao.GroupCommitAccountRepository;
+import dao.Repositories;
+import dao.TransactionDAO;
+import dao.WriteBehindAccountRepository;
+import model.Account;
+import model.Customer;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.Transaction;
+import model.TransferResult;
+import service.AccountNumberAllocator;
+import util.AppConfig;
+import util.DatabaseConnection;
+import util.Histogram;
+import util.PoolStats;
+import util.SchemaMigrator;
+
+/**
+ * Headless HTTP/JSON front end over the DAOs, for other systems and for load tests.
+ * Started with "java -cp bin:lib/* App server".
+ *
+ *   GET  /health                              GET  /metrics
+ *   GET  /customers?offset=0&limit=50         POST /customers      {"firstName","lastName","email","phone","address"}
+ *   GET  /customers/{id}                      GET  /customers/{id}/accounts
+ *   POST /accounts                            {"customerId","accountType","initialBalance"}
+ *   GET  /accounts/{number}                   GET  /accounts/{number}/balance
+ *   GET  /accounts/{number}/transactions?from=2024-01-01&to=2024-01-31&limit=100[&afterDate=..&afterId=..]
+ *   POST /accounts/{number}/deposits          POST /accounts/{number}/withdrawals   {"amount","description"}
+ *   POST /accounts/{number}/transfers         {"toAccountNumber","amount","description"}
+ *
+ * Each request runs on its own virtual thread when the JVM has them (Java 21+), otherwise
+ * on a fixed pool. At most banking.http.maxConcurrent requests run at once; the rest wait
+ * up to banking.http.queueTimeoutMs for a slot and then get 503, so a load spike queues
+ * here instead of on the connection pool. /metrics reports per-route latency percentiles.
+ *
+ * With -Dbanking.storage=memory it needs no database at all (see dao.Repositories); the
+ * transactions endpoint then answers 501, as no ledger history is kept.
+ */
+public class BankingHttpServer {
+    private static final int PORT = AppConfig.getInt("banking.http.port", 8080);
+    private static final int MAX_CONCURRENT = Math.max(1, AppConfig.getInt("banking.http.maxConcurrent",
+        DatabaseConnection.getMaxPoolSize() * 2));
+    private static final long QUEUE_TIMEOUT_MS = AppConfig.getLong("banking.http.queueTimeoutMs", 1000);
+    // Fallback pool when there are no virtual threads; larger than the limit so waiting requests can time out
+    private static final int PLATFORM_THREADS = AppConfig.getInt("banking.http.platformThreads",
+        Math.max(16, MAX_CONCURRENT * 4));
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final AccountRepository accountDAO = Repositories.accounts();
+    private final CustomerRepository customerDAO = Repositories.customers();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final AccountNumberAllocator accountNumberAllocator = AccountNumberAllocator.getInstance();
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<String, RouteStats> stats = new ConcurrentHashMap<>();
+    private final Semaphore permits = new Semaphore(MAX_CONCURRENT);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final long startedAt = System.currentTimeMillis();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // Thrown by handlers to answer with a given status
+    static class HttpError extends RuntimeException {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Handler {
+        Response handle(Request request) throws Exception;
+    }
+
+    private static class Route {
+        final String method;
+        final String pattern;
+        final String[] segments;
+        final Handler handler;
+
+        Route(String method, String pattern, Handler handler) {
+            this.method = method;
+            this.pattern = pattern;
+            this.segments = pattern.substring(1).split("/");
+            this.handler = handler;
+        }
+
+        // Path parameters if the path matches, otherwise null
+        Map<String, String> match(String[] path) {
+            if (path.length != segments.length) return null;
+            Map<String, String> params = null;
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].startsWith("{")) {
+                    if (params == null) params = new HashMap<>(4);
+                    params.put(segments[i].substring(1, segments[i].length() - 1), path[i]);
+                } else if (!segments[i].equals(path[i])) {
+                    return null;
+                }
+            }
+            return params == null ? Collections.emptyMap() : params;
+        }
+    }
+
+    private static class Request {
+        final HttpExchange exchange;
+        final Map<String, String> pathParams;
+        final Map<String, String> query;
+
+        Request(HttpExchange exchange, Map<String, String> pathParams) {
+            this.exchange = exchange;
+            this.pathParams = pathParams;
+            this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+
+        String path(String name) {
+            return pathParams.get(name);
+        }
+
+        int pathInt(String name) {
+            try {
+                return Integer.parseInt(pathParams.get(name));
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, name + " must be a number");
+            }
+        }
+
+        int queryInt(String name, int defaultValue) {
+            String value = query.get(name);
+            if (value == null) return defaultValue;
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, name + " must be a number");
+            }
+        }
+
+        Map<String, String> body() throws IOException {
+            byte[] bytes;
+            try (InputStream in = exchange.getRequestBody()) {
+                bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            }
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new HttpError(413, "Request body too large");
+            }
+            try {
+                return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, "Invalid JSON: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    public BankingHttpServer() {
+        get("/health", this::health);
+        get("/metrics", this::metrics);
+        get("/customers", this::listCustomers);
+        post("/customers", this::addCustomer);
+        get("/customers/{id}", this::getCustomer);
+        get("/customers/{id}/accounts", this::getCustomerAccounts);
+        post("/accounts", this::createAccount);
+        get("/accounts/{number}", this::getAccount);
+        get("/accounts/{number}/balance", this::getBalance);
+        get("/accounts/{number}/transactions", this::getTransactions);
+        post("/accounts/{number}/deposits", r -> post(r, "DEPOSIT"));
+        post("/accounts/{number}/withdrawals", r -> post(r, "WITHDRAWAL"));
+        post("/accounts/{number}/transfers", this::transfer);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (Repositories.isInMemory()) {
+            System.out.println("banking.storage=memory: nothing is written to the database");
+        } else if (!DatabaseConnection.testConnection()) {
+            System.err.println("Cannot reach the database; check banking.db.* settings");
+            System.exit(1);
+        } else if (!SchemaMigrator.migrate()) {
+            System.err.println("The database schema could not be brought up to date, see above");
+            System.exit(1);
+        }
+        BankingHttpServer server = new BankingHttpServer();
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            Repositories.shutdown();
+            DatabaseConnection.closeConnection();
+        }, "http-shutdown"));
+    }
+
+    private void get(String pattern, Handler handler) {
+        routes.add(new Route("GET", pattern, handler));
+    }
+
+    private void post(String pattern, Handler handler) {
+        routes.add(new Route("POST", pattern, handler));
+    }
+
+    public synchronized void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        executor = createExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::dispatch);
+        server.start();
+        System.out.println("HTTP service listening on port " + PORT + " (max " + MAX_CONCURRENT + " concurrent requests)");
+    }
+
+    public synchronized void stop(int graceSeconds) {
+        if (server == null) return;
+        server.stop(graceSeconds);
+        executor.shutdown();
+        server = null;
+        System.out.println("HTTP service stopped");
+    }
+
+    // Virtual thread per request where available (looked up reflectively: the code still targets Java 11)
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            System.out.println("HTTP requests run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            System.out.println("Virtual threads not available, using " + PLATFORM_THREADS + " request threads");
+            return Executors.newFixedThreadPool(PLATFORM_THREADS, r -> {
+                Thread t = new Thread(r, "http-worker-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+        String method = exchange.getRequestMethod();
+
+        Route route = null;
+        Map<String, String> params = null;
+        boolean pathMatched = false;
+        for (Route candidate : routes) {
+            Map<String, String> p = candidate.match(path);
+            if (p == null) continue;
+            pathMatched = true;
+            if (candidate.method.equals(method)) {
+                route = candidate;
+                params = p;
+                break;
+            }
+        }
+        if (route == null) {
+            send(exchange, new Response(pathMatched ? 405 : 404, Json.error(pathMatched ? "Method not allowed" : "Not found")));
+            return;
+        }
+
+        boolean acquired = false;
+        Response response;
+        try {
+            acquired = permits.tryAcquire(QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                rejected.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, new Response(503, Json.error("Server busy, try again")));
+                return;
+            }
+            inFlight.incrementAndGet();
+            response = route.handler.handle(new Request(exchange, params));
+        } catch (HttpError e) {
+            response = new Response(e.status, Json.error(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = new Response(503, Json.error("Server shutting down"));
+        } catch (Exception e) {
+            System.err.println("Error handling " + method + " " + exchange.getRequestURI() + ": " + e.getMessage());
+            e.printStackTrace();
+            response = new Response(500, Json.error("Internal error"));
+        } finally {
+            if (acquired) {
+                inFlight.decrementAndGet();
+                permits.release();
+            }
+        }
+
+        try {
+            send(exchange, response);
+        } finally {
+            long micros = (System.nanoTime() - start) / 1000;
+            stats.computeIfAbsent(route.method + " " + route.pattern, k -> new RouteStats())
+                 .record(micros, response.status >= 500);
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static Response ok(Json json) {
+        return new Response(200, json.toString());
+    }
+
+    private static String required(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new HttpError(400, name + " is required");
+        }
+        return value.trim();
+    }
+
+    private static Money amount(String text, String name) {
+        try {
+            return Money.parse(text);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, name + " must be an amount with at most two decimals");
+        }
+    }
+
+    // Handlers
+
+    private Response health(Request request) {
+        boolean up = Repositories.isInMemory() || DatabaseConnection.testConnection();
+        return new Response(up ? 200 : 503, new Json().beginObject()
+            .field("status", up ? "UP" : "DOWN").endObject().toString());
+    }
+
+    private Response metrics(Request request) {
+        Json json = new Json().beginObject()
+            .field("uptimeSeconds", (System.currentTimeMillis() - startedAt) / 1000)
+            .field("maxConcurrent", MAX_CONCURRENT)
+            .field("inFlight", inFlight.get())
+            .field("rejected", rejected.sum());
+
+        json.name("routes").beginArray();
+        for (Map.Entry<String, RouteStats> entry : new TreeMap<>(stats).entrySet()) {
+            RouteStats s = entry.getValue();
+            json.beginObject()
+                .field("route", entry.getKey())
+                .field("count", s.getCount())
+                .field("errors", s.getErrors())
+                .field("meanMicros", s.getMeanMicros())
+                .field("p50Micros", s.getPercentileMicros(0.50))
+                .field("p90Micros", s.getPercentileMicros(0.90))
+                .field("p99Micros", s.getPercentileMicros(0.99))
+                .field("maxMicros", s.getMaxMicros())
+                .endObject();
+        }
+        json.endArray();
+
+        PoolStats pool = DatabaseConnection.getPoolStats();
+        if (pool != null) {
+            json.name("pool").beginObject()
+                .field("active", pool.getActive())
+                .field("idle", pool.getIdle())
+                .field("waiters", pool.getWaiters())
+                .field("leaseTimeouts", pool.getLeaseTimeouts())
+                .field("averageLeaseWaitMicros", pool.getAverageLeaseWaitMicros())
+                .field("maxLeaseWaitMicros", pool.getMaxLeaseWaitMicros())
+                .endObject();
+        }
+        if (accountDAO instanceof WriteBehindAccountRepository) {
+            WriteBehindAccountRepository ledger = (WriteBehindAccountRepository) accountDAO;
+            json.name("ledger").beginObject()
+                .field("loadedAccounts", ledger.getLoadedAccounts())
+                .field("pendingRows", ledger.getPendingRows())
+                .field("flushedRows", ledger.getFlushedRows())
+                .field("failedFlushes", ledger.getFailedFlushes())
+                .field("setAsideAccounts", ledger.getSetAsideAccounts())
+                .field("lagMillis", ledger.getLagMillis())
+                .field("journalSequence", ledger.getJournalSequence())
+                .field("journalCheckpoint", ledger.getJournalCheckpoint())
+                .endObject();
+        }
+        if (accountDAO instanceof GroupCommitAccountRepository) {
+            GroupCommitAccountRepository group = (GroupCommitAccountRepository) accountDAO;
+            Histogram sizes = group.getBatchSizes();
+            Histogram added = group.getAddedLatencyMicros();
+            json.name("groupCommit").beginObject()
+                .field("commits", sizes.getCount())
+                .field("postings", sizes.getTotal())
+                .field("queued", group.getQueued())
+                .field("fallbacks", group.getFallbacks())
+                .field("meanBatchSize", sizes.getMean())
+                .field("p50BatchSize", sizes.getPercentile(0.50))
+                .field("p90BatchSize", sizes.getPercentile(0.90))
+                .field("p99BatchSize", sizes.getPercentile(0.99))
+                .field("maxBatchSize", sizes.getMax())
+                .field("meanAddedMicros", added.getMean())
+                .field("p50AddedMicros", added.getPercentile(0.50))
+                .field("p99AddedMicros", added.getPercentile(0.99))
+                .field("maxAddedMicros", added.getMax())
+                .endObject();
+        }
+        return ok(json.endObject());
+    }
+
+    private Response listCustomers(Request request) {
+        int offset = Math.max(0, request.queryInt("offset", 0));
+        int limit = Math.min(MAX_PAGE_SIZE, Math.max(1, request.queryInt("limit", 50)));
+        List<Customer> page = customerDAO.getCustomersPage(offset, limit, "customer_id", true);
+        if (page == null) {
+            throw new HttpError(500, "Could not read the customers");
+        }
+        Json json = new Json().beginObject().field("offset", offset).name("customers").beginArray();
+        for (Customer customer : page) {
+            writeCustomer(json, customer);
+        }
+        return ok(json.endArray().endObject());
+    }
+
+    private Response getCustomer(Request request) {
+        Customer customer = customerDAO.getCustomerById(request.pathInt("id"));
+        if (customer == null) {
+            throw new HttpError(404, "Customer not found");
+        }
+        return ok(writeCustomer(new Json(), customer));
+    }
+
+    private Response getCustomerAccounts(Request request) {
+        int customerId = request.pathInt("id");
+        if (customerDAO.getCustomerById(customerId) == null) {
+            throw new HttpError(404, "Customer not found");
+        }
+        Json json = new Json().beginObject().field("customerId", customerId).name("accounts").beginArray();
+        for (Account account : accountDAO.getAccountsByCustomerId(customerId)) {
+            writeAccount(json, account);
+        }
+        return ok(json.endArray().endObject());
+    }
+
+    private Response addCustomer(Request request) throws Exception {
+        Map<String, String> body = request.body();
+        Customer customer = new Customer(required(body, "firstName"), required(body, "lastName"),
+            required(body, "email").toLowerCase(), body.get("phone"), body.get("address"));
+        if (customer.getFirstName().length() > 50 || customer.getLastName().length() > 50 ||
+            customer.getEmail().length() > 100 || (customer.getPhone() != null && customer.getPhone().length() > 15)) {
+            throw new HttpError(400, "A field is longer than allowed");
+        }
+        if (customerDAO.getCustomerByEmail(customer.getEmail()) != null) {
+            throw new HttpError(409, "A customer with this email already exists");
+        }
+        if (!customerDAO.addCustomer(customer)) {
+            throw new HttpError(500, "Customer could not be added");
+        }
+        return new Response(201, writeCustomer(new Json(), customer).toString());
+    }
+
+    private Response createAccount(Request request) throws Exception {
+        Map<String, String> body = request.body();
+        int customerId;
+        try {
+            customerId = Integer.parseInt(required(body, "customerId"));
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "customerId must be a number");
+        }
+        String accountType = required(body, "accountType").toUpperCase();
+        String balanceText = body.get("initialBalance");
+        Money initialBalance = balanceText == null ? Money.ZERO : amount(balanceText, "initialBalance");
+        if (initialBalance.isNegative()) {
+            throw new HttpError(400, "initialBalance cannot be negative");
+        }
+        if (customerDAO.getCustomerById(customerId) == null) {
+            throw new HttpError(404, "Customer not found");
+        }
+
+        String accountNumber;
+        try {
+            accountNumber = accountNumberAllocator.next(accountType);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "accountType must be SAVINGS, CURRENT or FIXED_DEPOSIT");
+        }
+        if (accountNumber == null) {
+            throw new HttpError(503, "No account number available, try again");
+        }
+        Account account = new Account(customerId, accountNumber, accountType);
+        account.setBalance(initialBalance);
+        account.setStatus("ACTIVE");
+        if (!accountDAO.createAccount(account)) {
+            throw new HttpError(500, "Account could not be created");
+        }
+        return new Response(201, writeAccount(new Json(), account).toString());
+    }
+
+    private Response getAccount(Request request) {
+        return ok(writeAccount(new Json(), findAccount(request)));
+    }
+
+    private Response getBalance(Request request) {
+        Account account = findAccount(request);
+        return ok(new Json().beginObject()
+            .field("accountNumber", account.getAccountNumber())
+            .field("balance", account.getBalance())
+            .field("status", account.getStatus())
+            .endObject());
+    }
+
+    private Response getTransactions(Request request) {
+        if (Repositories.isInMemory()) {
+            throw new HttpError(501, "Transaction history is not kept with banking.storage=memory");
+        }
+        Account account = findAccount(request);
+        LocalDate from;
+        LocalDate to;
+        Timestamp afterDate = null;
+        try {
+            to = request.query.containsKey("to") ? LocalDate.parse(request.query.get("to")) : LocalDate.now();
+            from = request.query.containsKey("from") ? LocalDate.parse(request.query.get("from")) : to.minusDays(30);
+            if (request.query.containsKey("afterDate")) {
+                afterDate = Timestamp.valueOf(request.query.get("afterDate"));
+            }
+        } catch (RuntimeException e) {
+            throw new HttpError(400, "Dates are yyyy-MM-dd, afterDate is yyyy-MM-dd HH:mm:ss[.f]");
+        }
+        int afterId = request.queryInt("afterId", 0);
+        int limit = Math.min(MAX_PAGE_SIZE, Math.max(1, request.queryInt("limit", 100)));
+
+        List<Transaction> page = transactionDAO.getTransactionsPage(account.getAccountId(),
+            Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()),
+            afterDate, afterId, limit);
+        if (page == null) {
+            throw new HttpError(500, "Could not read the transactions");
+        }
+
+        Json json = new Json().beginObject().field("accountNumber", account.getAccountNumber())
+            .name("transactions").beginArray();
+        for (Transaction transaction : page) {
+            json.beginObject()
+                .field("transactionId", transaction.getTransactionId())
+                .field("type", transaction.getTransactionType())
+                .field("amount", transaction.getAmount())
+                .field("description", transaction.getDescription())
+                .field("date", transaction.getTransactionDate())
+                .endObject();
+        }
+        json.endArray().name("next");
+        if (page.size() == limit) {
+            // Keyset cursor: pass both back to get the following page
+            Transaction last = page.get(page.size() - 1);
+            json.beginObject()
+                .field("afterDate", last.getTransactionDate())
+                .field("afterId", last.getTransactionId())
+                .endObject();
+        } else {
+            json.value((String) null);
+        }
+        return ok(json.endObject());
+    }
+
+    private Response post(Request request, String transactionType) throws Exception {
+        Map<String, String> body = request.body();
+        Posting posting = new Posting(request.path("number"), transactionType,
+            amount(required(body, "amount"), "amount"), body.get("description"));
+        PostingResult result = accountDAO.post(posting);
+
+        switch (result.getStatus()) {
+            case SUCCESS:
+            case NOT_DURABLE:
+                // 202 for a posting that is applied but not yet crash safe: not an error to retry
+                Json json = new Json().beginObject()
+                    .field("transactionId", result.getTransactionId())
+                    .field("accountNumber", result.getAccountNumber())
+                    .field("previousBalance", result.getPreviousBalance())
+                    .field("newBalance", result.getNewBalance());
+                if (!result.isSuccess()) {
+                    json.field("durable", false).field("warning", result.getMessage());
+                }
+                return new Response(result.isSuccess() ? 201 : 202, json.endObject().toString());
+            case INSUFFICIENT_FUNDS:
+                return new Response(409, new Json().beginObject()
+                    .field("error", result.getMessage())
+                    .field("availableBalance", result.getNewBalance())
+                    .endObject().toString());
+            case ACCOUNT_NOT_FOUND:
+                throw new HttpError(404, "Account not found");
+            case INVALID_REQUEST:
+                throw new HttpError(400, "Amount must be positive and the account number valid");
+            default:
+                throw new HttpError(500, result.getMessage());
+        }
+    }
+
+    // The path account is debited
+    private Response transfer(Request request) throws Exception {
+        Map<String, String> body = request.body();
+        TransferResult result = accountDAO.transfer(request.path("number"), required(body, "toAccountNumber"),
+            amount(required(body, "amount"), "amount"), body.get("description"));
+
+        switch (result.getStatus()) {
+            case SUCCESS:
+            case NOT_DURABLE:
+                // 202 as for a posting: applied, not yet crash safe, not to be retried
+                Json json = new Json().beginObject()
+                    .field("debitTransactionId", result.getDebitTransactionId())
+                    .field("creditTransactionId", result.getCreditTransactionId())
+                    .field("fromAccountNumber", result.getFromAccountNumber())
+                    .field("toAccountNumber", result.getToAccountNumber())
+                    .field("amount", result.getAmount())
+                    .field("fromBalance", result.getFromBalance())
+                    .field("toBalance", result.getToBalance())
+                    .field("attempts", result.getAttempts());
+                if (!result.isSuccess()) {
+                    json.field("durable", false).field("warning", result.getMessage());
+                }
+                return new Response(result.isSuccess() ? 201 : 202, json.endObject().toString());
+            case INSUFFICIENT_FUNDS:
+                return new Response(409, new Json().beginObject()
+                    .field("error", result.getMessage())
+                    .field("availableBalance", result.getFromBalance())
+                    .endObject().toString());
+            case ACCOUNT_NOT_FOUND:
+                throw new HttpError(404, result.getMessage());
+            case INVALID_REQUEST:
+                throw new HttpError(400, "Amount must be positive and the two account numbers valid and different");
+            default:
+                throw new HttpError(500, result.getMessage());
+        }
+    }
+
+    private Account findAccount(Request request) {
+        Account account = accountDAO.getAccountByNumber(request.path("number"));
+        if (account == null) {
+            throw new HttpError(404, "Account not found");
+        }
+        return account;
+    }
+
+    private static Json writeCustomer(Json json, Customer customer) {
+        return json.beginObject()
+            .field("customerId", customer.getCustomerId())
+            .field("firstName", customer.getFirstName())
+            .field("lastName", customer.getLastName())
+            .field("email", customer.getEmail())
+            .field("phone", customer.getPhone())
+            .field("address", customer.getAddress())
+            .field("dateCreated", customer.getDateCreated())
+            .endObject();
+    }
+
+    private static Json writeAccount(Json json, Account account) {
+        return json.beginObject()
+            .field("accountId", account.getAccountId())
+            .field("accountNumber", account.getAccountNumber())
+            .field("customerId", account.getCustomerId())
+            .field("accountType", account.getAccountType())
+            .field("balance", account.getBalance())
+            .field("status", account.getStatus())
+            .field("dateCreated", account.getDateCreated())
+            .endObject();
+    }
+}
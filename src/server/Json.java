@@ -0,0 +1,194 @@
+package server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.Money;
+
+/**
+ * Just enough JSON for the HTTP service, without a library on the classpath.
+ *
+ * Writing: an append-only builder; commas are inserted automatically.
+ * Reading: request bodies are flat objects ({"name": value, ...}); every value comes back
+ * as its source text (strings unescaped), so amounts reach Money.parse exactly as sent and
+ * never pass through a double. Money is written as a string ("12.50") for the same reason.
+ */
+final class Json {
+    private final StringBuilder sb = new StringBuilder(256);
+
+    Json beginObject() { separate(); sb.append('{'); return this; }
+    Json endObject() { sb.append('}'); return this; }
+    Json beginArray() { separate(); sb.append('['); return this; }
+    Json endArray() { sb.append(']'); return this; }
+
+    Json name(String name) {
+        separate();
+        quote(name);
+        sb.append(':');
+        return this;
+    }
+
+    Json value(String value) {
+        separate();
+        if (value == null) sb.append("null"); else quote(value);
+        return this;
+    }
+
+    Json value(long value) {
+        separate();
+        sb.append(value);
+        return this;
+    }
+
+    Json value(boolean value) {
+        separate();
+        sb.append(value);
+        return this;
+    }
+
+    Json value(Money value) {
+        return value(value == null ? null : value.toString());
+    }
+
+    Json field(String name, String value) { return name(name).value(value); }
+    Json field(String name, long value) { return name(name).value(value); }
+    Json field(String name, boolean value) { return name(name).value(value); }
+    Json field(String name, Money value) { return name(name).value(value); }
+    Json field(String name, Object value) { return name(name).value(value == null ? null : value.toString()); }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+
+    static String error(String message) {
+        return new Json().beginObject().field("error", message).endObject().toString();
+    }
+
+    // A comma is needed unless this is the first element of an object/array or follows a name
+    private void separate() {
+        if (sb.length() == 0) return;
+        char last = sb.charAt(sb.length() - 1);
+        if (last != '{' && last != '[' && last != ':') {
+            sb.append(',');
+        }
+    }
+
+    private void quote(String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00");
+                        sb.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /** Parses a flat JSON object; throws IllegalArgumentException for anything else. */
+    static Map<String, String> parseObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, String> fields = new LinkedHashMap<>();
+        p.skipSpace();
+        p.expect('{');
+        p.skipSpace();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipSpace();
+                String name = p.string();
+                p.skipSpace();
+                p.expect(':');
+                p.skipSpace();
+                fields.put(name, p.scalar());
+                p.skipSpace();
+                if (p.peek() == ',') {
+                    p.pos++;
+                    continue;
+                }
+                p.expect('}');
+                break;
+            }
+        }
+        p.skipSpace();
+        if (p.pos != text.length()) {
+            throw new IllegalArgumentException("Unexpected content after the JSON object");
+        }
+        return fields;
+    }
+
+    private static class Parser {
+        final String text;
+        int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            if (pos >= text.length()) throw new IllegalArgumentException("Unexpected end of JSON");
+            return text.charAt(pos);
+        }
+
+        void expect(char c) {
+            if (peek() != c) throw new IllegalArgumentException("Expected '" + c + "' at position " + pos);
+            pos++;
+        }
+
+        void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        String scalar() {
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw new IllegalArgumentException("Nested values are not supported");
+            int start = pos;
+            while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) pos++;
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty()) throw new IllegalArgumentException("Missing value at position " + start);
+            return "null".equals(literal) ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = peek();
+                pos++;
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw new IllegalArgumentException("Bad \\u escape");
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            }
+        }
+    }
+}
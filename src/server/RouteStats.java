@@ -0,0 +1,29 @@
+package server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import util.Histogram;
+
+/**
+ * Request count, error count and a latency histogram (util.Histogram, in microseconds) for
+ * one route. Recording takes no lock and allocates nothing.
+ */
+class RouteStats {
+    private final Histogram latency = new Histogram();
+    private final LongAdder errors = new LongAdder();
+
+    void record(long micros, boolean error) {
+        latency.record(micros);
+        if (error) errors.increment();
+    }
+
+    long getCount() { return latency.getCount(); }
+    long getErrors() { return errors.sum(); }
+    long getMaxMicros() { return latency.getMax(); }
+    long getMeanMicros() { return latency.getMean(); }
+
+    // Upper bound of the bucket holding the given quantile (0 < quantile <= 1)
+    long getPercentileMicros(double quantile) {
+        return latency.getPercentile(quantile);
+    }
+}
@@ -0,0 +1,75 @@
+package service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import dao.AccountNumberSequence;
+import dao.Repositories;
+import util.AccountNumbers;
+import util.AppConfig;
+
+/**
+ * Hands out unique account numbers (see util.AccountNumbers for the format).
+ *
+ * Hi/lo allocation: for each prefix the allocator reserves a block of banking.accounts.numberBlockSize
+ * numbers from the account_number_sequences table, then serves the block from memory, so only
+ * one in every block-size accounts costs a database round trip. Reservations are atomic in
+ * the database, so several application instances never hand out the same number. Numbers
+ * left in a block when the application stops are never used, which leaves gaps but no
+ * collisions.
+ */
+public class AccountNumberAllocator {
+    private static final int BLOCK_SIZE = Math.max(1, AppConfig.getInt("banking.accounts.numberBlockSize", 100));
+    private static final int RESERVE_ATTEMPTS = 3;
+
+    private static final AccountNumberAllocator INSTANCE = new AccountNumberAllocator();
+
+    private final AccountNumberSequence sequence = Repositories.accountNumberSequence();
+    private final Map<String, Block> blocks = new HashMap<>();
+
+    private static class Block {
+        long next;
+        long end; // exclusive
+    }
+
+    public static AccountNumberAllocator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Next unused number for the account type (SAVINGS, CURRENT or FIXED_DEPOSIT), or null if
+     * no block could be reserved (e.g. the database is down).
+     */
+    public String next(String accountType) {
+        String prefix = AccountNumbers.prefixFor(accountType);
+        Block block;
+        synchronized (blocks) {
+            block = blocks.computeIfAbsent(prefix, p -> new Block());
+        }
+        long sequence;
+        // One lock per prefix: other types keep allocating while this one reserves a block
+        synchronized (block) {
+            if (block.next >= block.end && !reserve(prefix, block)) {
+                return null;
+            }
+            sequence = block.next++;
+        }
+        return AccountNumbers.format(prefix, sequence);
+    }
+
+    private boolean reserve(String prefix, Block block) {
+        for (int attempt = 1; attempt <= RESERVE_ATTEMPTS; attempt++) {
+            long first = sequence.reserveBlock(prefix, BLOCK_SIZE);
+            if (first > 0) {
+                if (first + BLOCK_SIZE - 1 > AccountNumbers.MAX_SEQUENCE) {
+                    System.err.println("Account numbers for prefix " + prefix + " are exhausted");
+                    return false;
+                }
+                block.next = first;
+                block.end = first + BLOCK_SIZE;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,182 @@
+package service;
+
+import javax.swing.*;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import dao.AccountRepository;
+import dao.CustomerRepository;
+import dao.Repositories;
+import model.Account;
+import model.BulkPostingResult;
+import model.Customer;
+import model.Money;
+import model.Posting;
+import model.PostingResult;
+import model.TransferResult;
+import util.AppConfig;
+
+/**
+ * Runs DAO calls off the Swing event dispatch thread.
+ *
+ * Every method returns immediately with a CompletableFuture that is completed on the EDT,
+ * so callbacks attached with thenAccept/exceptionally may touch Swing components directly.
+ * Identical requests that are still running are shared instead of being sent twice
+ * (a double-clicked button posts once). Cancelling a future stops the work if it has not
+ * started yet; a query already on the wire finishes but its result is dropped.
+ */
+public class AsyncBankingService {
+    private static final AsyncBankingService INSTANCE = new AsyncBankingService();
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final AccountRepository accountDAO = Repositories.accounts();
+    private final CustomerRepository customerDAO = Repositories.customers();
+
+    private AsyncBankingService() {
+        int threads = AppConfig.getInt("banking.async.threads", 4);
+        int queueSize = AppConfig.getInt("banking.async.queueSize", 200);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            r -> {
+                Thread t = new Thread(r, "dao-worker-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static AsyncBankingService getInstance() {
+        return INSTANCE;
+    }
+
+    // Accounts
+
+    public CompletableFuture<Account> getAccountByNumber(String accountNumber) {
+        return submit("account:" + accountNumber, () -> accountDAO.getAccountByNumber(accountNumber));
+    }
+
+    public CompletableFuture<Boolean> verifyAccountExists(String accountNumber) {
+        return submit("exists:" + accountNumber, () -> accountDAO.verifyAccountExists(accountNumber));
+    }
+
+    public CompletableFuture<List<Account>> getAccountsByCustomerId(int customerId) {
+        return submit("accounts-of:" + customerId, () -> accountDAO.getAccountsByCustomerId(customerId));
+    }
+
+    public CompletableFuture<Boolean> createAccount(Account account) {
+        return submit("create-account:" + account.getAccountNumber(), () -> accountDAO.createAccount(account));
+    }
+
+    public CompletableFuture<PostingResult> post(Posting posting) {
+        // Same account, type, amount and description while the first is still running = double click
+        String key = "post:" + posting.getAccountNumber() + ":" + posting.getTransactionType() + ":" +
+                     posting.getAmount() + ":" + posting.getDescription();
+        return submit(key, () -> accountDAO.post(posting));
+    }
+
+    public CompletableFuture<TransferResult> transfer(String fromAccountNumber, String toAccountNumber,
+                                                      Money amount, String description) {
+        String key = "transfer:" + fromAccountNumber + ":" + toAccountNumber + ":" + amount + ":" + description;
+        return submit(key, () -> accountDAO.transfer(fromAccountNumber, toAccountNumber, amount, description));
+    }
+
+    public CompletableFuture<BulkPostingResult> postAll(Collection<Posting> postings) {
+        return submit(null, () -> accountDAO.postAll(postings));
+    }
+
+    // Customers
+
+    public CompletableFuture<List<Customer>> getAllCustomers() {
+        return submit("customers", customerDAO::getAllCustomers);
+    }
+
+    public CompletableFuture<Customer> getCustomerById(int customerId) {
+        return submit("customer:" + customerId, () -> customerDAO.getCustomerById(customerId));
+    }
+
+    public CompletableFuture<Boolean> addCustomer(Customer customer) {
+        return submit("add-customer:" + customer.getEmail(), () -> {
+            boolean added = customerDAO.addCustomer(customer);
+            if (added) {
+                CustomerDirectory.getInstance().put(customer);
+            }
+            return added;
+        });
+    }
+
+    public CompletableFuture<Boolean> updateCustomer(Customer customer) {
+        return submit("update-customer:" + customer.getCustomerId(), () -> {
+            boolean updated = customerDAO.updateCustomer(customer);
+            if (updated) {
+                CustomerDirectory.getInstance().put(customer);
+            }
+            return updated;
+        });
+    }
+
+    /** Runs arbitrary DAO work on the worker pool; key may be null to skip de-duplication. */
+    public <T> CompletableFuture<T> submit(String key, Callable<T> work) {
+        AtomicReference<Future<?>> task = new AtomicReference<>();
+        CompletableFuture<T> result = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                Future<?> running = task.get();
+                if (running != null) {
+                    running.cancel(mayInterruptIfRunning);
+                }
+                return cancelled;
+            }
+        };
+
+        if (key != null) {
+            @SuppressWarnings("unchecked")
+            CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, result);
+            if (existing != null) {
+                return existing;
+            }
+            result.whenComplete((value, error) -> inFlight.remove(key, result));
+        }
+
+        try {
+            task.set(executor.submit(() -> {
+                if (result.isDone()) return;
+                try {
+                    T value = work.call();
+                    SwingUtilities.invokeLater(() -> result.complete(value));
+                } catch (Throwable t) {
+                    SwingUtilities.invokeLater(() -> result.completeExceptionally(t));
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            SwingUtilities.invokeLater(() -> result.completeExceptionally(
+                new IllegalStateException("The system is busy, please try again in a moment.", e)));
+        }
+        return result;
+    }
+
+    public int getQueuedTaskCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveTaskCount() {
+        return executor.getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,26 @@
+package service;
+
+import java.time.LocalDate;
+
+import dao.BalanceSnapshotDAO;
+import util.DatabaseConnection;
+
+/**
+ * End-of-day job: stores every account's closing balance for a day.
+ *
+ *   java -cp "bin:lib/*" service.BalanceSnapshotJob              (yesterday; schedule shortly after midnight)
+ *   java -cp "bin:lib/*" service.BalanceSnapshotJob 2024-03-31   (a given day, e.g. to backfill)
+ */
+public class BalanceSnapshotJob {
+
+    public static void main(String[] args) {
+        LocalDate day = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now().minusDays(1);
+        int accounts;
+        try {
+            accounts = new BalanceSnapshotDAO().takeSnapshots(day);
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(accounts >= 0 ? 0 : 1);
+    }
+}
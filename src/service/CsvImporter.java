@@ -0,0 +1,382 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import dao.ImportDAO;
+import model.Account;
+import model.Customer;
+import model.ImportReport;
+import model.ImportRow;
+import model.Money;
+import util.AccountNumbers;
+import util.AppConfig;
+
+/**
+ * Loads customers (and optionally one account each) from a CSV file.
+ *
+ * Three stages connected by bounded queues:
+ *   reader     - streams the file and cuts it into chunks of banking.import.chunkSize lines
+ *   validators - banking.import.threads threads normalize and validate chunks in parallel,
+ *                including an email / account number lookup against the database per chunk
+ *   writer     - takes chunks back in file order, drops in-file duplicates and inserts each
+ *                chunk with batched multi-row INSERTs in one transaction
+ *
+ * After each chunk commits, its last line number is saved to <file>.checkpoint and its bad
+ * rows are appended to <file>.rejects.csv (original line plus reason). Running the import
+ * again on the same file resumes after the checkpoint.
+ *
+ * File format: a header line, then
+ *   first_name,last_name,email,phone,address[,account_type,account_number,initial_balance]
+ * An empty account_number gets a newly allocated one (see AccountNumberAllocator).
+ * Fields may be quoted ("..."), one record per line.
+ */
+public class CsvImporter {
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Set<String> ACCOUNT_TYPES = new HashSet<>(java.util.Arrays.asList("SAVINGS", "CURRENT", "FIXED_DEPOSIT"));
+    private static final int REPORT_EVERY_CHUNKS = 20;
+
+    private final ImportDAO importDAO = new ImportDAO();
+    private final AccountNumberAllocator accountNumberAllocator = AccountNumberAllocator.getInstance();
+    private final int threads;
+    private final int chunkSize;
+
+    public CsvImporter() {
+        this(AppConfig.getInt("banking.import.threads", Runtime.getRuntime().availableProcessors()),
+             AppConfig.getInt("banking.import.chunkSize", 1000));
+    }
+
+    public CsvImporter(int threads, int chunkSize) {
+        this.threads = Math.max(1, threads);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    private static class Chunk {
+        final long sequence;
+        final List<ImportRow> rows;
+
+        Chunk(long sequence, List<ImportRow> rows) {
+            this.sequence = sequence;
+            this.rows = rows;
+        }
+    }
+
+    // Marks the end of the input on the queues
+    private static final Chunk END = new Chunk(-1, null);
+
+    public ImportReport importFile(Path input) throws IOException, InterruptedException {
+        Path checkpointFile = input.resolveSibling(input.getFileName() + ".checkpoint");
+        Path rejectFile = input.resolveSibling(input.getFileName() + ".rejects.csv");
+        long resumeAfter = readCheckpoint(checkpointFile);
+        if (resumeAfter > 0) {
+            System.out.println("Resuming import of " + input + " after line " + resumeAfter);
+        }
+
+        long start = System.currentTimeMillis();
+        AtomicLong rowsRead = new AtomicLong();
+        AtomicLong rowsSkipped = new AtomicLong();
+        AtomicLong validateNanos = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        BlockingQueue<Chunk> toValidate = new ArrayBlockingQueue<>(threads * 2);
+        BlockingQueue<Chunk> toWrite = new ArrayBlockingQueue<>(threads * 2);
+
+        // Stage 1: reader
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                String line = in.readLine(); // header
+                long lineNumber = 1;
+                long sequence = 0;
+                List<ImportRow> rows = new ArrayList<>(chunkSize);
+                while ((line = in.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber <= resumeAfter) {
+                        rowsSkipped.incrementAndGet();
+                        continue;
+                    }
+                    if (line.trim().isEmpty()) continue;
+                    rows.add(new ImportRow(lineNumber, line));
+                    rowsRead.incrementAndGet();
+                    if (rows.size() == chunkSize) {
+                        toValidate.put(new Chunk(sequence++, rows));
+                        rows = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    toValidate.put(new Chunk(sequence, rows));
+                }
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                for (int i = 0; i < threads; i++) {
+                    putQuietly(toValidate, END);
+                }
+            }
+        }, "import-reader");
+
+        // Stage 2: validators
+        ExecutorService validators = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "import-validator");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < threads; i++) {
+            validators.execute(() -> {
+                try {
+                    Chunk chunk;
+                    while ((chunk = toValidate.take()) != END) {
+                        long t0 = System.nanoTime();
+                        validate(chunk.rows);
+                        validateNanos.addAndGet(System.nanoTime() - t0);
+                        toWrite.put(chunk);
+                    }
+                } catch (InterruptedException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    putQuietly(toWrite, END);
+                }
+            });
+        }
+
+        reader.start();
+
+        // Stage 3: writer (this thread), committing chunks strictly in file order
+        long customers = 0;
+        long accounts = 0;
+        long rejected = 0;
+        long writeNanos = 0;
+        Set<String> emailsSeen = new HashSet<>();
+        Set<String> accountNumbersSeen = new HashSet<>();
+        Map<Long, Chunk> outOfOrder = new HashMap<>();
+        long nextSequence = 0;
+        int validatorsDone = 0;
+        int chunksWritten = 0;
+
+        try (BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8,
+                 StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (validatorsDone < threads && failure.get() == null) {
+                Chunk chunk = toWrite.poll(1, TimeUnit.SECONDS);
+                if (chunk == null) continue;
+                if (chunk == END) {
+                    validatorsDone++;
+                    continue;
+                }
+                outOfOrder.put(chunk.sequence, chunk);
+
+                Chunk next;
+                while ((next = outOfOrder.remove(nextSequence)) != null) {
+                    long t0 = System.nanoTime();
+                    for (ImportRow row : next.rows) {
+                        if (row.isRejected()) continue;
+                        if (!emailsSeen.add(row.getCustomer().getEmail())) {
+                            row.reject("Duplicate email in file");
+                        } else if (row.getAccount() != null && !accountNumbersSeen.add(row.getAccount().getAccountNumber())) {
+                            row.reject("Duplicate account number in file");
+                        }
+                    }
+                    int[] inserted = importDAO.insertBatch(next.rows);
+                    customers += inserted[0];
+                    accounts += inserted[1];
+                    writeNanos += System.nanoTime() - t0;
+
+                    for (ImportRow row : next.rows) {
+                        if (row.isRejected()) {
+                            rejected++;
+                            rejects.write(row.getLine() + ",\"" + row.getRejectReason().replace("\"", "'") + "\"");
+                            rejects.newLine();
+                        }
+                    }
+                    rejects.flush();
+                    // Only now is everything up to this chunk's last line done
+                    writeCheckpoint(checkpointFile, next.rows.get(next.rows.size() - 1).getLineNumber());
+                    nextSequence++;
+
+                    if (++chunksWritten % REPORT_EVERY_CHUNKS == 0) {
+                        System.out.println("Import progress: " + new ImportReport(rowsRead.get(), customers, accounts,
+                            rejected, rowsSkipped.get(), System.currentTimeMillis() - start,
+                            validateNanos.get() / 1000000, writeNanos / 1000000));
+                    }
+                }
+            }
+        } finally {
+            reader.interrupt();
+            validators.shutdownNow();
+            validators.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        if (failure.get() != null) {
+            throw new IOException("Import stopped, resume from the checkpoint: " + failure.get().getMessage(), failure.get());
+        }
+        if (!outOfOrder.isEmpty()) {
+            throw new IOException("Import stopped with " + outOfOrder.size() + " chunks unwritten; resume from the checkpoint");
+        }
+
+        ImportReport report = new ImportReport(rowsRead.get(), customers, accounts, rejected, rowsSkipped.get(),
+            System.currentTimeMillis() - start, validateNanos.get() / 1000000, writeNanos / 1000000);
+        System.out.println("Import finished: " + report);
+        return report;
+    }
+
+    // Normalizes each row and rejects the invalid ones; ends with one lookup per chunk for taken keys
+    private void validate(List<ImportRow> rows) {
+        Set<String> emails = new LinkedHashSet<>();
+        Set<String> accountNumbers = new LinkedHashSet<>();
+
+        for (ImportRow row : rows) {
+            List<String> fields = parseCsvLine(row.getLine());
+            if (fields.size() != 5 && fields.size() != 8) {
+                row.reject("Expected 5 or 8 fields, found " + fields.size());
+                continue;
+            }
+            Customer customer = new Customer(
+                fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim().toLowerCase(),
+                emptyToNull(fields.get(3).replaceAll("[\\s()-]", "")), emptyToNull(fields.get(4).trim()));
+            if (customer.getFirstName().isEmpty() || customer.getFirstName().length() > 50) {
+                row.reject("First name is required (max 50 characters)");
+            } else if (customer.getLastName().isEmpty() || customer.getLastName().length() > 50) {
+                row.reject("Last name is required (max 50 characters)");
+            } else if (customer.getEmail().length() > 100 || !EMAIL.matcher(customer.getEmail()).matches()) {
+                row.reject("Invalid email");
+            } else if (customer.getPhone() != null && customer.getPhone().length() > 15) {
+                row.reject("Phone number longer than 15 characters");
+            }
+            row.setCustomer(customer);
+
+            if (fields.size() == 8 && !row.isRejected()) {
+                String accountType = fields.get(5).trim().toUpperCase();
+                String accountNumber = fields.get(6).trim().toUpperCase();
+                if (!ACCOUNT_TYPES.contains(accountType)) {
+                    row.reject("Invalid account type");
+                } else if (accountNumber.length() > 20) {
+                    row.reject("Account number longer than 20 characters");
+                } else if (!accountNumber.isEmpty() && !AccountNumbers.isPlausible(accountNumber)) {
+                    row.reject("Account number check digit does not match");
+                } else {
+                    try {
+                        String balanceText = fields.get(7).trim();
+                        Money balance = balanceText.isEmpty() ? Money.ZERO : Money.parse(balanceText);
+                        if (balance.isNegative()) {
+                            row.reject("Initial balance cannot be negative");
+                        } else if (accountNumber.isEmpty()) {
+                            // No number in the file: allocate one, unique by construction
+                            String allocated = accountNumberAllocator.next(accountType);
+                            if (allocated == null) {
+                                row.reject("Could not allocate an account number");
+                            } else {
+                                row.setAccount(newAccount(allocated, accountType, balance));
+                            }
+                        } else {
+                            row.setAccount(newAccount(accountNumber, accountType, balance));
+                            accountNumbers.add(accountNumber);
+                        }
+                    } catch (NumberFormatException e) {
+                        row.reject("Invalid initial balance");
+                    }
+                }
+            }
+
+            if (!row.isRejected()) {
+                emails.add(customer.getEmail());
+            }
+        }
+
+        try {
+            Set<String> takenEmails = importDAO.findExistingEmails(emails);
+            Set<String> takenNumbers = importDAO.findExistingAccountNumbers(accountNumbers);
+            for (ImportRow row : rows) {
+                if (row.isRejected()) continue;
+                if (takenEmails.contains(row.getCustomer().getEmail())) {
+                    row.reject("Email already exists");
+                } else if (row.getAccount() != null && takenNumbers.contains(row.getAccount().getAccountNumber())) {
+                    row.reject("Account number already exists");
+                }
+            }
+        } catch (SQLException e) {
+            // The unique keys still protect the tables; the writer rejects what collides
+            System.err.println("Uniqueness pre-check failed, relying on the database: " + e.getMessage());
+        }
+    }
+
+    private static Account newAccount(String accountNumber, String accountType, Money balance) {
+        Account account = new Account(0, accountNumber, accountType);
+        account.setBalance(balance);
+        return account;
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static long readCheckpoint(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        String text = new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8).trim();
+        return text.isEmpty() ? 0 : Long.parseLong(text);
+    }
+
+    // Write-then-rename so a crash never leaves a half-written checkpoint
+    private static void writeCheckpoint(Path checkpointFile, long lineNumber) throws IOException {
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.write(temp, Long.toString(lineNumber).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void putQuietly(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+import model.Account;
+import model.Money;
+import model.Transaction;
+
+// Statement as CSV: one row per transaction with the balance after it
+public class CsvStatementWriter implements StatementWriter {
+    private final Writer out;
+
+    public CsvStatementWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin(Account account, LocalDate from, LocalDate to, Money openingBalance) throws IOException {
+        out.write("Date,Transaction ID,Type,Description,Amount,Balance\n");
+        out.write(from + ",,OPENING,Opening balance,," + openingBalance.toString() + "\n");
+    }
+
+    @Override
+    public void transaction(Transaction transaction, Money runningBalance) throws IOException {
+        out.write(transaction.getTransactionDate().toString());
+        out.write(',');
+        out.write(Integer.toString(transaction.getTransactionId()));
+        out.write(',');
+        out.write(transaction.getTransactionType());
+        out.write(',');
+        out.write(escape(transaction.getDescription()));
+        out.write(',');
+        out.write(transaction.getSignedAmount().toString());
+        out.write(',');
+        out.write(runningBalance.toString());
+        out.write('\n');
+    }
+
+    @Override
+    public void end(Money closingBalance, int transactionCount, Money totalCredits, Money totalDebits) throws IOException {
+        out.write(",,CLOSING,Closing balance,," + closingBalance.toString() + "\n");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
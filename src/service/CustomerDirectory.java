@@ -0,0 +1,192 @@
+package service;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import dao.CustomerRepository;
+import dao.Repositories;
+import model.Customer;
+import util.IntObjectMap;
+
+/**
+ * Every customer, loaded once and kept in memory for the customer pickers.
+ *
+ * Lookups by id go through a primitive int map and positional access through a list
+ * ordered by id, so both are constant time. AsyncBankingService feeds added and updated
+ * customers in as they are saved, so the directory is only read from the database on first
+ * use and on an explicit reload.
+ *
+ * The Swing models read it on the EDT as size-then-get sequences, so the map and list are
+ * only touched there: must be read on the EDT. put() hands the customer to the EDT, which
+ * changes the one entry in place (a map put plus a list set, or an append for a new id),
+ * so a save costs the same with ten customers or two hundred thousand. A reload builds the
+ * new map and list on the worker thread and swaps them in on the EDT; customers put while it
+ * was reading are applied again after the swap, as the rows it read may predate them. The
+ * listeners are called on the EDT after every change. Returned customers are shared: treat
+ * them as read-only.
+ */
+public class CustomerDirectory {
+    private static final CustomerDirectory INSTANCE = new CustomerDirectory();
+
+    private final CustomerRepository customerDAO = Repositories.customers();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private CompletableFuture<Void> loaded;
+
+    // Confined to the EDT
+    private IntObjectMap<Customer> byId = new IntObjectMap<>();
+    private List<Customer> ordered = new ArrayList<>();
+
+    // Guarded by this: customers put since the oldest running reload started reading
+    private int reloadsRunning = 0;
+    private final List<Customer> putsDuringReload = new ArrayList<>();
+
+    private CustomerDirectory() {
+    }
+
+    public static CustomerDirectory getInstance() {
+        return INSTANCE;
+    }
+
+    /** Loads the directory the first time it is called; later calls return the same future. */
+    public synchronized CompletableFuture<Void> ensureLoaded() {
+        if (loaded == null || loaded.isCompletedExceptionally()) {
+            loaded = reload();
+        }
+        return loaded;
+    }
+
+    /** Re-reads every customer from the database (the Refresh buttons). */
+    public synchronized CompletableFuture<Void> reload() {
+        CompletableFuture<Void> result = AsyncBankingService.getInstance().submit("customer-directory", () -> {
+            synchronized (this) {
+                reloadsRunning++;
+            }
+            // Streamed so the driver never buffers the whole table next to the directory
+            List<Customer> customers = new ArrayList<>();
+            try {
+                try (Stream<Customer> stream = customerDAO.streamAllCustomers()) {
+                    stream.forEach(customers::add);
+                }
+            } catch (RuntimeException e) {
+                reloadDone();
+                throw e;
+            }
+            replaceAll(customers);
+            System.out.println("Customer directory loaded: " + customers.size() + " customers");
+            return null;
+        });
+        loaded = result;
+        return result;
+    }
+
+    public Customer get(int customerId) {
+        return byId.get(customerId);
+    }
+
+    public Customer getAt(int index) {
+        return ordered.get(index);
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    /** Position of the customer in id order, or -1. */
+    public int indexOf(int customerId) {
+        int index = search(customerId);
+        return index >= 0 ? index : -1;
+    }
+
+    /** Adds a newly saved customer or replaces the entry with the same id; shown once the EDT gets to it. */
+    public void put(Customer customer) {
+        if (customer == null || customer.getCustomerId() <= 0) return;
+        // Queued holding the lock, so it reaches the EDT in the same order relative to a reload's swap
+        synchronized (this) {
+            if (reloadsRunning > 0) {
+                putsDuringReload.add(customer);
+            }
+            SwingUtilities.invokeLater(() -> {
+                apply(customer);
+                fireChanged();
+            });
+        }
+    }
+
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void replaceAll(List<Customer> customers) {
+        // The DAO returns them in id order already
+        IntObjectMap<Customer> newById = new IntObjectMap<>(customers.size());
+        for (Customer customer : customers) {
+            newById.put(customer.getCustomerId(), customer);
+        }
+        synchronized (this) {
+            List<Customer> since = new ArrayList<>(putsDuringReload);
+            reloadDone();
+            SwingUtilities.invokeLater(() -> {
+                byId = newById;
+                ordered = customers;
+                for (Customer customer : since) {
+                    apply(customer);
+                }
+                fireChanged();
+            });
+        }
+    }
+
+    private synchronized void reloadDone() {
+        if (--reloadsRunning == 0) {
+            putsDuringReload.clear();
+        }
+    }
+
+    // On the EDT: one map put, and a list set or append (an insert only for an id below the largest)
+    private void apply(Customer customer) {
+        int id = customer.getCustomerId();
+        Customer previous = byId.put(id, customer);
+        if (previous != null) {
+            if (customer.getDateCreated() == null) {
+                customer.setDateCreated(previous.getDateCreated()); // updates do not re-read it
+            }
+            ordered.set(search(id), customer);
+        } else if (ordered.isEmpty() || ordered.get(ordered.size() - 1).getCustomerId() < id) {
+            ordered.add(customer);
+        } else {
+            ordered.add(-search(id) - 1, customer);
+        }
+    }
+
+    // Binary search of the id-ordered list; same contract as Collections.binarySearch
+    private int search(int customerId) {
+        int low = 0;
+        int high = ordered.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = ordered.get(mid).getCustomerId();
+            if (midId < customerId) {
+                low = mid + 1;
+            } else if (midId > customerId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
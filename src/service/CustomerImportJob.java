@@ -0,0 +1,41 @@
+package service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import model.ImportReport;
+import util.DatabaseConnection;
+
+/**
+ * Bulk-loads customers (and their first account) from a CSV file.
+ *
+ *   java -cp "bin:lib/*" service.CustomerImportJob customers.csv
+ *   java -Dbanking.import.threads=8 -Dbanking.import.chunkSize=2000 -cp "bin:lib/*" service.CustomerImportJob customers.csv
+ *
+ * Rejected rows go to customers.csv.rejects.csv. If the job stops part way, run it again:
+ * it continues after the last committed line recorded in customers.csv.checkpoint.
+ */
+public class CustomerImportJob {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: CustomerImportJob <file.csv>");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        boolean ok = false;
+        try {
+            ImportReport report = new CsvImporter().importFile(input);
+            ok = true;
+            System.out.printf("Imported %d customers and %d accounts, rejected %d rows (%.0f rows/s)%n",
+                report.getCustomersInserted(), report.getAccountsInserted(), report.getRowsRejected(),
+                report.getRowsPerSecond());
+        } catch (Exception e) {
+            System.err.println("Import failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
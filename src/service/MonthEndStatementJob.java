@@ -0,0 +1,32 @@
+package service;
+
+import java.nio.file.Paths;
+import java.time.YearMonth;
+
+import util.AppConfig;
+import util.DatabaseConnection;
+
+/**
+ * Writes every account's statement for a month.
+ *
+ *   java -cp "bin:lib/*" service.MonthEndStatementJob [yyyy-MM] [outputDir] [workers]
+ *
+ * Defaults: last month, ./statements/<month>, -Dbanking.statements.workers (4).
+ * Exits with 1 if any account's statement could not be written.
+ */
+public class MonthEndStatementJob {
+
+    public static void main(String[] args) throws Exception {
+        YearMonth month = args.length > 0 ? YearMonth.parse(args[0]) : YearMonth.now().minusMonths(1);
+        String directory = args.length > 1 ? args[1] : "statements/" + month;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : AppConfig.getInt("banking.statements.workers", 4);
+        int written;
+        try {
+            written = new StatementService().runMonthEnd(month, Paths.get(directory), workers);
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        // Non-zero so a scheduler notices a run that skipped accounts or failed statements
+        System.exit(written < 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,216 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dao.AccountRepository;
+import dao.BalanceSnapshotDAO;
+import dao.Repositories;
+import dao.TransactionDAO;
+import model.Account;
+import model.Money;
+import model.Transaction;
+import util.AppConfig;
+import util.DatabaseConnection;
+
+/**
+ * Account statements, written while the ledger is read.
+ *
+ * Transactions are fetched one keyset page at a time (banking.statements.pageSize rows) and
+ * handed to the writers with the running balance, so memory use does not depend on how many
+ * transactions a statement has. The opening balance comes from the nearest balance snapshot.
+ */
+public class StatementService {
+    private static final int PAGE_SIZE = AppConfig.getInt("banking.statements.pageSize", 500);
+    private static final int LINES_PER_PAGE = AppConfig.getInt("banking.statements.linesPerPage", 60);
+
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final BalanceSnapshotDAO snapshotDAO = new BalanceSnapshotDAO();
+    private final AccountRepository accountDAO = Repositories.accounts();
+
+    /**
+     * Writes the statement of the account for the days from..to (inclusive) to every writer.
+     * Returns the number of transactions, or -1 if the opening balance or the ledger could
+     * not be read (nothing is written if the opening balance could not).
+     */
+    public int generate(Account account, LocalDate from, LocalDate to, StatementWriter... writers) throws IOException {
+        Money opening = getOpeningBalance(account, from);
+        if (opening == null) {
+            return -1;
+        }
+        return generate(account, from, to, opening, writers);
+    }
+
+    /**
+     * Balance of the account at the start of the day, or its initial deposit if it was opened
+     * on or after that day. Null if it could not be read: a statement must not start from a
+     * guessed balance, as every running balance after it would be wrong too.
+     */
+    public Money getOpeningBalance(Account account, LocalDate from) {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp opened = account.getDateCreated();
+        if (opened != null && !opened.before(start)) {
+            // Opened during the period: start from its initial deposit
+            return snapshotDAO.getOpeningDeposit(account.getAccountId());
+        }
+        // Already open, so null here means the read failed rather than "no balance yet"
+        return snapshotDAO.getBalanceAt(account.getAccountId(), start);
+    }
+
+    private int generate(Account account, LocalDate from, LocalDate to, Money opening,
+                         StatementWriter... writers) throws IOException {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+
+        for (StatementWriter writer : writers) {
+            writer.begin(account, from, to, opening);
+        }
+
+        // Running totals in cents; only the per-row balance handed to the writers is a Money
+        long balance = opening.getCents();
+        long credits = 0;
+        long debits = 0;
+        int count = 0;
+        Timestamp lastDate = null;
+        int lastId = 0;
+        while (true) {
+            List<Transaction> page = transactionDAO.getTransactionsPage(
+                account.getAccountId(), start, end, lastDate, lastId, PAGE_SIZE);
+            if (page == null) {
+                return -1;
+            }
+            for (Transaction transaction : page) {
+                long amount = transaction.getSignedAmount().getCents();
+                balance += amount;
+                if (amount >= 0) credits += amount; else debits -= amount;
+                count++;
+                Money runningBalance = Money.ofCents(balance);
+                for (StatementWriter writer : writers) {
+                    writer.transaction(transaction, runningBalance);
+                }
+            }
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            Transaction last = page.get(page.size() - 1);
+            lastDate = last.getTransactionDate();
+            lastId = last.getTransactionId();
+        }
+
+        for (StatementWriter writer : writers) {
+            writer.end(Money.ofCents(balance), count, Money.ofCents(credits), Money.ofCents(debits));
+        }
+        return count;
+    }
+
+    /**
+     * Writes <accountNumber>-<from>.csv and .txt into the directory. Returns -1 and leaves no
+     * files behind if the statement could not be read.
+     */
+    public int writeStatementFiles(Account account, LocalDate from, LocalDate to, Path directory) throws IOException {
+        Money opening = getOpeningBalance(account, from);
+        if (opening == null) {
+            return -1;
+        }
+        String baseName = account.getAccountNumber() + "-" + from;
+        Path csvFile = directory.resolve(baseName + ".csv");
+        Path textFile = directory.resolve(baseName + ".txt");
+        int count;
+        try (StatementWriter csv = new CsvStatementWriter(
+                 Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8));
+             StatementWriter text = new TextStatementWriter(
+                 Files.newBufferedWriter(textFile, StandardCharsets.UTF_8), LINES_PER_PAGE)) {
+            count = generate(account, from, to, opening, csv, text);
+        }
+        if (count < 0) {
+            // A statement cut off where the ledger read failed would look complete
+            Files.deleteIfExists(csvFile);
+            Files.deleteIfExists(textFile);
+        }
+        return count;
+    }
+
+    /**
+     * Month-end run: statements for every account into the directory, using the given number
+     * of worker threads. Each worker holds at most one pooled connection at a time (only while
+     * a page is read), and the worker count is capped below the pool size, so the run never
+     * takes more than workers + 1 connections and leaves the rest of the pool for the tellers.
+     * Accounts are read in keyset pages and handed out as workers free up, so the account list
+     * is never held in memory either. Returns the number of statements written, or -1 if the
+     * run failed: the accounts could not be listed or any statement could not be written.
+     */
+    public int runMonthEnd(YearMonth month, Path directory, int workers) throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        int threads = Math.max(1, Math.min(workers, DatabaseConnection.getMaxPoolSize() - 2));
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.atEndOfMonth();
+        long startTime = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "statement-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        // At most two accounts waiting per worker
+        Semaphore slots = new Semaphore(threads * 2);
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        boolean listed = false;
+
+        try {
+            int afterAccountId = 0;
+            while (true) {
+                List<Account> accounts = accountDAO.getAccountsPage(afterAccountId, PAGE_SIZE, null, null);
+                if (accounts == null) {
+                    // Not the end of the accounts: the rest of them would be skipped silently
+                    System.err.println("Could not read the accounts after account id " + afterAccountId +
+                                       ", stopping the month-end run");
+                    break;
+                }
+                for (Account account : accounts) {
+                    slots.acquire();
+                    executor.execute(() -> {
+                        try {
+                            if (writeStatementFiles(account, from, to, directory) >= 0) {
+                                written.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            failed.incrementAndGet();
+                            System.err.println("Statement failed for " + account.getAccountNumber() + ": " + e.getMessage());
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+                if (accounts.size() < PAGE_SIZE) {
+                    listed = true;
+                    break;
+                }
+                afterAccountId = accounts.get(accounts.size() - 1).getAccountId();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        System.out.println("Month-end statements for " + month + ": " + written.get() + " written, " +
+                           failed.get() + " failed, " + threads + " workers, " +
+                           (System.currentTimeMillis() - startTime) + " ms" +
+                           (listed ? "" : ", INCOMPLETE: not every account was read"));
+        return listed && failed.get() == 0 ? written.get() : -1;
+    }
+}
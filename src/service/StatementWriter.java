@@ -0,0 +1,23 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+
+import model.Account;
+import model.Money;
+import model.Transaction;
+
+/**
+ * Receives a statement as it is generated, one ledger row at a time, and writes it out
+ * immediately; implementations must not collect the rows. Closing the writer closes the
+ * underlying stream.
+ */
+public interface StatementWriter extends Closeable {
+
+    void begin(Account account, LocalDate from, LocalDate to, Money openingBalance) throws IOException;
+
+    void transaction(Transaction transaction, Money runningBalance) throws IOException;
+
+    void end(Money closingBalance, int transactionCount, Money totalCredits, Money totalDebits) throws IOException;
+}
@@ -0,0 +1,35 @@
+package service;
+
+import java.time.LocalDate;
+
+import dao.ReportDAO;
+import util.DatabaseConnection;
+
+/**
+ * Backfills the report summary tables from history.
+ *
+ *   java -cp "bin:lib/*" service.SummaryRebuildJob                        (everything)
+ *   java -cp "bin:lib/*" service.SummaryRebuildJob 2024-01-01 2024-03-31  (daily totals for a range)
+ *
+ * The Reports tab runs the same full rebuild from its "Rebuild Summaries" button.
+ */
+public class SummaryRebuildJob {
+
+    public static void main(String[] args) {
+        ReportDAO reportDAO = new ReportDAO();
+        boolean ok;
+        try {
+            if (args.length == 2) {
+                ok = reportDAO.rebuildDailySummary(LocalDate.parse(args[0]), LocalDate.parse(args[1]));
+            } else if (args.length == 0) {
+                ok = reportDAO.rebuildSummaries();
+            } else {
+                System.err.println("Usage: SummaryRebuildJob [fromDate toDate]  (dates as yyyy-MM-dd)");
+                ok = false;
+            }
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
@@ -0,0 +1,94 @@
+package service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+import model.Account;
+import model.Money;
+import model.Transaction;
+
+/**
+ * Printable statement: fixed-width columns, a header on every page and a form feed between
+ * pages. Only the current page's line count is kept, so any statement length is fine.
+ */
+public class TextStatementWriter implements StatementWriter {
+    private static final String RULE = "-".repeat(96);
+
+    private final Writer out;
+    private final int linesPerPage;
+    private String pageTitle;
+    private int page = 0;
+    private int lineOnPage = 0;
+    private final StringBuilder row = new StringBuilder(100);
+
+    public TextStatementWriter(Writer out, int linesPerPage) {
+        this.out = out;
+        this.linesPerPage = Math.max(10, linesPerPage);
+    }
+
+    @Override
+    public void begin(Account account, LocalDate from, LocalDate to, Money openingBalance) throws IOException {
+        String customer = account.getCustomerName() != null ? account.getCustomerName() : "Customer " + account.getCustomerId();
+        pageTitle = "STATEMENT  " + account.getAccountNumber() + " (" + account.getAccountType() + ")  " +
+                    customer + "  " + from + " to " + to;
+        line(String.format("%-19s  %-58s %16s", from, "Opening balance", openingBalance));
+    }
+
+    @Override
+    public void transaction(Transaction transaction, Money runningBalance) throws IOException {
+        String description = transaction.getTransactionType() +
+            (transaction.getDescription() != null && !transaction.getDescription().isEmpty()
+                ? " - " + transaction.getDescription().replace('\n', ' ') : "");
+        if (description.length() > 40) {
+            description = description.substring(0, 37) + "...";
+        }
+        String date = transaction.getTransactionDate().toString();
+        // Built by hand rather than with String.format: this runs once per ledger row
+        row.setLength(0);
+        pad(row, date.length() > 19 ? date.substring(0, 19) : date, 19).append("  ");
+        pad(row, description, 40).append(' ');
+        row.append(transaction.getSignedAmount().toString(16)).append(' ');
+        row.append(runningBalance.toString(16));
+        line(row.toString());
+    }
+
+    private static StringBuilder pad(StringBuilder sb, String text, int width) {
+        sb.append(text);
+        for (int i = text.length(); i < width; i++) sb.append(' ');
+        return sb;
+    }
+
+    @Override
+    public void end(Money closingBalance, int transactionCount, Money totalCredits, Money totalDebits) throws IOException {
+        line(RULE);
+        line(String.format("%-60s %35s", "Transactions: " + transactionCount,
+            "Credits " + totalCredits + "  Debits " + totalDebits));
+        line(String.format("%-79s %16s", "Closing balance", closingBalance));
+        out.write("\n-- End of statement, page " + page + " --\n");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void line(String text) throws IOException {
+        if (lineOnPage == 0) {
+            if (page > 0) {
+                out.write('\f');
+            }
+            page++;
+            out.write(pageTitle + "    Page " + page + "\n");
+            out.write(String.format("%-19s  %-40s %16s %16s\n", "Date", "Description", "Amount", "Balance"));
+            out.write(RULE + "\n");
+            lineOnPage = 3;
+        }
+        out.write(text);
+        out.write('\n');
+        if (++lineOnPage >= linesPerPage) {
+            lineOnPage = 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package util;
+
+/**
+ * Format of allocated account numbers: a type prefix, a 9-digit sequence number and a Luhn
+ * check digit, e.g. SAV0000001234 + check digit. The check digit catches a mistyped digit
+ * and most swapped neighbours before anything is looked up.
+ *
+ * Numbers created before the allocator (such as SAV123456) have no check digit; anything
+ * that is not prefix + exactly 10 digits is treated as such and accepted as is.
+ */
+public final class AccountNumbers {
+    public static final int SEQUENCE_DIGITS = 9;
+    public static final long MAX_SEQUENCE = 999999999L;
+
+    private AccountNumbers() {}
+
+    public static String prefixFor(String accountType) {
+        switch (accountType) {
+            case "SAVINGS": return "SAV";
+            case "CURRENT": return "CUR";
+            case "FIXED_DEPOSIT": return "FD";
+            default: throw new IllegalArgumentException("Unknown account type: " + accountType);
+        }
+    }
+
+    public static String format(String prefix, long sequence) {
+        if (sequence < 0 || sequence > MAX_SEQUENCE) {
+            throw new IllegalArgumentException("Account sequence out of range: " + sequence);
+        }
+        char[] digits = new char[SEQUENCE_DIGITS + 1];
+        long value = sequence;
+        for (int i = SEQUENCE_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        digits[SEQUENCE_DIGITS] = (char) ('0' + checkDigit(digits, SEQUENCE_DIGITS));
+        return prefix + new String(digits);
+    }
+
+    /**
+     * False only for a number in the allocated format whose check digit does not match;
+     * legacy numbers and anything else are left for the database to decide.
+     */
+    public static boolean isPlausible(String accountNumber) {
+        if (accountNumber == null || accountNumber.isEmpty()) {
+            return false;
+        }
+        int start = 0;
+        while (start < accountNumber.length() && Character.isLetter(accountNumber.charAt(start))) {
+            start++;
+        }
+        int length = accountNumber.length() - start;
+        if (start == 0 || length != SEQUENCE_DIGITS + 1) {
+            return true;
+        }
+        char[] digits = new char[length];
+        for (int i = 0; i < length; i++) {
+            char c = accountNumber.charAt(start + i);
+            if (c < '0' || c > '9') return true;
+            digits[i] = c;
+        }
+        return digits[SEQUENCE_DIGITS] - '0' == checkDigit(digits, SEQUENCE_DIGITS);
+    }
+
+    // Luhn: double every second digit from the right, sum the digits, round up to a multiple of 10
+    static int checkDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubleIt = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int d = digits[i] - '0';
+            if (doubleIt) {
+                d *= 2;
+                if (d > 9) d -= 9;
+            }
+            sum += d;
+            doubleIt = !doubleIt;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,40 @@
+package util;
+
+// Central place for tunables. Every value can be overridden with a JVM system
+// property, e.g. -Dbanking.pool.maxSize=20, so nothing needs recompiling per machine.
+public final class AppConfig {
+    
+    private AppConfig() {}
+    
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value == null ? defaultValue : value.trim();
+    }
+    
+    public static int getInt(String key, int defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+    
+    public static long getLong(String key, long defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+    
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = System.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
@@ -0,0 +1,400 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of physical MySQL connections.
+ *
+ * Callers lease a connection with {@link #lease()} and give it back by calling
+ * close() on it, so the existing try-with-resources / finally blocks in the DAOs
+ * keep working unchanged.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long leaseTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationBypassMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+    private final Deque<PooledConnection> idleConnections = new ArrayDeque<>();
+    private int totalConnections = 0;
+    private int waiters = 0;
+    private boolean shutdown = false;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Statistics
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong totalLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsDiscarded = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long leaseTimeoutMillis, long idleTimeoutMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationBypassMillis = AppConfig.getLong("banking.pool.validationBypassMs", 500);
+        this.validationTimeoutSeconds = AppConfig.getInt("banking.pool.validationTimeoutSec", 2);
+        this.statementCacheSize = AppConfig.getInt("banking.pool.statementCacheSize", 64);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leases a connection, waiting at most the configured lease timeout.
+     * The returned connection goes back to the pool when it is closed.
+     */
+    public Connection lease() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mayCreate = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (shutdown) {
+                        throw new SQLException("Connection pool has been shut down");
+                    }
+                    candidate = idleConnections.pollFirst();
+                    if (candidate != null) break;
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        mayCreate = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        leaseTimeouts.incrementAndGet();
+                        throw new SQLException("Timed out after " + leaseTimeoutMillis +
+                                               "ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    waiters++;
+                    try {
+                        connectionAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mayCreate) {
+                try {
+                    candidate = createPhysicalConnection();
+                } catch (SQLException e) {
+                    lock.lock();
+                    try {
+                        totalConnections--;
+                        connectionAvailable.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                continue;
+            }
+
+            recordLeaseWait(System.nanoTime() - start);
+            candidate.leased = true;
+            return candidate.newHandle(this);
+        }
+    }
+
+    // Connections that were returned a moment ago are trusted; anything older is pinged.
+    private boolean isUsable(PooledConnection pc) {
+        if (System.currentTimeMillis() - pc.lastReturned < validationBypassMillis) {
+            return true;
+        }
+        try {
+            return pc.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createPhysicalConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        connectionsCreated.incrementAndGet();
+        return new PooledConnection(physical, new StatementCache(physical, statementCacheSize, statementCounters));
+    }
+
+    void release(PooledConnection pc) {
+        pc.leased = false;
+        pc.statementCache.endLease();
+        boolean healthy = true;
+        try {
+            if (pc.physical.isClosed()) {
+                healthy = false;
+            } else {
+                // Never hand the next caller a half-finished transaction
+                if (!pc.physical.getAutoCommit()) {
+                    pc.physical.rollback();
+                    pc.physical.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        if (!healthy) {
+            discard(pc);
+            return;
+        }
+
+        pc.lastReturned = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (shutdown) {
+                totalConnections--;
+                pc.closeQuietly();
+                return;
+            }
+            idleConnections.addFirst(pc);
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        pc.closeQuietly();
+        connectionsDiscarded.incrementAndGet();
+        lock.lock();
+        try {
+            totalConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Closes connections idle for longer than the idle timeout and tops the pool up to minSize.
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        int missing;
+        lock.lock();
+        try {
+            if (shutdown) return;
+            // Oldest idle connections sit at the tail of the deque
+            Iterator<PooledConnection> it = idleConnections.descendingIterator();
+            while (it.hasNext() && totalConnections > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastReturned > idleTimeoutMillis) {
+                    it.remove();
+                    totalConnections--;
+                    connectionsDiscarded.incrementAndGet();
+                    pc.closeQuietly();
+                }
+            }
+            missing = minSize - totalConnections;
+            totalConnections += Math.max(0, missing);
+        } finally {
+            lock.unlock();
+        }
+
+        for (int i = 0; i < missing; i++) {
+            PooledConnection pc = null;
+            try {
+                pc = createPhysicalConnection();
+            } catch (SQLException e) {
+                System.err.println("Connection pool could not pre-open a connection: " + e.getMessage());
+            }
+            lock.lock();
+            try {
+                if (pc == null || shutdown) {
+                    totalConnections--;
+                    if (pc != null) pc.closeQuietly();
+                } else {
+                    pc.lastReturned = System.currentTimeMillis();
+                    idleConnections.addLast(pc);
+                    connectionAvailable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void recordLeaseWait(long nanos) {
+        leaseCount.incrementAndGet();
+        totalLeaseWaitNanos.addAndGet(nanos);
+        long currentMax;
+        while (nanos > (currentMax = maxLeaseWaitNanos.get())) {
+            if (maxLeaseWaitNanos.compareAndSet(currentMax, nanos)) break;
+        }
+    }
+
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            int idle = idleConnections.size();
+            long leases = leaseCount.get();
+            return new PoolStats(
+                totalConnections - idle,
+                idle,
+                totalConnections,
+                waiters,
+                leases,
+                leaseTimeouts.get(),
+                leases == 0 ? 0 : totalLeaseWaitNanos.get() / leases / 1000,
+                maxLeaseWaitNanos.get() / 1000,
+                connectionsCreated.get(),
+                connectionsDiscarded.get(),
+                statementCounters.hits.get(),
+                statementCounters.misses.get(),
+                statementCounters.evictions.get()
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    public void shutdown() {
+        housekeeper.shutdownNow();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (PooledConnection pc : idleConnections) {
+                pc.closeQuietly();
+                totalConnections--;
+            }
+            idleConnections.clear();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** One physical connection owned by the pool. */
+    static class PooledConnection {
+        final Connection physical;
+        final StatementCache statementCache;
+        volatile long lastReturned;
+        volatile boolean leased;
+
+        PooledConnection(Connection physical, StatementCache statementCache) {
+            this.physical = physical;
+            this.statementCache = statementCache;
+            this.lastReturned = System.currentTimeMillis();
+        }
+
+        Connection newHandle(ConnectionPool pool) {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new LeaseHandler(pool, this));
+        }
+
+        void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // Already broken, nothing else to do
+            }
+        }
+    }
+
+    // The handle a caller sees. close() returns the physical connection instead of closing it.
+    private static class LeaseHandler implements InvocationHandler {
+        private final ConnectionPool pool;
+        private PooledConnection pooled;
+
+        LeaseHandler(ConnectionPool pool, PooledConnection pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (pooled != null) {
+                        PooledConnection toRelease = pooled;
+                        pooled = null;
+                        pool.release(toRelease);
+                    }
+                    return null;
+                case "isClosed":
+                    return pooled == null || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pooled == null ? "returned" : pooled.physical) + "]";
+                default:
+                    break;
+            }
+            if (pooled == null) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the cache
+            if ("prepareStatement".equals(name)) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return pooled.statementCache.prepare((Connection) proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return pooled.statementCache.prepare((Connection) proxy, (String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -2,63 +2,110 @@
 package util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
     private static final String URL = "jdbc:mysql://localhost:3306/banking_system?autoReconnect=true&useSSL=false&serverTimezone=UTC";
     private static final String USERNAME = "root";
     private static final String PASSWORD = "aryan@23"; // Replace with your MySQL password
-    
-    private static Connection connection = null;
-    
+
+    // Pool settings (override with -Dbanking.pool.* system properties)
+    private static final int MIN_POOL_SIZE = AppConfig.getInt("banking.pool.minSize", 2);
+    private static final int MAX_POOL_SIZE = AppConfig.getInt("banking.pool.maxSize", 10);
+    private static final long LEASE_TIMEOUT_MS = AppConfig.getLong("banking.pool.leaseTimeoutMs", 5000);
+    private static final long IDLE_TIMEOUT_MS = AppConfig.getLong("banking.pool.idleTimeoutMs", 300000);
+    // Keep parsed statements on the MySQL server instead of re-sending SQL text each time
+    private static final boolean SERVER_PREPARED_STATEMENTS = AppConfig.getBoolean("banking.db.serverPrepStmts", false);
+    // Rows per round trip for streamed queries; 0 = MySQL row-by-row streaming
+    private static final int STREAM_FETCH_SIZE = AppConfig.getInt("banking.db.streamFetchSize", 0);
+
+    private static ConnectionPool pool = null;
+
+    private static synchronized ConnectionPool getPool() throws ClassNotFoundException {
+        if (pool == null) {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+            pool = new ConnectionPool(
+                buildUrl(),
+                AppConfig.getString("banking.db.username", USERNAME),
+                AppConfig.getString("banking.db.password", PASSWORD),
+                MIN_POOL_SIZE, MAX_POOL_SIZE, LEASE_TIMEOUT_MS, IDLE_TIMEOUT_MS);
+            System.out.println("Connection pool started (min " + MIN_POOL_SIZE + ", max " + MAX_POOL_SIZE + ")");
+        }
+        return pool;
+    }
+
+    private static String buildUrl() {
+        String url = AppConfig.getString("banking.db.url", URL);
+        if (!url.startsWith("jdbc:mysql:")) {
+            return url;
+        }
+        // Let the driver collapse JDBC batches into multi-row statements
+        url = addUrlParameter(url, "rewriteBatchedStatements", "true");
+        if (SERVER_PREPARED_STATEMENTS) {
+            url = addUrlParameter(url, "useServerPrepStmts", "true");
+        }
+        // A positive fetch size only limits client memory with a server-side cursor
+        if (STREAM_FETCH_SIZE > 0) {
+            url = addUrlParameter(url, "useCursorFetch", "true");
+        }
+        return url;
+    }
+
+    private static String addUrlParameter(String url, String name, String value) {
+        if (url.contains(name + "=")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + name + "=" + value;
+    }
+
+    /**
+     * Fetch size to set on a forward-only, read-only statement so its rows are streamed
+     * instead of buffered. MySQL only streams with Integer.MIN_VALUE (one row at a time) or,
+     * with useCursorFetch, a positive size; other drivers get a plain positive size.
+     */
+    public static int getStreamingFetchSize(int requested) {
+        int fetchSize = requested > 0 ? requested : STREAM_FETCH_SIZE;
+        boolean mysql = AppConfig.getString("banking.db.url", URL).startsWith("jdbc:mysql:");
+        if (mysql) {
+            return fetchSize > 0 && STREAM_FETCH_SIZE > 0 ? fetchSize : Integer.MIN_VALUE;
+        }
+        return fetchSize > 0 ? fetchSize : 1000;
+    }
+
+    // Leases a pooled connection. Closing it hands it back to the pool.
     public static Connection getConnection() {
         try {
-            if (connection == null || connection.isClosed()) {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-                System.out.println("Database connected successfully!");
-            }
+            return getPool().lease();
         } catch (ClassNotFoundException | SQLException e) {
             System.out.println("Database connection failed: " + e.getMessage());
             e.printStackTrace();
-            // Try to reconnect
-            connection = reconnect();
-        }
-        return connection;
-    }
-    
-    private static Connection reconnect() {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            Connection newConnection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            System.out.println("Database reconnected successfully!");
-            return newConnection;
-        } catch (ClassNotFoundException | SQLException e) {
-            System.out.println("Reconnection failed: " + e.getMessage());
             return null;
         }
     }
-    
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                connection = null;
-                System.out.println("Database connection closed.");
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+
+    public static int getMaxPoolSize() {
+        return MAX_POOL_SIZE;
+    }
+
+    public static synchronized PoolStats getPoolStats() {
+        return pool == null ? null : pool.getStats();
+    }
+
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+            System.out.println("Database connection pool closed.");
         }
     }
-    
+
     // Test connection method
     public static boolean testConnection() {
-        try (Connection testConn = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
-            return true;
-        } catch (SQLException e) {
+        try (Connection testConn = getPool().lease()) {
+            return testConn.isValid(2);
+        } catch (ClassNotFoundException | SQLException e) {
             System.out.println("Connection test failed: " + e.getMessage());
             return false;
         }
     }
-}
\ No newline at end of file
+}
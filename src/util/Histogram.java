@@ -0,0 +1,76 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, mean, maximum and approximate percentiles of a stream of non-negative values
+ * (latencies in microseconds, batch sizes).
+ *
+ * Values are counted in log-scale buckets (four per power of two, so within ~25% of the
+ * true value, exact below 4) held in an AtomicLongArray: recording is a few atomic
+ * increments with no lock and no allocation, and memory stays fixed however many values
+ * are recorded.
+ */
+public class Histogram {
+    private static final int BUCKETS = 256;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        long seen;
+        while (value > (seen = max.get()) && !max.compareAndSet(seen, value)) {
+            // retry
+        }
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getTotal() { return total.sum(); }
+    public long getMax() { return max.get(); }
+
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    // Upper bound of the bucket holding the given quantile (0 < quantile <= 1)
+    public long getPercentile(double quantile) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketOf(long value) {
+        if (value < 4) return (int) Math.max(0, value);
+        int log = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) ((value >>> (log - 2)) & 3);
+        return Math.min(BUCKETS - 1, (log - 1) * 4 + sub);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < 4) return bucket;
+        int log = bucket / 4 + 1;
+        int sub = bucket % 4;
+        return ((4L + sub + 1) << (log - 2)) - 1;
+    }
+}
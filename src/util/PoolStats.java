@@ -0,0 +1,66 @@
+package util;
+
+// Point-in-time snapshot of the connection pool counters
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int waiters;
+    private final long leaseCount;
+    private final long leaseTimeouts;
+    private final long averageLeaseWaitMicros;
+    private final long maxLeaseWaitMicros;
+    private final long connectionsCreated;
+    private final long connectionsDiscarded;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStats(int active, int idle, int total, int waiters, long leaseCount, long leaseTimeouts,
+                     long averageLeaseWaitMicros, long maxLeaseWaitMicros,
+                     long connectionsCreated, long connectionsDiscarded,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.waiters = waiters;
+        this.leaseCount = leaseCount;
+        this.leaseTimeouts = leaseTimeouts;
+        this.averageLeaseWaitMicros = averageLeaseWaitMicros;
+        this.maxLeaseWaitMicros = maxLeaseWaitMicros;
+        this.connectionsCreated = connectionsCreated;
+        this.connectionsDiscarded = connectionsDiscarded;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getActive() { return active; }
+    public int getIdle() { return idle; }
+    public int getTotal() { return total; }
+    public int getWaiters() { return waiters; }
+    public long getLeaseCount() { return leaseCount; }
+    public long getLeaseTimeouts() { return leaseTimeouts; }
+    public long getAverageLeaseWaitMicros() { return averageLeaseWaitMicros; }
+    public long getMaxLeaseWaitMicros() { return maxLeaseWaitMicros; }
+    public long getConnectionsCreated() { return connectionsCreated; }
+    public long getConnectionsDiscarded() { return connectionsDiscarded; }
+    public long getStatementCacheHits() { return statementCacheHits; }
+    public long getStatementCacheMisses() { return statementCacheMisses; }
+    public long getStatementCacheEvictions() { return statementCacheEvictions; }
+    
+    public double getStatementCacheHitRate() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "active=" + active + ", idle=" + idle + ", total=" + total + ", waiters=" + waiters +
+               ", leases=" + leaseCount + ", timeouts=" + leaseTimeouts +
+               ", avgLeaseWait=" + averageLeaseWaitMicros + "us, maxLeaseWait=" + maxLeaseWaitMicros + "us" +
+               ", created=" + connectionsCreated + ", discarded=" + connectionsDiscarded +
+               ", stmtCacheHits=" + statementCacheHits + ", stmtCacheMisses=" + statementCacheMisses +
+               ", stmtCacheEvictions=" + statementCacheEvictions;
+    }
+}
@@ -0,0 +1,193 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that the queries the indexes in database/migrations were added for still use them.
+ *
+ * On MySQL each query is run through EXPLAIN and the key chosen for one of its tables must be
+ * the expected index; a full scan, another index or a missing table fails the check, which
+ * means a migration has not been applied or the query has drifted away from its index.
+ *
+ * Other databases (the H2 database the benchmarks use) plan differently, so there the EXPLAIN
+ * only has to run and the expected index has to exist: by name for the idx_ indexes the
+ * migrations add, by its first column for the primary, unique and foreign keys H2 names itself.
+ *
+ * The optimizer may prefer a full scan on a nearly empty table, so run it against realistic
+ * data (e.g. after a CustomerImportJob load):
+ *
+ *   java -cp "bin:lib/*" util.QueryPlanCheck   exits with 1 if any check fails
+ */
+public final class QueryPlanCheck {
+    private QueryPlanCheck() {}
+
+    private static class Check {
+        final String name;
+        final String table;
+        final String alias;
+        final String expectedKey;
+        final String keyColumn;
+        final String sql;
+
+        Check(String name, String table, String alias, String expectedKey, String keyColumn, String sql) {
+            this.name = name;
+            this.table = table;
+            this.alias = alias;
+            this.expectedKey = expectedKey;
+            this.keyColumn = keyColumn;
+            this.sql = sql;
+        }
+    }
+
+    private static final List<Check> CHECKS = Arrays.asList(
+        new Check("Statement page (TransactionDAO.getTransactionsPage)",
+            "transactions", "transactions", "idx_transactions_account_date", "account_id",
+            "SELECT transaction_id, account_id, transaction_type, amount, description, transaction_date " +
+            "FROM transactions WHERE account_id = 1 AND transaction_date >= '2024-01-01' AND transaction_date < '2024-02-01' " +
+            "AND (transaction_date > '2024-01-15' OR (transaction_date = '2024-01-15' AND transaction_id > 100)) " +
+            "ORDER BY transaction_date, transaction_id LIMIT 500"),
+        new Check("Point-in-time balance since the last snapshot (BalanceSnapshotDAO.balanceFromSnapshot)",
+            "transactions", "t", "idx_transactions_account_date", "account_id",
+            "SELECT COALESCE(SUM(CASE WHEN t.transaction_type = 'WITHDRAWAL' THEN -t.amount ELSE t.amount END), 0) " +
+            "FROM transactions t WHERE t.account_id = 1 AND t.transaction_date >= '2024-01-15' AND t.transaction_date < '2024-01-20'"),
+        new Check("Nearest snapshot (BalanceSnapshotDAO.balanceFromSnapshot)",
+            "account_balance_snapshots", "account_balance_snapshots", "PRIMARY", "account_id",
+            "SELECT snapshot_date, closing_balance FROM account_balance_snapshots " +
+            "WHERE account_id = 1 AND snapshot_date < '2024-01-20' ORDER BY snapshot_date DESC LIMIT 1"),
+        new Check("End-of-day snapshot chunk (BalanceSnapshotDAO.takeSnapshots)",
+            "transactions", "t", "idx_transactions_account_date", "account_id",
+            "SELECT a.account_id, a.balance - COALESCE(SUM(CASE WHEN t.transaction_type = 'WITHDRAWAL' THEN -t.amount ELSE t.amount END), 0) " +
+            "FROM accounts a LEFT JOIN transactions t ON t.account_id = a.account_id AND t.transaction_date >= '2024-01-16' " +
+            "WHERE a.account_id > 0 AND a.account_id <= 1000 AND a.date_created < '2024-01-16' " +
+            "GROUP BY a.account_id, a.balance"),
+        new Check("Snapshot row count (BalanceSnapshotDAO.takeSnapshots)",
+            "account_balance_snapshots", "account_balance_snapshots", "idx_snapshots_date", "snapshot_date",
+            "SELECT COUNT(*) FROM account_balance_snapshots WHERE snapshot_date = '2024-01-15'"),
+        new Check("Daily summary rebuild for a range (ReportDAO.rebuildDailySummary)",
+            "transactions", "t", "idx_transactions_date", "transaction_date",
+            "SELECT CAST(t.transaction_date AS DATE), a.account_type, t.transaction_type, COUNT(*), SUM(t.amount) " +
+            "FROM transactions t JOIN accounts a ON t.account_id = a.account_id " +
+            "WHERE t.transaction_date >= '2024-01-01' AND t.transaction_date < '2024-02-01' " +
+            "GROUP BY CAST(t.transaction_date AS DATE), a.account_type, t.transaction_type"),
+        new Check("Top accounts (ReportDAO.getTopAccountsByBalance)",
+            "accounts", "a", "idx_accounts_balance", "balance",
+            "SELECT a.*, c.first_name, c.last_name FROM accounts a LEFT JOIN customers c ON a.customer_id = c.customer_id " +
+            "ORDER BY a.balance DESC LIMIT 10"),
+        new Check("Filtered account count (AccountDAO.countAccounts)",
+            "accounts", "a", "idx_accounts_status_type", "status",
+            "SELECT COUNT(*) FROM accounts a WHERE 1 = 1 AND a.status = 'ACTIVE' AND a.account_type = 'SAVINGS'"),
+        new Check("Customers page sorted by last name (CustomerDAO.getCustomersPage)",
+            "customers", "customers", "idx_customers_last_name", "last_name",
+            "SELECT * FROM customers ORDER BY last_name ASC, customer_id ASC LIMIT 50 OFFSET 0"),
+        new Check("Accounts of one customer (AccountDAO.getAccountsByCustomerId)",
+            "accounts", "accounts", "customer_id", "customer_id",
+            "SELECT * FROM accounts WHERE customer_id = 1"),
+        new Check("Account by number (AccountDAO.getAccountByNumber, postings)",
+            "accounts", "accounts", "account_number", "account_number",
+            "SELECT * FROM accounts WHERE account_number = 'SAV000001'")
+    );
+
+    /** Runs every check and prints the outcome of each. Returns false if any failed. */
+    public static boolean run() {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            return false;
+        }
+        int failed = 0;
+        try {
+            boolean mysql = conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            for (Check check : CHECKS) {
+                try {
+                    if (mysql) {
+                        String used = mysqlKey(conn, check);
+                        if (!check.expectedKey.equalsIgnoreCase(used)) {
+                            throw new SQLException("expected " + check.alias + " to use " + check.expectedKey +
+                                                   ", got " + (used == null ? "a full scan" : used));
+                        }
+                        System.out.println("OK   " + check.name + ": " + check.alias + " uses " + used);
+                    } else {
+                        explain(conn, check);
+                        String index = findIndex(conn, check);
+                        if (index == null) {
+                            throw new SQLException(check.table + " has no index " + check.expectedKey);
+                        }
+                        System.out.println("OK   " + check.name + ": " + check.table + " has " + index);
+                    }
+                } catch (SQLException e) {
+                    System.out.println("FAIL " + check.name + ": " + e.getMessage());
+                    failed++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Query plan check failed: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        System.out.println((CHECKS.size() - failed) + " of " + CHECKS.size() + " query plan checks passed");
+        return failed == 0;
+    }
+
+    // The key column of the check's table in MySQL's EXPLAIN, null for a full scan
+    private static String mysqlKey(Connection conn, Check check) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN " + check.sql)) {
+            while (rs.next()) {
+                if (check.alias.equalsIgnoreCase(rs.getString("table"))) {
+                    return rs.getString("key");
+                }
+            }
+        }
+        throw new SQLException("table " + check.alias + " is not in the plan");
+    }
+
+    private static void explain(Connection conn, Check check) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN " + check.sql)) {
+            while (rs.next()) {
+                // Only has to run
+            }
+        }
+    }
+
+    // The expected index of the check's table by name, or for the keys MySQL names after their
+    // column any index starting with that column; null if there is none
+    private static String findIndex(Connection conn, Check check) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        boolean byName = check.expectedKey.startsWith("idx_");
+        // H2 keeps unquoted names in upper case
+        for (String table : new String[] {check.table, check.table.toUpperCase()}) {
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    if (byName ? check.expectedKey.equalsIgnoreCase(index)
+                               : rs.getShort("ORDINAL_POSITION") == 1 && check.keyColumn.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return index;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) {
+        boolean ok;
+        try {
+            ok = run();
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
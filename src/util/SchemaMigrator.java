@@ -0,0 +1,283 @@
+package util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the database schema up to date at startup.
+ *
+ * database/Database.sql creates the baseline schema. Every later change is a numbered script
+ * in database/migrations named V<version>__<description>.sql (e.g. V001__ledger_indexes.sql).
+ * Scripts newer than the highest version in the schema_version table are run in order and
+ * recorded there, so each runs once per database. Never edit a script that has shipped; add
+ * a new one instead (a changed checksum is reported as a warning).
+ *
+ * On MySQL a named lock keeps two instances starting together from running the same script.
+ * MySQL commits DDL implicitly, so a script that fails half way is not rolled back; an index
+ * that already exists is therefore skipped, which lets a fixed script simply run again.
+ *
+ *   -Dbanking.db.migrate=false          skip migrations at startup
+ *   -Dbanking.db.migrationsDir=<path>   where the scripts are (default database/migrations)
+ *   java -cp "bin:lib/*" util.SchemaMigrator   run them without starting the GUI
+ */
+public final class SchemaMigrator {
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String LOCK_NAME = "banking_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    // MySQL ER_DUP_KEYNAME and H2 INDEX_ALREADY_EXISTS
+    private static final int MYSQL_DUPLICATE_KEY_NAME = 1061;
+    private static final int H2_INDEX_ALREADY_EXISTS = 42111;
+
+    private SchemaMigrator() {}
+
+    private static class Script {
+        final int version;
+        final String description;
+        final Path path;
+        final String sql;
+        final long checksum;
+
+        Script(int version, String description, Path path, String sql) {
+            this.version = version;
+            this.description = description;
+            this.path = path;
+            this.sql = sql;
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+        }
+    }
+
+    /** Applies pending migrations if enabled. Returns false if one failed. */
+    public static boolean migrate() {
+        if (!AppConfig.getBoolean("banking.db.migrate", true)) {
+            return true;
+        }
+        return migrate(Paths.get(AppConfig.getString("banking.db.migrationsDir", "database/migrations")));
+    }
+
+    public static boolean migrate(Path directory) {
+        List<Script> scripts;
+        try {
+            scripts = loadScripts(directory);
+        } catch (IOException e) {
+            System.err.println("Cannot read migrations from " + directory + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+        if (scripts == null) {
+            System.out.println("No migrations directory at " + directory.toAbsolutePath() + ", schema left as is");
+            return true;
+        }
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            return false;
+        }
+        boolean locked = false;
+        try {
+            boolean mysql = conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            if (mysql) {
+                locked = acquireLock(conn);
+                if (!locked) {
+                    System.err.println("Timed out waiting for another instance to finish migrating the schema");
+                    return false;
+                }
+            }
+
+            createVersionTable(conn);
+            Map<Integer, Long> applied = getAppliedVersions(conn);
+            int current = applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+
+            for (Script script : scripts) {
+                Long checksum = applied.get(script.version);
+                if (checksum != null) {
+                    if (checksum != script.checksum) {
+                        System.err.println("Warning: " + script.path.getFileName() + " has changed since it was applied");
+                    }
+                    continue;
+                }
+                if (script.version < current) {
+                    System.err.println("Warning: skipping " + script.path.getFileName() +
+                                       ", it is older than the schema version " + current);
+                    continue;
+                }
+                apply(conn, script);
+                current = script.version;
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Schema migration failed: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            try {
+                if (locked) releaseLock(conn);
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Highest version applied so far, or 0 before any migration ran
+    public static int getCurrentVersion() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return -1;
+            }
+            createVersionTable(conn);
+            return getAppliedVersions(conn).keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        } catch (SQLException e) {
+            System.err.println("Error reading the schema version: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private static void apply(Connection conn, Script script) throws SQLException {
+        long start = System.currentTimeMillis();
+        System.out.println("Applying schema migration " + script.path.getFileName());
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : splitStatements(script.sql)) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != MYSQL_DUPLICATE_KEY_NAME && e.getErrorCode() != H2_INDEX_ALREADY_EXISTS) {
+                        throw new SQLException("V" + script.version + " failed at: " + sql + " (" + e.getMessage() + ")",
+                                               e.getSQLState(), e.getErrorCode(), e);
+                    }
+                    System.out.println("  index already exists, skipped: " + sql);
+                }
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+            pstmt.setInt(1, script.version);
+            pstmt.setString(2, script.description);
+            pstmt.setString(3, script.path.getFileName().toString());
+            pstmt.setLong(4, script.checksum);
+            pstmt.setLong(5, elapsed);
+            pstmt.executeUpdate();
+        }
+        System.out.println("Schema is now at version " + script.version + " (" + elapsed + " ms)");
+    }
+
+    private static void createVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version INT PRIMARY KEY, " +
+                "description VARCHAR(200) NOT NULL, " +
+                "script VARCHAR(200) NOT NULL, " +
+                "checksum BIGINT NOT NULL, " +
+                "installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "execution_ms BIGINT NOT NULL)");
+        }
+    }
+
+    private static Map<Integer, Long> getAppliedVersions(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    // Sorted by version; null if the directory does not exist
+    private static List<Script> loadScripts(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        TreeMap<Integer, Script> scripts = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.sql")) {
+            for (Path file : files) {
+                Matcher m = SCRIPT_NAME.matcher(file.getFileName().toString());
+                if (!m.matches()) {
+                    System.err.println("Warning: ignoring " + file.getFileName() + " (expected V<version>__<description>.sql)");
+                    continue;
+                }
+                int version = Integer.parseInt(m.group(1));
+                String sql = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                Script previous = scripts.put(version, new Script(version, m.group(2).replace('_', ' '), file, sql));
+                if (previous != null) {
+                    throw new IOException("Two migrations with version " + version + ": " +
+                                          previous.path.getFileName() + " and " + file.getFileName());
+                }
+            }
+        }
+        return new ArrayList<>(scripts.values());
+    }
+
+    // One statement per ';' at the end of a line; lines starting with -- are comments
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\r?\\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (current.length() > 0) current.append('\n');
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(line);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    private static boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean ok;
+        try {
+            ok = args.length > 0 ? migrate(Paths.get(args[0])) : migrate();
+            System.out.println("Schema version: " + getCurrentVersion());
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
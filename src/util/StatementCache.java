@@ -0,0 +1,216 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ *
+ * The DAOs keep calling conn.prepareStatement(sql) and closing the result as before;
+ * the pool routes those calls here so the statement is parsed once per connection
+ * and merely reset when the caller closes it.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+    private final Map<String, CachedStatement> statements;
+    // Every handle given out during the current lease, so forgotten ones can be reclaimed
+    private final List<StatementHandler> outstanding = new ArrayList<>();
+
+    StatementCache(Connection physical, int maxSize, Counters counters) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            counters.misses.incrementAndGet();
+            return handle(owner, new CachedStatement(createStatement(sql, autoGeneratedKeys), null));
+        }
+
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : "N:" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            counters.hits.incrementAndGet();
+            cached.inUse = true;
+            return handle(owner, cached);
+        }
+
+        counters.misses.incrementAndGet();
+        PreparedStatement statement = createStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // Same SQL already open in this lease (nested use); serve an uncached copy
+            return handle(owner, new CachedStatement(statement, null));
+        }
+
+        CachedStatement entry = new CachedStatement(statement, key);
+        entry.inUse = true;
+        statements.put(key, entry);
+        evictIfNeeded();
+        return handle(owner, entry);
+    }
+
+    private PreparedStatement createStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+            ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+            : physical.prepareStatement(sql);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next();
+            it.remove();
+            counters.evictions.incrementAndGet();
+            eldest.evicted = true;
+            // In-use statements are closed by their handle once the caller is done
+            if (!eldest.inUse) {
+                eldest.closeQuietly();
+            }
+        }
+    }
+
+    private PreparedStatement handle(Connection owner, CachedStatement entry) {
+        StatementHandler handler = new StatementHandler(owner, entry);
+        outstanding.add(handler);
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(),
+            new Class<?>[] { PreparedStatement.class },
+            handler);
+    }
+
+    // Called when the connection goes back to the pool: reclaim anything the caller forgot to close
+    void endLease() {
+        for (StatementHandler handler : new ArrayList<>(outstanding)) {
+            handler.release();
+        }
+        outstanding.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    static class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    private static class CachedStatement {
+        final PreparedStatement statement;
+        final String key;        // null for statements that are not kept in the cache
+        boolean inUse;
+        boolean evicted;
+        boolean tainted;         // caller changed statement-level settings; do not reuse
+
+        CachedStatement(PreparedStatement statement, String key) {
+            this.statement = statement;
+            this.key = key;
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // Connection is probably gone; the statement goes with it
+            }
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Connection owner;
+        private final CachedStatement entry;
+        private ResultSet lastResultSet;
+        private boolean closed;
+
+        StatementHandler(Connection owner, CachedStatement entry) {
+            this.owner = owner;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    release();
+                    outstanding.remove(this);
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setMaxFieldSize":
+                case "setQueryTimeout":
+                case "setEscapeProcessing":
+                case "setPoolable":
+                case "closeOnCompletion":
+                    entry.tainted = true;
+                    break;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                Object result = method.invoke(entry.statement, args);
+                if (result instanceof ResultSet) {
+                    lastResultSet = (ResultSet) result;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        void release() {
+            if (closed) return;
+            closed = true;
+
+            if (entry.key == null || entry.evicted || entry.tainted) {
+                if (entry.key != null && !entry.evicted) {
+                    statements.remove(entry.key);
+                }
+                entry.closeQuietly();
+                return;
+            }
+            try {
+                if (lastResultSet != null) {
+                    lastResultSet.close();
+                }
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+                entry.inUse = false;
+            } catch (SQLException e) {
+                statements.remove(entry.key);
+                entry.closeQuietly();
+            }
+        }
+    }
+}